@@ -0,0 +1,189 @@
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Secuencia de movimientos compilada en una sola permutación de casillas
+ * con el giro que recibe cada pieza. Aplicarla a un {@link CubeState}
+ * cuesta una pasada por las piezas que se mueven, sea cual sea la longitud
+ * de la secuencia, y componerla consigo misma permite repetirla {@code k}
+ * veces con {@code O(log k)} composiciones.
+ *
+ * <p>Tras aplicar el algoritmo, la casilla {@code d} tiene la pieza que
+ * estaba en {@code from[d]}, con su orientación compuesta a la izquierda
+ * con {@code delta[d]}. Las casillas que cambian se guardan además como
+ * ciclos, para aplicar el algoritmo en su sitio sin arreglos auxiliares.
+ * Los objetos son inmutables.
+ */
+public final class Algorithm {
+
+    /** Algoritmo que no mueve nada. */
+    public static final Algorithm IDENTITY = of(new CubeState());
+
+    /** Casilla de la que viene la pieza de cada casilla. */
+    final byte[] from;
+    /** Giro, índice de {@link Orientation}, que recibe la pieza de cada casilla. */
+    final byte[] delta;
+    /**
+     * Casillas que cambian, ciclo a ciclo: cada una recibe la pieza de la
+     * siguiente del mismo ciclo, y la última la de la primera.
+     */
+    final byte[] cycles;
+    /** Longitud de cada ciclo de {@link #cycles}. */
+    final byte[] lengths;
+
+    private Algorithm(byte[] from, byte[] delta) {
+        this.from = from;
+        this.delta = delta;
+        byte[] walk = new byte[CubeState.SLOTS];
+        byte[] sizes = new byte[CubeState.SLOTS];
+        boolean[] seen = new boolean[CubeState.SLOTS];
+        int n = 0, count = 0;
+        for (int s = 0; s < CubeState.SLOTS; s++) {
+            if (seen[s] || (from[s] == s && delta[s] == Orientation.IDENTITY)) {
+                continue;
+            }
+            int start = n;
+            for (int c = s; !seen[c]; c = from[c]) {
+                seen[c] = true;
+                walk[n++] = (byte) c;
+            }
+            sizes[count++] = (byte) (n - start);
+        }
+        cycles = Arrays.copyOf(walk, n);
+        lengths = Arrays.copyOf(sizes, count);
+    }
+
+    /** Compila una secuencia de movimientos de {@link CubeState}. */
+    public static Algorithm of(int... moves) {
+        CubeState c = new CubeState();
+        c.apply(moves);
+        return of(c);
+    }
+
+    /**
+     * Algoritmo que lleva del cubo resuelto a {@code state}. Como cada pieza
+     * se numera con su casilla de origen, la pieza de cada casilla dice de
+     * dónde viene y su orientación es el giro que ha recibido.
+     */
+    public static Algorithm of(CubeState state) {
+        byte[] from = new byte[CubeState.SLOTS];
+        byte[] delta = new byte[CubeState.SLOTS];
+        for (int s = 0; s < CubeState.SLOTS; s++) {
+            from[s] = (byte) state.piece(s);
+            delta[s] = (byte) state.orientation(s);
+        }
+        return new Algorithm(from, delta);
+    }
+
+    /** Algoritmo que aplica este y después {@code next}. */
+    public Algorithm then(Algorithm next) {
+        byte[] f = new byte[CubeState.SLOTS];
+        byte[] d = new byte[CubeState.SLOTS];
+        for (int s = 0; s < CubeState.SLOTS; s++) {
+            int mid = next.from[s];
+            f[s] = from[mid];
+            d[s] = (byte) Orientation.compose(next.delta[s], delta[mid]);
+        }
+        return new Algorithm(f, d);
+    }
+
+    /** Algoritmo que deshace este. */
+    public Algorithm inverse() {
+        byte[] f = new byte[CubeState.SLOTS];
+        byte[] d = new byte[CubeState.SLOTS];
+        for (int s = 0; s < CubeState.SLOTS; s++) {
+            f[from[s]] = (byte) s;
+            d[from[s]] = (byte) Orientation.inverse(delta[s]);
+        }
+        return new Algorithm(f, d);
+    }
+
+    /**
+     * Este algoritmo repetido {@code k} veces, con exponenciación por
+     * cuadrados. Un exponente negativo repite el inverso.
+     */
+    public Algorithm power(long k) {
+        Algorithm base = k < 0 ? inverse() : this;
+        long e = Math.abs(k);
+        Algorithm result = IDENTITY;
+        while (e > 0) {
+            if ((e & 1) != 0) {
+                result = result.then(base);
+            }
+            e >>= 1;
+            if (e > 0) {
+                base = base.then(base);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Número de veces que hay que repetir el algoritmo para que cada pieza
+     * vuelva a su casilla con su orientación de partida. No cuenta el giro
+     * de los centros y del núcleo sobre sí mismos, que no se ve: así
+     * {@code R U} tiene orden 105 y no 420. Un giro del cubo entero, como
+     * {@code R M' L'}, tiene orden 4 aunque tras aplicarlo una vez
+     * {@link CubeEngine#isSolved()} ya sea cierto.
+     */
+    public int order() {
+        int order = 1;
+        int i = 0;
+        for (byte length : lengths) {
+            int first = cycles[i];
+            int twist = 1;
+            if (!isCenter(first)) {
+                // Giro de una pieza tras recorrer su ciclo entero
+                int r = Orientation.IDENTITY;
+                for (int j = 0; j < length; j++) {
+                    r = Orientation.compose(r, delta[cycles[i + j]]);
+                }
+                for (int o = r; o != Orientation.IDENTITY; o = Orientation.compose(r, o)) {
+                    twist++;
+                }
+            }
+            order = lcm(order, length * twist);
+            i += length;
+        }
+        return order;
+    }
+
+    /** Indica si la casilla es un centro o el núcleo, con a lo sumo una coordenada en el borde. */
+    private static boolean isCenter(int slot) {
+        int border = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            if (CubeState.coordinate(slot, axis) != 1) {
+                border++;
+            }
+        }
+        return border <= 1;
+    }
+
+    private static int lcm(int a, int b) {
+        int x = a, y = b;
+        while (y != 0) {
+            int t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Algorithm)) {
+            return false;
+        }
+        Algorithm other = (Algorithm) obj;
+        return Arrays.equals(from, other.from) && Arrays.equals(delta, other.delta);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(from) + Arrays.hashCode(delta);
+    }
+}
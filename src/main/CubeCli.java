@@ -0,0 +1,108 @@
+package main;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Línea de órdenes sin ventana para {@link CubeEngine}. Lee una secuencia
+ * de movimientos por línea, de un archivo o de la entrada estándar, la
+ * aplica al cubo resuelto y escribe en la salida una línea con las 54
+ * pegatinas o, con {@code --checksum}, un resumen de 16 dígitos
+ * hexadecimales de ellas. Una línea vacía da el cubo resuelto.
+ *
+ * <pre>
+ * java -cp CuboRubik3D.jar main.CubeCli [--checksum] [archivo]
+ * </pre>
+ *
+ * <p>No carga ninguna clase de AWT. La salida se escribe en bytes sobre un
+ * búfer propio y el cubo se reutiliza entre líneas, así que el coste por
+ * secuencia es poco más que leer la línea.
+ */
+public final class CubeCli {
+
+    /** Base y primo de FNV-1a de 64 bits. */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private CubeCli() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean checksum = false;
+        String file = null;
+        for (String arg : args) {
+            if (arg.equals("--checksum")) {
+                checksum = true;
+            } else if (arg.startsWith("-") && !arg.equals("-")) {
+                System.err.println("Uso: main.CubeCli [--checksum] [archivo]");
+                System.exit(2);
+                return;
+            } else {
+                file = arg;
+            }
+        }
+        Reader in = file == null || file.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16);
+        try (BufferedReader reader = new BufferedReader(in, 1 << 16)) {
+            int line = run(reader, out, checksum);
+            if (line > 0) {
+                out.flush();
+                System.err.println("Línea " + line + ": movimiento desconocido");
+                System.exit(1);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Procesa todas las líneas de {@code in}.
+     *
+     * @return 0 si todas eran válidas, o el número de la primera línea con
+     *         un movimiento desconocido, en la que se detiene
+     */
+    static int run(BufferedReader in, OutputStream out, boolean checksum) throws IOException {
+        CubeEngine engine = new CubeEngine();
+        char[] facelets = new char[CubeEngine.FACELETS];
+        byte[] row = new byte[CubeEngine.FACELETS + 1];
+        int number = 0;
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            number++;
+            engine.reset();
+            try {
+                engine.apply(line);
+            } catch (IllegalArgumentException e) {
+                return number;
+            }
+            engine.facelets(facelets);
+            int n;
+            if (checksum) {
+                long h = FNV_OFFSET;
+                for (char c : facelets) {
+                    h = (h ^ c) * FNV_PRIME;
+                }
+                for (n = 0; n < 16; n++) {
+                    row[n] = HEX[(int) (h >>> (60 - 4 * n)) & 0xF];
+                }
+            } else {
+                for (n = 0; n < CubeEngine.FACELETS; n++) {
+                    row[n] = (byte) facelets[n];
+                }
+            }
+            row[n++] = '\n';
+            out.write(row, 0, n);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,225 @@
+package main;
+
+/**
+ * Fachada sin ventana para simular el cubo: aplica movimientos o secuencias
+ * escritas en notación de cubo, devuelve las 54 pegatinas y dice si está
+ * resuelto. Solo usa {@link CubeState} y las tablas de {@link Orientation},
+ * así que no carga ninguna clase de AWT ni de Swing y sirve para trabajos
+ * por lotes en servidores sin pantalla.
+ *
+ * <p>Las pegatinas siguen el orden habitual de caras {@code U R F D L B},
+ * nueve por cara, por filas y mirando cada cara desde fuera: {@code U} con
+ * {@code B} arriba, {@code D} con {@code F} arriba y las caras laterales con
+ * {@code U} arriba. Cada pegatina se escribe con la letra de la cara a la
+ * que pertenece en el cubo resuelto. Ni las consultas ni los movimientos
+ * reservan memoria, salvo {@link #facelets()}, que crea la cadena.
+ */
+public final class CubeEngine {
+
+    /** Número de pegatinas. */
+    public static final int FACELETS = 54;
+    /** Caras en el orden de {@link #facelets(char[])}. */
+    private static final String FACE_ORDER = "URFDLB";
+    /** Letra de cada pegatina de {@link Palette}, según la cara en la que empieza. */
+    private static final char[] LETTER = new char[6];
+    /** Dirección (0 -Z ... 5 +X) de cada cara de {@link #FACE_ORDER}. */
+    private static final int[] FACE_DIRECTION = {2, 5, 0, 3, 4, 1};
+    /** Casilla de cada pegatina. */
+    private static final byte[] FACELET_SLOT = new byte[FACELETS];
+    /** Dirección hacia la que mira cada pegatina. */
+    private static final byte[] FACELET_DIRECTION = new byte[FACELETS];
+    /** {@code STICKER_AT[o][dirección]}: pegatina que una pieza con orientación {@code o} muestra hacia esa dirección. */
+    private static final byte[][] STICKER_AT = new byte[Orientation.COUNT][6];
+    private static final CubeState SOLVED = new CubeState();
+
+    static {
+        for (int f = 0; f < 6; f++) {
+            LETTER[Orientation.sticker(Orientation.IDENTITY, FACE_DIRECTION[f])] = FACE_ORDER.charAt(f);
+        }
+        for (int f = 0; f < 6; f++) {
+            for (int r = 0; r < 3; r++) {
+                for (int c = 0; c < 3; c++) {
+                    int i = f * 9 + r * 3 + c;
+                    FACELET_SLOT[i] = (byte) faceletSlot(f, r, c);
+                    FACELET_DIRECTION[i] = (byte) FACE_DIRECTION[f];
+                }
+            }
+        }
+        for (int o = 0; o < Orientation.COUNT; o++) {
+            // La orientación de CubeState es la del dibujo, que gira los ejes
+            // X y Z en sentido contrario a las posiciones; reflejar el eje Y
+            // da el giro real de la pieza: P[i][j] = s_i * s_j * M[i][j].
+            double[][] m = Orientation.matrix(o);
+            for (int face = 0; face < 6; face++) {
+                int k = 2 - face / 2;
+                int sign = face % 2 == 0 ? -1 : 1;
+                for (int row = 0; row < 3; row++) {
+                    double v = sign * m[row][k] * (row == 1 ? -1 : 1) * (k == 1 ? -1 : 1);
+                    if (v != 0) {
+                        int direction = 2 * (2 - row) + (v > 0 ? 1 : 0);
+                        STICKER_AT[o][direction] = Orientation.sticker(Orientation.IDENTITY, face);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Casilla de la pegatina de la fila {@code r} y columna {@code c} de la cara {@code f}. */
+    private static int faceletSlot(int f, int r, int c) {
+        switch (FACE_ORDER.charAt(f)) {
+            case 'U':
+                return CubeState.slot(c, 0, 2 - r);
+            case 'R':
+                return CubeState.slot(2, r, c);
+            case 'F':
+                return CubeState.slot(c, r, 0);
+            case 'D':
+                return CubeState.slot(c, 2, r);
+            case 'L':
+                return CubeState.slot(0, r, 2 - c);
+            default:
+                return CubeState.slot(2 - c, r, 2);
+        }
+    }
+
+    private final CubeState state = new CubeState();
+    private final char[] buffer = new char[FACELETS];
+
+    /** Crea el simulador con el cubo resuelto. */
+    public CubeEngine() {
+    }
+
+    /** Estado que modifica el simulador; no debe cambiarse por fuera. */
+    public CubeState state() {
+        return state;
+    }
+
+    /** Vuelve al cubo resuelto. */
+    public void reset() {
+        state.set(SOLVED);
+    }
+
+    /** Aplica un movimiento, una de las constantes de {@link CubeState}. */
+    public void apply(int move) {
+        state.turn(move);
+    }
+
+    /** Aplica una secuencia de movimientos de {@link CubeState}. */
+    public void apply(int[] moves) {
+        state.apply(moves);
+    }
+
+    /** Aplica un algoritmo compilado en una sola pasada. */
+    public void apply(Algorithm algorithm) {
+        state.apply(algorithm);
+    }
+
+    /**
+     * Compila una secuencia escrita en notación de cubo, con las mismas
+     * reglas que {@link #apply(CharSequence)}.
+     *
+     * @throws IllegalArgumentException si la secuencia tiene un movimiento
+     *         desconocido
+     */
+    public static Algorithm compile(CharSequence sequence) {
+        CubeEngine e = new CubeEngine();
+        e.apply(sequence);
+        return Algorithm.of(e.state);
+    }
+
+    /**
+     * Aplica una secuencia escrita en notación de cubo, como
+     * {@code "R U R' U'"}. Los movimientos pueden ir separados por espacios
+     * o seguidos; cada uno es una letra de {@code UDFBLRMES} seguida
+     * opcionalmente de {@code 2} o {@code '}. Se analiza carácter a
+     * carácter sin crear objetos.
+     *
+     * @return número de movimientos aplicados
+     * @throws IllegalArgumentException si la secuencia tiene un movimiento
+     *         desconocido; los anteriores ya se han aplicado
+     */
+    public int apply(CharSequence sequence) {
+        int count = 0;
+        int n = sequence.length();
+        int i = 0;
+        while (i < n) {
+            char ch = sequence.charAt(i++);
+            if (Character.isWhitespace(ch)) {
+                continue;
+            }
+            int layer = layer(ch);
+            if (layer < 0) {
+                throw new IllegalArgumentException("Movimiento desconocido en la posición " + (i - 1) + ": " + ch);
+            }
+            int move = layer * 3;
+            if (i < n) {
+                char suffix = sequence.charAt(i);
+                if (suffix == '2') {
+                    move += CubeState.HALF;
+                    i++;
+                } else if (suffix == '\'') {
+                    move += CubeState.PRIME;
+                    i++;
+                }
+            }
+            state.turn(move);
+            count++;
+        }
+        return count;
+    }
+
+    /** Índice en {@code UDFBLRMES} de la capa con esa letra, o -1. */
+    private static int layer(char ch) {
+        switch (ch) {
+            case 'U': return 0;
+            case 'D': return 1;
+            case 'F': return 2;
+            case 'B': return 3;
+            case 'L': return 4;
+            case 'R': return 5;
+            case 'M': return 6;
+            case 'E': return 7;
+            case 'S': return 8;
+            default: return -1;
+        }
+    }
+
+    /** Pegatina de {@link Palette} de la posición {@code i} de {@link #facelets(char[])}. */
+    public int sticker(int i) {
+        int o = state.orientation(FACELET_SLOT[i]);
+        return STICKER_AT[o][FACELET_DIRECTION[i]];
+    }
+
+    /**
+     * Escribe las 54 pegatinas en {@code out}, con la letra de la cara a la
+     * que pertenecen, y devuelve el mismo arreglo.
+     */
+    public char[] facelets(char[] out) {
+        for (int i = 0; i < FACELETS; i++) {
+            out[i] = LETTER[sticker(i)];
+        }
+        return out;
+    }
+
+    /** Las 54 pegatinas como cadena, por ejemplo {@code UUUUUUUUURRR...}. */
+    public String facelets() {
+        return new String(facelets(buffer));
+    }
+
+    /**
+     * Indica si cada cara tiene un solo color. A diferencia de comparar con
+     * un {@link CubeState} resuelto, no tiene en cuenta el giro de los
+     * centros sobre sí mismos, que no se ve.
+     */
+    public boolean isSolved() {
+        for (int f = 0; f < FACELETS; f += 9) {
+            int color = sticker(f);
+            for (int i = f + 1; i < f + 9; i++) {
+                if (sticker(i) != color) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,174 @@
+package main;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Eventos de Java Flight Recorder del cubo: cuadros dibujados, giros de
+ * capa, animaciones, mezclas y manejo de la entrada. Todos están
+ * desactivados por defecto; se activan en la configuración de la grabación,
+ * por ejemplo con {@code -XX:StartFlightRecording:settings=...} o desde JMC
+ * marcando la categoría "Rubik". Con JFR apagado, o con el evento
+ * desactivado, {@code begin()} y {@code shouldCommit()} no hacen nada y el
+ * compilador elimina la reserva del evento.
+ *
+ * <p>Cada evento se crea con {@code begin()} al empezar lo que mide y solo
+ * rellena sus campos si {@code shouldCommit()} lo pide, para no calcular
+ * nada cuando no se va a grabar.
+ */
+public final class CubeEvents {
+
+    private CubeEvents() {
+    }
+
+    /** Un cuadro dibujado por {@link Cubo}; su duración es la del cuadro en el EDT. */
+    @Name("rubik.Frame")
+    @Label("Frame")
+    @Category({"Rubik", "Render"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class Frame extends Event {
+        @Label("Polygons")
+        public int polygons;
+        @Label("Culled Faces")
+        public int culledFaces;
+        @Label("Resolution Divisor")
+        public int resolutionDivisor;
+        @Label("Depth Buffer")
+        public boolean depthBuffer;
+        @Label("Tiled")
+        public boolean tiled;
+        @Label("Animating Layer")
+        public boolean animating;
+        @Label("Raster Time")
+        @Description("Rasterizado del último cuadro terminado, en este hilo o en el de render")
+        @Timespan(Timespan.NANOSECONDS)
+        public long rasterTime;
+    }
+
+    /** Giro de una o dos capas, o del cubo entero, sobre el estado del cubo. */
+    @Name("rubik.LayerMove")
+    @Label("Layer Move")
+    @Category({"Rubik", "Moves"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class LayerMove extends Event {
+        @Label("Axis")
+        public int axis;
+        @Label("Layer")
+        public int layer;
+        @Label("Clockwise")
+        public boolean clockwise;
+        @Label("Last Layer")
+        public int lastLayer;
+        @Label("Quarter Turns")
+        public int quarterTurns;
+    }
+
+    /** Animación completa de un giro de capa, desde que empieza hasta que termina. */
+    @Name("rubik.LayerAnimation")
+    @Label("Layer Animation")
+    @Category({"Rubik", "Moves"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class LayerAnimation extends Event {
+        @Label("Axis")
+        public int axis;
+        @Label("Layer")
+        public int layer;
+        @Label("Clockwise")
+        public boolean clockwise;
+        @Label("Last Layer")
+        public int lastLayer;
+        @Label("Quarter Turns")
+        public int quarterTurns;
+        @Label("Steps")
+        public int steps;
+    }
+
+    /** Un paso del temporizador de la animación de una capa. */
+    @Name("rubik.LayerAnimationStep")
+    @Label("Layer Animation Step")
+    @Category({"Rubik", "Moves"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class LayerAnimationStep extends Event {
+        @Label("Axis")
+        public int axis;
+        @Label("Layer")
+        public int layer;
+        @Label("Angle")
+        @Description("Ángulo girado hasta este paso, en grados")
+        public double angle;
+    }
+
+    /** Mezcla animada, desde el primer giro hasta que termina el último. */
+    @Name("rubik.Scramble")
+    @Label("Scramble")
+    @Category({"Rubik", "Moves"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class Scramble extends Event {
+        @Label("Moves")
+        public int moves;
+    }
+
+    /** Manejo de un evento de teclado o ratón en el EDT. */
+    @Name("rubik.Input")
+    @Label("Input")
+    @Category({"Rubik", "Input"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class Input extends Event {
+        @Label("Type")
+        public String type;
+        @Label("Key Code")
+        public int keyCode;
+        @Label("Button")
+        public int button;
+        @Label("X")
+        public int x;
+        @Label("Y")
+        public int y;
+        @Label("Queue Latency")
+        @Description("Tiempo desde que AWT creó el evento hasta que terminó su manejo")
+        @Timespan(Timespan.MILLISECONDS)
+        public long queueLatency;
+    }
+
+    /** Empieza a medir el manejo de un evento de entrada. */
+    static Input beginInput() {
+        Input ev = new Input();
+        ev.begin();
+        return ev;
+    }
+
+    /**
+     * Termina y graba, si está activo, el evento de entrada empezado con
+     * {@link #beginInput()}.
+     *
+     * @param type nombre del manejador, por ejemplo {@code "keyPressed"}
+     */
+    static void endInput(Input ev, String type, java.awt.event.InputEvent e) {
+        if (!ev.shouldCommit()) {
+            return;
+        }
+        ev.type = type;
+        if (e instanceof java.awt.event.KeyEvent) {
+            ev.keyCode = ((java.awt.event.KeyEvent) e).getKeyCode();
+        } else if (e instanceof java.awt.event.MouseEvent) {
+            java.awt.event.MouseEvent m = (java.awt.event.MouseEvent) e;
+            ev.button = m.getButton();
+            ev.x = m.getX();
+            ev.y = m.getY();
+        }
+        ev.queueLatency = Math.max(0, System.currentTimeMillis() - e.getWhen());
+        ev.commit();
+    }
+}
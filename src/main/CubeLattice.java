@@ -0,0 +1,120 @@
+package main;
+
+/**
+ * Red de los 4x4x4 puntos en los que se apoyan las esquinas de las 27
+ * piezas. Las piezas vecinas comparten esquinas, así que en lugar de
+ * transformar 27 x 8 vértices cada cuadro se transforman estos 64 puntos
+ * una sola vez, en un bucle sobre arreglos primitivos, y cada pieza copia
+ * los suyos. La capa que gira durante una animación tiene su propia pasada
+ * con la matriz de la vista por la del giro.
+ *
+ * <p>Supone que las piezas están en contacto: una pieza separada de sus
+ * vecinas no tendría sus esquinas en la red.
+ */
+final class CubeLattice {
+
+    /** Puntos por arista de la red. */
+    static final int SIDE = 4;
+    /** Número total de puntos. */
+    static final int POINTS = SIDE * SIDE * SIDE;
+
+    /**
+     * Desplazamiento de índice, respecto al punto de menor coordenada de una
+     * pieza, de cada esquina de {@link CubieMesh}.
+     */
+    private static final int[] CORNER_OFFSET = new int[CubieMesh.VERTICES];
+    /** Bits que ocupa cada coordenada en el índice de un punto. */
+    private static final int[] AXIS_SHIFT = {4, 2, 0};
+    /** Coordenadas de cada punto respecto al centro del cubo, en lados de pieza. */
+    private static final double[] UX = new double[POINTS];
+    private static final double[] UY = new double[POINTS];
+    private static final double[] UZ = new double[POINTS];
+
+    static {
+        for (int c = 0; c < CubieMesh.VERTICES; c++) {
+            CORNER_OFFSET[c] = index(CubieMesh.x(c) > 0 ? 1 : 0, CubieMesh.y(c) > 0 ? 1 : 0,
+                    CubieMesh.z(c) > 0 ? 1 : 0);
+        }
+        for (int a = 0; a < SIDE; a++) {
+            for (int b = 0; b < SIDE; b++) {
+                for (int c = 0; c < SIDE; c++) {
+                    int i = index(a, b, c);
+                    UX[i] = a - 1.5;
+                    UY[i] = b - 1.5;
+                    UZ[i] = c - 1.5;
+                }
+            }
+        }
+    }
+
+    /** Puntos en pantalla con la vista del cuadro. */
+    final double[] x = new double[POINTS];
+    final double[] y = new double[POINTS];
+    final double[] z = new double[POINTS];
+    /** Puntos de la capa que gira; el resto de posiciones no se usa. */
+    final double[] layerX = new double[POINTS];
+    final double[] layerY = new double[POINTS];
+    final double[] layerZ = new double[POINTS];
+
+    /** Índice del punto {@code (a, b, c)}, con coordenadas de 0 a 3. */
+    static int index(int a, int b, int c) {
+        return (a * SIDE + b) * SIDE + c;
+    }
+
+    /**
+     * Índice del punto en el que cae el vértice local {@code vertex} de la
+     * pieza situada en {@code (ix, iy, iz)} con la orientación indicada.
+     */
+    static int vertexIndex(int ix, int iy, int iz, int orientation, int vertex) {
+        return index(ix, iy, iz) + CORNER_OFFSET[Orientation.corner(orientation, vertex)];
+    }
+
+    /**
+     * Transforma todos los puntos con la matriz {@code m}, a escala
+     * {@code size}, y los traslada a {@code (tx, ty, tz)}.
+     */
+    void transform(Mat3 m, double size, double tx, double ty, double tz) {
+        double m00 = m.m00 * size, m01 = m.m01 * size, m02 = m.m02 * size;
+        double m10 = m.m10 * size, m11 = m.m11 * size, m12 = m.m12 * size;
+        double m20 = m.m20 * size, m21 = m.m21 * size, m22 = m.m22 * size;
+        double[] ux = UX, uy = UY, uz = UZ;
+        double[] px = x, py = y, pz = z;
+        for (int i = 0; i < POINTS; i++) {
+            double a = ux[i], b = uy[i], c = uz[i];
+            px[i] = m00 * a + m01 * b + m02 * c + tx;
+            py[i] = m10 * a + m11 * b + m12 * c + ty;
+            pz[i] = m20 * a + m21 * b + m22 * c + tz;
+        }
+    }
+
+    /**
+     * Como {@link #transform}, pero solo para los puntos de las capas
+     * {@code first} a {@code last} del eje {@code axis}, que se guardan en
+     * {@link #layerX}, {@link #layerY} y {@link #layerZ}: 32 para una capa,
+     * 48 para dos y los 64 cuando gira el cubo entero.
+     */
+    void transformLayer(Mat3 m, int axis, int first, int last, double size, double tx, double ty, double tz) {
+        double m00 = m.m00 * size, m01 = m.m01 * size, m02 = m.m02 * size;
+        double m10 = m.m10 * size, m11 = m.m11 * size, m12 = m.m12 * size;
+        double m20 = m.m20 * size, m21 = m.m21 * size, m22 = m.m22 * size;
+        double[] ux = UX, uy = UY, uz = UZ;
+        double[] px = layerX, py = layerY, pz = layerZ;
+        int shift = AXIS_SHIFT[axis];
+        for (int i = 0; i < POINTS; i++) {
+            int coord = (i >> shift) & (SIDE - 1);
+            if (coord < first || coord > last + 1) {
+                continue;
+            }
+            double a = ux[i], b = uy[i], c = uz[i];
+            px[i] = m00 * a + m01 * b + m02 * c + tx;
+            py[i] = m10 * a + m11 * b + m12 * c + ty;
+            pz[i] = m20 * a + m21 * b + m22 * c + tz;
+        }
+    }
+
+    /** Profundidad del centro de la pieza {@code (ix, iy, iz)}. */
+    double centerZ(int ix, int iy, int iz, boolean layer) {
+        double[] pz = layer ? layerZ : z;
+        return (pz[index(ix, iy, iz)] + pz[index(ix + 1, iy + 1, iz + 1)]) / 2;
+    }
+}
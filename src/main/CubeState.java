@@ -0,0 +1,395 @@
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Estado del cubo de Rubik sin ventana ni objetos de dibujo. Cada una de las
+ * 27 casillas guarda qué pieza la ocupa y su orientación, índice de
+ * {@link Orientation}, en dos arreglos de bytes. Las esquinas, aristas,
+ * centros y el núcleo son las casillas con tres, dos, una o ninguna
+ * coordenada en el borde; se guarda la orientación completa de cada pieza,
+ * y no solo su giro, porque de ella dependen los colores que se dibujan.
+ *
+ * <p>Los movimientos se aplican con tablas calculadas al cargar la clase:
+ * los ciclos de casillas de cada capa y la nueva orientación de cada pieza
+ * que se mueve. Un movimiento no reserva memoria.
+ *
+ * <p>Casillas y capas usan los índices {@code (x, y, z)} de
+ * {@link Cubo}; la notación de caras corresponde a la vista inicial, en la
+ * que arriba es {@code y = 0}, el frente {@code z = 0} y la derecha
+ * {@code x = 2}.
+ */
+public final class CubeState {
+
+    /** Número de casillas. */
+    public static final int SLOTS = 27;
+
+    /**
+     * Movimientos: las seis caras, cada una en sentido horario, media vuelta
+     * y antihorario ({@code U, U2, U'}, ...), seguidas de las tres capas
+     * centrales, que giran como L, D y F.
+     */
+    public static final int U = 0, D = 3, F = 6, B = 9, L = 12, R = 15, M = 18, E = 21, S = 24;
+    /** Desplazamientos sobre el primer movimiento de cada capa. */
+    public static final int HALF = 1, PRIME = 2;
+    /** Número de giros de caras exteriores. */
+    public static final int FACE_MOVES = 18;
+    /** Número total de movimientos. */
+    public static final int MOVES = 27;
+
+    private static final String[] NAMES = new String[MOVES];
+    /**
+     * Eje, índice y sentido en {@link Cubo} (1 si es el horario) del cuarto
+     * de vuelta horario de cada capa de la notación.
+     */
+    private static final int[][] LAYERS = {
+        {1, 0, 1}, // U
+        {1, 2, 0}, // D
+        {2, 0, 0}, // F
+        {2, 2, 1}, // B
+        {0, 0, 0}, // L
+        {0, 2, 1}, // R
+        {0, 1, 0}, // M
+        {1, 1, 0}, // E
+        {2, 1, 0}  // S
+    };
+
+    /** Casillas de los ciclos de cada movimiento: la pieza de {@code c[i - 1]} pasa a {@code c[i]}. */
+    private static final byte[][] CYCLES = new byte[MOVES][];
+    /** Longitud de los ciclos: 4 para un cuarto de vuelta, 2 para media. */
+    private static final int[] CYCLE_LENGTH = new int[MOVES];
+    /** Casilla central de la capa, que no se mueve pero sí gira. */
+    private static final byte[] CENTER = new byte[MOVES];
+    /** Nueva orientación de una pieza de la capa, según la que tenía. */
+    private static final byte[][] ROTATE = new byte[MOVES][Orientation.COUNT];
+    /** {@code LAYER_MOVE[eje][capa][horario ? 1 : 0]}: movimiento de {@link #turn(int, int, boolean)}. */
+    private static final byte[][][] LAYER_MOVE = new byte[3][3][2];
+    /** {@code LAYER_SLOTS[eje * 3 + capa]}: las nueve casillas de cada capa. */
+    private static final byte[][] LAYER_SLOTS = new byte[9][9];
+
+    static {
+        String faces = "UDFBLRMES";
+        for (int layer = 0; layer < LAYERS.length; layer++) {
+            int axis = LAYERS[layer][0];
+            int index = LAYERS[layer][1];
+            boolean cw = LAYERS[layer][2] == 1;
+            int move = layer * 3;
+            NAMES[move] = String.valueOf(faces.charAt(layer));
+            NAMES[move + HALF] = NAMES[move] + "2";
+            NAMES[move + PRIME] = NAMES[move] + "'";
+            build(move, axis, index, cw, 1);
+            build(move + HALF, axis, index, cw, 2);
+            build(move + PRIME, axis, index, !cw, 1);
+            LAYER_MOVE[axis][index][cw ? 1 : 0] = (byte) move;
+            LAYER_MOVE[axis][index][cw ? 0 : 1] = (byte) (move + PRIME);
+        }
+        for (int axis = 0; axis < 3; axis++) {
+            for (int layer = 0; layer < 3; layer++) {
+                int n = 0;
+                for (int s = 0; s < SLOTS; s++) {
+                    if (coordinate(s, axis) == layer) {
+                        LAYER_SLOTS[axis * 3 + layer][n++] = (byte) s;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Calcula las tablas de {@code turns} cuartos de vuelta de una capa. */
+    private static void build(int move, int axis, int layer, boolean clockwise, int turns) {
+        int[] dest = new int[SLOTS];
+        for (int s = 0; s < SLOTS; s++) {
+            dest[s] = s;
+        }
+        for (int t = 0; t < turns; t++) {
+            for (int s = 0; s < SLOTS; s++) {
+                dest[s] = quarterTurn(dest[s], axis, layer, clockwise);
+            }
+        }
+        byte[] cycles = new byte[8];
+        int n = 0;
+        boolean[] seen = new boolean[SLOTS];
+        for (int s = 0; s < SLOTS; s++) {
+            if (seen[s] || dest[s] == s) {
+                if (dest[s] == s && coordinate(s, axis) == layer) {
+                    CENTER[move] = (byte) s;
+                }
+                continue;
+            }
+            for (int c = s; !seen[c]; c = dest[c]) {
+                seen[c] = true;
+                cycles[n++] = (byte) c;
+            }
+        }
+        CYCLES[move] = cycles;
+        CYCLE_LENGTH[move] = turns == 2 ? 2 : 4;
+        for (int o = 0; o < Orientation.COUNT; o++) {
+            int r = o;
+            for (int t = 0; t < turns; t++) {
+                r = Orientation.turn(r, axis, clockwise);
+            }
+            ROTATE[move][o] = (byte) r;
+        }
+    }
+
+    /** Casilla a la que lleva un cuarto de vuelta de la capa a la casilla {@code s}. */
+    private static int quarterTurn(int s, int axis, int layer, boolean clockwise) {
+        int x = s / 9, y = s / 3 % 3, z = s % 3;
+        if (coordinate(s, axis) != layer) {
+            return s;
+        }
+        switch (axis) {
+            case 0:
+                return clockwise ? slot(x, z, 2 - y) : slot(x, 2 - z, y);
+            case 1:
+                return clockwise ? slot(z, y, 2 - x) : slot(2 - z, y, x);
+            default:
+                return clockwise ? slot(y, 2 - x, z) : slot(2 - y, x, z);
+        }
+    }
+
+    /** Coordenada de la casilla {@code s} sobre un eje. */
+    static int coordinate(int s, int axis) {
+        return axis == 0 ? s / 9 : axis == 1 ? s / 3 % 3 : s % 3;
+    }
+
+    /** Pieza que ocupa cada casilla, con el número de su casilla de origen. */
+    private final byte[] piece = new byte[SLOTS];
+    /** Orientación de la pieza de cada casilla. */
+    private final byte[] orientation = new byte[SLOTS];
+
+    /** Crea el cubo resuelto. */
+    public CubeState() {
+        for (int s = 0; s < SLOTS; s++) {
+            piece[s] = (byte) s;
+            orientation[s] = Orientation.IDENTITY;
+        }
+    }
+
+    /** Índice de la casilla {@code (x, y, z)}. */
+    public static int slot(int x, int y, int z) {
+        return (x * 3 + y) * 3 + z;
+    }
+
+    /**
+     * Las nueve casillas de una capa, con los ejes e índices de
+     * {@link Cubo}. El arreglo es compartido y no debe modificarse.
+     */
+    static byte[] layerSlots(int axis, int layer) {
+        return LAYER_SLOTS[axis * 3 + layer];
+    }
+
+    /** Desplazamiento de cada dirección de cara: 0 -Z, 1 +Z, 2 -Y, 3 +Y, 4 -X, 5 +X. */
+    private static final int[][] FACE_OFFSETS = {
+        {0, 0, -1}, {0, 0, 1}, {0, -1, 0}, {0, 1, 0}, {-1, 0, 0}, {1, 0, 0}
+    };
+
+    /**
+     * Calcula en qué direcciones la pieza de la casilla {@code (x, y, z)}
+     * tiene una vecina pegada, para que no dibuje las caras que se tocan.
+     * Dos piezas solo siguen pegadas si se mueven juntas: las capas que
+     * giran en una animación se separan de las contiguas y la pieza
+     * desplazada, de todas sus vecinas.
+     *
+     * @param rotAxis   eje de las capas que giran, o -1 si no hay animación
+     * @param rotFirst  primera capa que gira
+     * @param rotLast   última capa que gira
+     * @param displaced casilla de la pieza desplazada, o -1 si no hay ninguna
+     * @return máscara para {@link RenderOptions#hiddenNeighbours}
+     */
+    static int neighbourMask(int x, int y, int z, int rotAxis, int rotFirst, int rotLast, int displaced) {
+        int group = motionGroup(x, y, z, rotAxis, rotFirst, rotLast, displaced);
+        int mask = 0;
+        for (int d = 0; d < FACE_OFFSETS.length; d++) {
+            int nx = x + FACE_OFFSETS[d][0];
+            int ny = y + FACE_OFFSETS[d][1];
+            int nz = z + FACE_OFFSETS[d][2];
+            if (nx < 0 || nx > 2 || ny < 0 || ny > 2 || nz < 0 || nz > 2) {
+                continue;
+            }
+            if (motionGroup(nx, ny, nz, rotAxis, rotFirst, rotLast, displaced) == group) {
+                mask |= 1 << d;
+            }
+        }
+        return mask;
+    }
+
+    /** Grupo de piezas que se mueven juntas: 2 la desplazada, 1 las capas que giran y 0 el resto. */
+    private static int motionGroup(int x, int y, int z, int rotAxis, int rotFirst, int rotLast, int displaced) {
+        if (slot(x, y, z) == displaced) {
+            return 2;
+        }
+        int coord = rotAxis == 0 ? x : rotAxis == 1 ? y : z;
+        return rotAxis >= 0 && coord >= rotFirst && coord <= rotLast ? 1 : 0;
+    }
+
+    /** Nombre en notación de cubo de un movimiento, por ejemplo {@code R'}. */
+    public static String name(int move) {
+        return NAMES[move];
+    }
+
+    /** Movimiento con el nombre indicado, o -1 si no existe. */
+    public static int parse(String name) {
+        for (int m = 0; m < MOVES; m++) {
+            if (NAMES[m].equals(name)) {
+                return m;
+            }
+        }
+        return -1;
+    }
+
+    /** Movimiento que deshace {@code move}. */
+    public static int inverse(int move) {
+        int kind = move % 3;
+        return kind == HALF ? move : move - kind + (PRIME - kind);
+    }
+
+    /** Pieza que ocupa una casilla, con el número de su casilla de origen. */
+    public int piece(int slot) {
+        return piece[slot];
+    }
+
+    /** Orientación, índice de {@link Orientation}, de la pieza de una casilla. */
+    public int orientation(int slot) {
+        return orientation[slot];
+    }
+
+    /** Aplica un movimiento, una de las constantes de esta clase. */
+    public void turn(int move) {
+        byte[] c = CYCLES[move];
+        byte[] rotate = ROTATE[move];
+        byte[] p = piece;
+        byte[] o = orientation;
+        if (CYCLE_LENGTH[move] == 4) {
+            cycle4(p, o, rotate, c[0], c[1], c[2], c[3]);
+            cycle4(p, o, rotate, c[4], c[5], c[6], c[7]);
+        } else {
+            swap(p, o, rotate, c[0], c[1]);
+            swap(p, o, rotate, c[2], c[3]);
+            swap(p, o, rotate, c[4], c[5]);
+            swap(p, o, rotate, c[6], c[7]);
+        }
+        int center = CENTER[move];
+        o[center] = rotate[o[center]];
+    }
+
+    /** Lleva la pieza de {@code a} a {@code b}, la de {@code b} a {@code c}, y así hasta {@code d}. */
+    private static void cycle4(byte[] p, byte[] o, byte[] rotate, int a, int b, int c, int d) {
+        byte pd = p[d];
+        byte od = o[d];
+        p[d] = p[c];
+        o[d] = rotate[o[c]];
+        p[c] = p[b];
+        o[c] = rotate[o[b]];
+        p[b] = p[a];
+        o[b] = rotate[o[a]];
+        p[a] = pd;
+        o[a] = rotate[od];
+    }
+
+    /** Intercambia las piezas de {@code a} y {@code b}. */
+    private static void swap(byte[] p, byte[] o, byte[] rotate, int a, int b) {
+        byte pa = p[a];
+        byte oa = o[a];
+        p[a] = p[b];
+        o[a] = rotate[o[b]];
+        p[b] = pa;
+        o[b] = rotate[oa];
+    }
+
+    /**
+     * Gira un cuarto de vuelta cualquier capa, con los ejes, índices y
+     * sentido de {@link Cubo}.
+     */
+    public void turn(int axis, int layer, boolean clockwise) {
+        turn(LAYER_MOVE[axis][layer][clockwise ? 1 : 0]);
+    }
+
+    /**
+     * Movimiento que gira una capa, con los ejes, índices y sentido de
+     * {@link Cubo}, el número de cuartos de vuelta indicado: 1 en sentido
+     * horario, 2 media vuelta y -1 o 3 en sentido antihorario.
+     */
+    public static int layerMove(int axis, int layer, int quarterTurns) {
+        int move = LAYER_MOVE[axis][layer][1];
+        switch (quarterTurns & 3) {
+            case 1:
+                return move;
+            case 2:
+                return move - move % 3 + HALF;
+            case 3:
+                return inverse(move);
+            default:
+                throw new IllegalArgumentException("Un giro de capa necesita 1, 2 o 3 cuartos de vuelta: " + quarterTurns);
+        }
+    }
+
+    /** Aplica una secuencia de movimientos. */
+    public void apply(int[] moves) {
+        for (int move : moves) {
+            turn(move);
+        }
+    }
+
+    /**
+     * Aplica un algoritmo compilado en una sola pasada por sus ciclos, sin
+     * reservar memoria.
+     */
+    public void apply(Algorithm algorithm) {
+        byte[] cycles = algorithm.cycles;
+        byte[] delta = algorithm.delta;
+        byte[] p = piece;
+        byte[] o = orientation;
+        int i = 0;
+        for (byte length : algorithm.lengths) {
+            int first = cycles[i];
+            byte p0 = p[first];
+            byte o0 = o[first];
+            int end = i + length - 1;
+            for (; i < end; i++) {
+                int d = cycles[i];
+                int s = cycles[i + 1];
+                p[d] = p[s];
+                o[d] = (byte) Orientation.compose(delta[d], o[s]);
+            }
+            int last = cycles[end];
+            p[last] = p0;
+            o[last] = (byte) Orientation.compose(delta[last], o0);
+            i++;
+        }
+    }
+
+    /** Copia el estado de otro cubo sin reservar memoria. */
+    public void set(CubeState other) {
+        System.arraycopy(other.piece, 0, piece, 0, SLOTS);
+        System.arraycopy(other.orientation, 0, orientation, 0, SLOTS);
+    }
+
+    /** Devuelve un cubo nuevo con el mismo estado. */
+    public CubeState copy() {
+        CubeState c = new CubeState();
+        c.set(this);
+        return c;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CubeState)) {
+            return false;
+        }
+        CubeState other = (CubeState) obj;
+        return Arrays.equals(piece, other.piece) && Arrays.equals(orientation, other.orientation);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int s = 0; s < SLOTS; s++) {
+            h = 31 * h + (piece[s] * Orientation.COUNT + orientation[s]);
+        }
+        return h;
+    }
+}
@@ -0,0 +1,54 @@
+package main;
+
+/**
+ * Malla del cubo unitario que comparten todas las piezas. Las coordenadas
+ * van de -0.5 a 0.5 y el tamaño real se aplica como factor de escala al
+ * transformar, así que cambiar el zoom no toca ninguna pieza. Los datos se
+ * guardan como estructura de arreglos planos privados y solo se leen por
+ * los métodos de acceso, de modo que la malla no puede modificarse.
+ */
+final class CubieMesh {
+
+    /** Número de vértices. */
+    static final int VERTICES = 8;
+    /** Número de caras. */
+    static final int FACES = 6;
+
+    /** Coordenadas de los 8 vértices en el espacio local de la pieza. */
+    private static final double[] X = {-0.5, 0.5, 0.5, -0.5, -0.5, 0.5, 0.5, -0.5};
+    private static final double[] Y = {-0.5, -0.5, 0.5, 0.5, -0.5, -0.5, 0.5, 0.5};
+    private static final double[] Z = {-0.5, -0.5, -0.5, -0.5, 0.5, 0.5, 0.5, 0.5};
+
+    /** Vértices de cada cara, de cuatro en cuatro: {@code FACE_VERTICES[4 * cara + j]}. */
+    private static final int[] FACE_VERTICES = {
+        0, 1, 2, 3, // back
+        4, 5, 6, 7, // front
+        0, 1, 5, 4, // bottom
+        2, 3, 7, 6, // top
+        0, 3, 7, 4, // left
+        1, 2, 6, 5  // right
+    };
+
+    private CubieMesh() {
+    }
+
+    /** Coordenada X del vértice {@code v}. */
+    static double x(int v) {
+        return X[v];
+    }
+
+    /** Coordenada Y del vértice {@code v}. */
+    static double y(int v) {
+        return Y[v];
+    }
+
+    /** Coordenada Z del vértice {@code v}. */
+    static double z(int v) {
+        return Z[v];
+    }
+
+    /** Vértice {@code j}, de 0 a 3, de la cara {@code face}. */
+    static int faceVertex(int face, int j) {
+        return FACE_VERTICES[4 * face + j];
+    }
+}
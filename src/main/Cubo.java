@@ -4,7 +4,6 @@ package main;
  * Ventana principal que gestiona la interacción con el usuario y el renderizado
  * completo del cubo de Rubik.
  */
-import java.awt.Color;
 import java.awt.event.*;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
@@ -18,23 +17,38 @@ public class Cubo extends JFrame {
      */
     private Graficos graficos;
     /**
-     * Matriz de subcubos que conforman el cubo de Rubik.
+     * Subcubos que conforman el cubo de Rubik, indexados por casilla con
+     * {@link CubeState#slot}. Son los objetos que se dibujan; toman su
+     * orientación de {@link #state}.
      */
-    private Subcubo[][][] cuboRubik;
+    private Subcubo[] cuboRubik;
     /**
-     * Rotaciones globales del cubo.
+     * Los mismos subcubos indexados por pieza, el número de su casilla de
+     * origen, que no cambia al girar las capas.
+     */
+    private Subcubo[] piezas;
+    /** Estado del cubo: qué pieza ocupa cada casilla y con qué orientación. */
+    private CubeState state = new CubeState();
+    /**
+     * Rotaciones globales del cubo como ángulos de Euler. Se derivan de
+     * {@link #camera} solo cuando algún cálculo los pide; ver
+     * {@link #syncCamera()}.
      */
     private double anguloX = 30, anguloY = 30, anguloZ = 0;
     /**
-     * Matriz de rotación acumulada para mantener la orientación del cubo. Se
-     * actualiza cada vez que se aplica una rotación para conservar la misma
-     * dirección independientemente de la vista actual.
+     * Matriz de rotación acumulada para mantener la orientación del cubo,
+     * derivada de {@link #camera} igual que los ángulos.
      */
     private double[][] rotMatrix;
     /**
-     * Factor de escala para separar los subcubos.
+     * Orientación de la cámara. Los giros del ratón y del teclado se componen
+     * directamente sobre ella y cada cuadro obtiene de aquí su matriz de vista.
      */
-    private double escala = 1;
+    private final Quat camera = new Quat();
+    /** Giro de trabajo de {@link #applyRotation}, reutilizado. */
+    private final Quat cameraStep = new Quat();
+    /** Indica que {@link #rotMatrix} y los ángulos no reflejan {@link #camera}. */
+    private boolean cameraStale;
     /**
      * Traslación para centrar el cubo en la ventana.
      */
@@ -84,11 +98,81 @@ public class Cubo extends JFrame {
      * Indica si se muestran los textos de ayuda en pantalla.
      */
     private boolean showControls = true;
+    /**
+     * Indica si se usa el buffer de profundidad en lugar del algoritmo del
+     * pintor. Sin ordenar piezas ni caras, también resuelve bien las piezas
+     * que se atraviesan durante la animación de una capa.
+     */
+    private boolean depthBuffer = false;
+    /**
+     * Indica si el cuadro se rasteriza por baldosas en varios hilos. La
+     * imagen es la misma que en modo secuencial.
+     */
+    private boolean parallelRaster = false;
 
     /**
      * True mientras se ejecuta una animación de rotación.
      */
     private boolean animating = false;
+    /**
+     * Capas que giran en la animación en curso: su eje, o -1 si no hay
+     * ninguna, la primera y la última, y el ángulo girado hasta ahora en
+     * grados. Un giro doble abarca dos capas y un giro del cubo entero, las
+     * tres.
+     */
+    private int animAxis = -1;
+    private int animFirst, animLast;
+    private double animAngle;
+    /**
+     * Caras descartadas en el último cuadro, por mirar hacia atrás o estar
+     * pegadas a otra pieza.
+     */
+    private int culledFaces = 0;
+    /**
+     * Textos fijos del HUD ya rasterizados. Se rehacen solo cuando cambian
+     * {@link #gameMode} o {@link #showControls}; cada cuadro se limita a
+     * componerlos.
+     */
+    private Overlay hudLayer;
+    /** Valores con los que se dibujó {@link #hudLayer}. */
+    private boolean hudGameMode, hudShowControls;
+    /** Tiempo que tardó {@link #drawUI()} en el último cuadro, en nanosegundos. */
+    private long hudNanos = 0;
+    /**
+     * Regula la resolución de los cuadros mientras se arrastra el cubo para
+     * no pasar del presupuesto de tiempo por cuadro.
+     */
+    private final QualityGovernor governor = new QualityGovernor();
+    /**
+     * Convierte las peticiones de redibujado de eventos y animaciones en
+     * como mucho un cuadro por intervalo.
+     */
+    private final FrameScheduler scheduler = new FrameScheduler(this::moverCubo);
+    /**
+     * Tiempos por etapa y contadores de los últimos cuadros. Solo se toman
+     * mientras se muestra su panel, que se activa con la tecla F.
+     */
+    private final FrameStats stats = new FrameStats();
+    /** Líneas del panel de estadísticas, rehechas cada {@link #STATS_REFRESH_NANOS}. */
+    private String[] statsLines;
+    private long statsUpdated;
+    /** Intervalo entre actualizaciones del panel, para que se pueda leer. */
+    private static final long STATS_REFRESH_NANOS = 250_000_000L;
+    /** Panel en el que se muestra el cuadro. */
+    private RenderPanel panel;
+    /**
+     * Memoria de trabajo de {@link #moverCubo()}: la matriz de la vista, la
+     * del giro de la capa animada y su producto, calculadas una vez por
+     * cuadro, la red de vértices transformados, la información de cada pieza
+     * y sus opciones de dibujo. Se reutilizan para que transformar el cubo no
+     * reserve memoria.
+     */
+    private final Mat3 viewMatrix = new Mat3();
+    private final Mat3 animMatrix = new Mat3();
+    private final Mat3 layerMatrix = new Mat3();
+    private final CubeLattice lattice = new CubeLattice();
+    private final RenderInfo[] renderInfos = new RenderInfo[27];
+    private final RenderOptions renderOptions = new RenderOptions();
 
     /**
      * Información auxiliar usada durante el renderizado para ordenar las piezas
@@ -96,25 +180,20 @@ public class Cubo extends JFrame {
      */
     private static class RenderInfo {
 
-        final Subcubo cubo;
-        final int x, y;
-        final double depth;
-        final double ex, ey, ez;
-        final double tx, ty, tz;
-        final boolean highlight;
-        final int ix, iy, iz;
+        Subcubo cubo;
+        double depth;
+        /** Si la pieza pertenece a la capa que se está animando. */
+        boolean animated;
+        double tx, ty, tz;
+        boolean highlight;
+        int ix, iy, iz;
 
-        RenderInfo(Subcubo c, int x, int y, double depth,
-                double ex, double ey, double ez,
+        void set(Subcubo c, double depth, boolean animated,
                 double tx, double ty, double tz,
                 boolean h, int ix, int iy, int iz) {
             this.cubo = c;
-            this.x = x;
-            this.y = y;
             this.depth = depth;
-            this.ex = ex;
-            this.ey = ey;
-            this.ez = ez;
+            this.animated = animated;
             this.tx = tx;
             this.ty = ty;
             this.tz = tz;
@@ -125,25 +204,31 @@ public class Cubo extends JFrame {
         }
     }
 
+    /** Orden del algoritmo del pintor: de la pieza más lejana a la más cercana. */
+    private static final java.util.Comparator<RenderInfo> BY_DEPTH = (a, b) -> Double.compare(b.depth, a.depth);
+
     /**
      * Inicializa la ventana y el cubo de Rubik.
      */
     public Cubo() {
         initComponents();
         setSubcube();
-        moverCubo();
+        requestFrame();
     }
 
     /**
      * Crea todas las piezas del cubo de Rubik en sus posiciones iniciales.
      */
     private void setSubcube() {
-        cuboRubik = new Subcubo[3][3][3];
+        cuboRubik = new Subcubo[CubeState.SLOTS];
+        piezas = new Subcubo[CubeState.SLOTS];
+        state = new CubeState();
 
         for (int x = 0; x < 3; x++) {
             for (int y = 0; y < 3; y++) {
                 for (int z = 0; z < 3; z++) {
-                    cuboRubik[x][y][z] = new Subcubo(x, y, z, size);
+                    int s = CubeState.slot(x, y, z);
+                    cuboRubik[s] = piezas[s] = new Subcubo(x, y, z);
                 }
             }
         }
@@ -151,108 +236,120 @@ public class Cubo extends JFrame {
     }
 
     /**
-     * Ajusta el tamaño de las piezas existentes sin reiniciar sus colores ni
-     * orientaciones.
+     * Ajusta el tamaño de las piezas sin reiniciar sus colores ni
+     * orientaciones. Las piezas comparten una malla unitaria que se escala al
+     * dibujar, así que basta con cambiar {@link #size}.
      *
      * @param newSize nuevo tamaño en píxeles para cada subcubo
      */
     private void resizeSubcubes(int newSize) {
         size = newSize;
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                for (int z = 0; z < 3; z++) {
-                    cuboRubik[x][y][z].setSize(newSize);
-                }
+    }
+
+    /** Coloca en la casilla {@code s} la pieza que indica {@link #state}. */
+    private void place(int s) {
+        Subcubo sc = piezas[state.piece(s)];
+        cuboRubik[s] = sc;
+        sc.x = CubeState.coordinate(s, 0);
+        sc.y = CubeState.coordinate(s, 1);
+        sc.z = CubeState.coordinate(s, 2);
+        sc.setOrientation(state.orientation(s));
+    }
+
+    /**
+     * Aplica de golpe, sin animación, un algoritmo compilado: una sola pasada
+     * sobre el estado y otra para recolocar los subcubos, sea cual sea la
+     * longitud de la secuencia. La selección sigue a su subcubo; si este ha
+     * girado se olvida la cara elegida, que ya no apunta donde estaba.
+     */
+    void applyAlgorithm(Algorithm algorithm) {
+        Subcubo selected = selX != -1 ? cuboRubik[CubeState.slot(selX, selY, selZ)] : null;
+        int orientation = selected != null ? selected.getOrientation() : -1;
+        state.apply(algorithm);
+        for (int s = 0; s < CubeState.SLOTS; s++) {
+            place(s);
+        }
+        if (selected != null) {
+            selX = selected.x;
+            selY = selected.y;
+            selZ = selected.z;
+            if (selected.getOrientation() != orientation) {
+                selFace = -1;
+                selMX = -1;
+                selMY = -1;
             }
         }
+        requestFrame();
     }
 
     /**
-     * Rota una capa completa del cubo modificando orientación y colores de las
-     * piezas que la componen.
+     * Rota una capa completa del cubo un cuarto de vuelta; ver
+     * {@link #rotateLayers}.
      */
     private void rotateLayer(int axis, int layer, boolean clockwise) {
-        Subcubo[][] temp = new Subcubo[3][3];
+        rotateLayers(axis, layer, layer, clockwise ? 1 : -1);
+    }
 
-        switch (axis) {
-            case 0: // X axis, rotate in YZ plane
-                for (int y = 0; y < 3; y++) {
-                    for (int z = 0; z < 3; z++) {
-                        temp[y][z] = cuboRubik[layer][y][z];
-                    }
-                }
-                for (int y = 0; y < 3; y++) {
-                    for (int z = 0; z < 3; z++) {
-                        int ny, nz;
-                        if (clockwise) {
-                            ny = z;
-                            nz = 2 - y;
-                        } else {
-                            ny = 2 - z;
-                            nz = y;
-                        }
-                        Subcubo sc = temp[y][z];
-                        cuboRubik[layer][ny][nz] = sc;
-                        sc.x = layer;
-                        sc.y = ny;
-                        sc.z = nz;
-                        sc.rotateColors(axis, clockwise);
-                        sc.applyGlobalRotation(axis, clockwise);
-                    }
-                }
-                break;
-            case 1: // Y axis, rotate in XZ plane
-                for (int x = 0; x < 3; x++) {
-                    for (int z = 0; z < 3; z++) {
-                        temp[x][z] = cuboRubik[x][layer][z];
-                    }
-                }
-                for (int x = 0; x < 3; x++) {
-                    for (int z = 0; z < 3; z++) {
-                        int nx, nz;
-                        if (clockwise) {
-                            nx = z;
-                            nz = 2 - x;
-                        } else {
-                            nx = 2 - z;
-                            nz = x;
-                        }
-                        Subcubo sc = temp[x][z];
-                        cuboRubik[nx][layer][nz] = sc;
-                        sc.x = nx;
-                        sc.y = layer;
-                        sc.z = nz;
-                        sc.rotateColors(axis, clockwise);
-                        sc.applyGlobalRotation(axis, clockwise);
-                    }
-                }
-                break;
-            case 2: // Z axis, rotate in XY plane
-                for (int x = 0; x < 3; x++) {
-                    for (int y = 0; y < 3; y++) {
-                        temp[x][y] = cuboRubik[x][y][layer];
-                    }
+    /**
+     * Giros dobles, de dos capas contiguas, por eje, primera capa y número
+     * de cuartos de vuelta (1, 2 o -1, en ese orden), compilados una vez
+     * para aplicarlos al estado en una sola pasada.
+     */
+    private static final Algorithm[][][] WIDE_TURNS = new Algorithm[3][2][3];
+
+    static {
+        int[] turns = {1, 2, -1};
+        for (int axis = 0; axis < 3; axis++) {
+            for (int first = 0; first < 2; first++) {
+                for (int t = 0; t < turns.length; t++) {
+                    WIDE_TURNS[axis][first][t] = Algorithm.of(
+                            CubeState.layerMove(axis, first, turns[t]),
+                            CubeState.layerMove(axis, first + 1, turns[t]));
                 }
-                for (int x = 0; x < 3; x++) {
-                    for (int y = 0; y < 3; y++) {
-                        int nx, ny;
-                        if (clockwise) {
-                            nx = y;
-                            ny = 2 - x;
-                        } else {
-                            nx = 2 - y;
-                            ny = x;
-                        }
-                        Subcubo sc = temp[x][y];
-                        cuboRubik[nx][ny][layer] = sc;
-                        sc.x = nx;
-                        sc.y = ny;
-                        sc.z = layer;
-                        sc.rotateColors(axis, clockwise);
-                        sc.applyGlobalRotation(axis, clockwise);
-                    }
+            }
+        }
+    }
+
+    /**
+     * Gira las capas {@code first} a {@code last} de un eje
+     * {@code quarterTurns} cuartos de vuelta: 1 en sentido horario, 2 media
+     * vuelta y -1 en sentido antihorario. Cada giro es una sola
+     * actualización de {@link #state}, con sus tablas para una capa o con un
+     * {@link Algorithm} compilado para dos, y después se recorren las
+     * casillas de las capas colocando en cada una la pieza que indica el
+     * estado, con sus nuevas coordenadas y la orientación, de la que
+     * dependen sus colores. No reserva memoria ni distingue ejes.
+     *
+     * <p>Girar las tres capas es girar el cubo entero ({@code x, y, z}): no
+     * cambia ninguna pieza, sino la cámara, que se compone con el mismo giro
+     * con el que termina la animación.
+     */
+    private void rotateLayers(int axis, int first, int last, int quarterTurns) {
+        CubeEvents.LayerMove event = new CubeEvents.LayerMove();
+        event.begin();
+        if (first == 0 && last == 2) {
+            camera.mul(camera, cameraStep.setRotationAxis(axis, -90 * quarterTurns)).normalize();
+            cameraStale = true;
+        } else {
+            if (first == last) {
+                state.turn(CubeState.layerMove(axis, first, quarterTurns));
+            } else {
+                state.apply(WIDE_TURNS[axis][first][quarterTurns == 1 ? 0 : quarterTurns == 2 ? 1 : 2]);
+            }
+            for (int layer = first; layer <= last; layer++) {
+                byte[] slots = CubeState.layerSlots(axis, layer);
+                for (int i = 0; i < slots.length; i++) {
+                    place(slots[i]);
                 }
-                break;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.axis = axis;
+            event.layer = first;
+            event.lastLayer = last;
+            event.quarterTurns = quarterTurns;
+            event.clockwise = quarterTurns > 0;
+            event.commit();
         }
     }
 
@@ -321,40 +418,6 @@ public class Cubo extends JFrame {
         }
     }
 
-    private double[] rotatePointAroundAxis(double[] p, int axis, double angleDeg, double offset) {
-        double rad = Math.toRadians(angleDeg);
-        double x = p[0];
-        double y = p[1];
-        double z = p[2];
-        switch (axis) {
-            case 0: // X axis
-                x -= offset;
-                double ty = y;
-                double tz = z;
-                y = ty * Math.cos(rad) - tz * Math.sin(rad);
-                z = ty * Math.sin(rad) + tz * Math.cos(rad);
-                x += offset;
-                break;
-            case 1: // Y axis
-                y -= offset;
-                double tx = x;
-                double tz2 = z;
-                x = tx * Math.cos(rad) + tz2 * Math.sin(rad);
-                z = -tx * Math.sin(rad) + tz2 * Math.cos(rad);
-                y += offset;
-                break;
-            case 2: // Z axis
-                z -= offset;
-                double tx2 = x;
-                double ty2 = y;
-                x = tx2 * Math.cos(rad) - ty2 * Math.sin(rad);
-                y = tx2 * Math.sin(rad) + ty2 * Math.cos(rad);
-                z += offset;
-                break;
-        }
-        return new double[]{x, y, z};
-    }
-
     private double[] rotateVector(double[] v, double ax, double ay, double az) {
         double[] r = java.util.Arrays.copyOf(v, 3);
         double radX = Math.toRadians(ax);
@@ -473,6 +536,7 @@ public class Cubo extends JFrame {
      * grupo de caras.</p>
      */
     private int[] getArrowRotation(double[] arrowVec, Subcubo sc, int face) {
+        syncCamera();
         double[] rArrow = normalize(arrowVec);
         double[] normalW = normalize(sc.getFaceNormalGlobal(face, anguloX, anguloY, anguloZ));
 
@@ -531,6 +595,7 @@ public class Cubo extends JFrame {
 
     // Determina cuál eje local está orientado hacia el observador
     private int[] getFrontAxis() {
+        syncCamera();
         double[] dir = {rotMatrix[0][2], rotMatrix[1][2], rotMatrix[2][2]};
         int axis = 0;
         double max = Math.abs(dir[0]);
@@ -579,28 +644,6 @@ public class Cubo extends JFrame {
     }
 
     // ----- Utilidades para el manejo de rotaciones globales -----
-    private double[][] matrixFromAngles(double ax, double ay, double az) {
-        double radX = Math.toRadians(ax);
-        double radY = Math.toRadians(ay);
-        double radZ = Math.toRadians(az);
-
-        double cx = Math.cos(radX), sx = Math.sin(radX);
-        double cy = Math.cos(radY), sy = Math.sin(radY);
-        double cz = Math.cos(radZ), sz = Math.sin(radZ);
-
-        double[][] m = new double[3][3];
-        m[0][0] = cy * cz;
-        m[0][1] = cz * sy * sx - sz * cx;
-        m[0][2] = cz * sy * cx + sz * sx;
-        m[1][0] = cy * sz;
-        m[1][1] = sz * sy * sx + cz * cx;
-        m[1][2] = sz * sy * cx - cz * sx;
-        m[2][0] = -sy;
-        m[2][1] = cy * sx;
-        m[2][2] = cy * cx;
-        return m;
-    }
-
     private double[] anglesFromMatrix(double[][] m) {
         double ay = Math.asin(-m[2][0]);
         double cy = Math.cos(ay);
@@ -615,150 +658,114 @@ public class Cubo extends JFrame {
         return new double[]{Math.toDegrees(ax), Math.toDegrees(ay), Math.toDegrees(az)};
     }
 
-    private double[][] multiply(double[][] a, double[][] b) {
-        double[][] r = new double[3][3];
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                r[i][j] = a[i][0] * b[0][j] + a[i][1] * b[1][j] + a[i][2] * b[2][j];
-            }
-        }
-        return r;
+    /**
+     * Gira la cámara alrededor de un eje de la vista. Solo compone un
+     * cuaternión; la matriz y los ángulos de Euler se recalculan más tarde,
+     * si alguien los necesita.
+     */
+    private void applyRotation(int axis, double degrees) {
+        camera.mul(cameraStep.setRotationAxis(axis, degrees), camera).normalize();
+        cameraStale = true;
     }
 
-    private void applyRotation(int axis, double degrees) {
-        double rad = Math.toRadians(degrees);
-        double c = Math.cos(rad), s = Math.sin(rad);
-        double[][] r = new double[3][3];
-        switch (axis) {
-            case 0: // X
-                r = new double[][]{{1, 0, 0}, {0, c, -s}, {0, s, c}};
-                break;
-            case 1: // Y
-                r = new double[][]{{c, 0, s}, {0, 1, 0}, {-s, 0, c}};
-                break;
-            case 2: // Z
-                r = new double[][]{{c, -s, 0}, {s, c, 0}, {0, 0, 1}};
-                break;
+    /**
+     * Actualiza {@link #rotMatrix} y los ángulos de Euler a partir de
+     * {@link #camera} si han cambiado desde la última vez.
+     */
+    private void syncCamera() {
+        if (!cameraStale) {
+            return;
         }
-        rotMatrix = multiply(r, rotMatrix);
+        camera.toMatrix(rotMatrix);
         double[] angs = anglesFromMatrix(rotMatrix);
         anguloX = angs[0];
         anguloY = angs[1];
         anguloZ = angs[2];
+        cameraStale = false;
     }
 
     /**
      * Rota una capa con animación y ejecuta una acción al finalizar.
      */
     private void rotateLayerAnimated(int axis, int layer, boolean clockwise, Runnable done) {
+        rotateLayersAnimated(axis, layer, layer, clockwise ? 1 : -1, done);
+    }
+
+    private void rotateLayerAnimated(int axis, int layer, boolean clockwise) {
+        rotateLayerAnimated(axis, layer, clockwise, null);
+    }
+
+    /**
+     * Gira con una sola animación las capas {@code first} a {@code last}
+     * los cuartos de vuelta indicados, como {@link #rotateLayers}, y ejecuta
+     * una acción al finalizar. Una media vuelta avanza el doble por paso, así
+     * que dura lo mismo que un cuarto.
+     */
+    private void rotateLayersAnimated(int axis, int first, int last, int quarterTurns, Runnable done) {
         if (animating) {
             return;
         }
         animating = true;
-        int dir = clockwise ? 1 : -1;
-        double offset = (layer - 1) * size * escala;
-
+        int dir = quarterTurns > 0 ? 1 : -1;
+        int total = 90 * Math.abs(quarterTurns);
+        int stepDegrees = 10 * Math.abs(quarterTurns);
+        animAxis = axis;
+        animFirst = first;
+        animLast = last;
+        animAngle = 0;
+        CubeEvents.LayerAnimation animation = new CubeEvents.LayerAnimation();
+        animation.begin();
         final int[] ang = {0};
         javax.swing.Timer timer = new javax.swing.Timer(20, null);
         timer.addActionListener(e -> {
-            // Increase the angle for this frame, ensuring it never exceeds 90°
-            ang[0] = Math.min(90, ang[0] + 10);
-            graficos.clear();
-            java.util.List<RenderInfo> infos = new java.util.ArrayList<>();
-            double[][] globalRot = Subcubo.rotation(anguloX, anguloY, anguloZ);
-            for (int x = 0; x < 3; x++) {
-                for (int y = 0; y < 3; y++) {
-                    for (int z = 0; z < 3; z++) {
-                        double posX = (x - 1) * size * escala;
-                        double posY = (y - 1) * size * escala;
-                        double posZ = (z - 1) * size * escala;
-                        double extraX = 0, extraY = 0, extraZ = 0;
-                        if (axis == 0 && x == layer) {
-                            double[] r = rotatePointAroundAxis(new double[]{posX, posY, posZ}, 0, -dir * ang[0], offset);
-                            posX = r[0];
-                            posY = r[1];
-                            posZ = r[2];
-                            extraX = -dir * ang[0];
-                        } else if (axis == 1 && y == layer) {
-                            double[] r = rotatePointAroundAxis(new double[]{posX, posY, posZ}, 1, -dir * ang[0], offset);
-                            posX = r[0];
-                            posY = r[1];
-                            posZ = r[2];
-                            extraY = -dir * ang[0];
-                        } else if (axis == 2 && z == layer) {
-                            double[] r = rotatePointAroundAxis(new double[]{posX, posY, posZ}, 2, -dir * ang[0], offset);
-                            posX = r[0];
-                            posY = r[1];
-                            posZ = r[2];
-                            extraZ = -dir * ang[0];
-                        }
-                        double[] rotatedPos = cuboRubik[x][y][z].rotar(new double[]{posX, posY, posZ}, globalRot);
-                        int finalX = (int) (rotatedPos[0] + trasX);
-                        int finalY = (int) (rotatedPos[1] + trasY);
-                        int finalZ = (int) (rotatedPos[2] + trasZ);
-                        boolean highlight = gameMode && x == selX && y == selY && z == selZ;
-                        double tX = highlight ? selTX : 0;
-                        double tY = highlight ? selTY : 0;
-                        double tZ = highlight ? selTZ : 0;
-                        double depthVal = finalZ + tZ;
-                        infos.add(new RenderInfo(cuboRubik[x][y][z], finalX, finalY, depthVal,
-                                extraX, extraY, extraZ, tX, tY, tZ,
-                                highlight, x, y, z));
-                    }
-                }
-            }
-            infos.sort((aInfo, bInfo) -> Double.compare(bInfo.depth, aInfo.depth));
-            for (RenderInfo info : infos) {
-                RenderOptions opt = new RenderOptions();
-                opt.highlight = info.highlight;
-                opt.extraRotX = info.ex;
-                opt.extraRotY = info.ey;
-                opt.extraRotZ = info.ez;
-                opt.extraTX = info.tx;
-                opt.extraTY = info.ty;
-                opt.extraTZ = info.tz;
-                opt.showLabels = showLabels;
-                opt.idxX = info.ix;
-                opt.idxY = info.iy;
-                opt.idxZ = info.iz;
-                info.cubo.dibujar(graficos, 1.0, anguloX, anguloY, anguloZ,
-                        info.x, info.y, (int) info.depth, lines, opt);
+            // Increase the angle for this frame, ensuring it never exceeds the total
+            ang[0] = Math.min(total, ang[0] + stepDegrees);
+            animAngle = -dir * ang[0];
+            animation.steps++;
+            CubeEvents.LayerAnimationStep step = new CubeEvents.LayerAnimationStep();
+            if (step.shouldCommit()) {
+                step.axis = axis;
+                step.layer = first;
+                step.angle = animAngle;
+                step.commit();
             }
-            drawUI();
-            graficos.render();
+            requestFrame();
 
-            if (ang[0] >= 90) {
+            if (ang[0] >= total) {
                 timer.stop();
+                animAxis = -1;
                 Subcubo selected = null;
                 if (selX != -1) {
-                    selected = cuboRubik[selX][selY][selZ];
+                    selected = cuboRubik[CubeState.slot(selX, selY, selZ)];
                 }
-                rotateLayer(axis, layer, clockwise);
+                rotateLayers(axis, first, last, quarterTurns);
+                boolean wholeCube = first == 0 && last == 2;
                 if (selected != null) {
-                    for (int ix = 0; ix < 3; ix++) {
-                        for (int iy = 0; iy < 3; iy++) {
-                            for (int iz = 0; iz < 3; iz++) {
-                                if (cuboRubik[ix][iy][iz] == selected) {
-                                    selX = ix;
-                                    selY = iy;
-                                    selZ = iz;
-                                }
-                            }
-                        }
-                    }
+                    // Cada subcubo conoce su casilla: no hace falta buscarlo
+                    selX = selected.x;
+                    selY = selected.y;
+                    selZ = selected.z;
                 }
-                moverCubo();
-                if (selected != null && selFace != -1) {
-                    boolean participates = (axis == 0 && selX == layer)
-                            || (axis == 1 && selY == layer)
-                            || (axis == 2 && selZ == layer);
-                    if (participates) {
-                        selFace = rotateFaceIndex(selFace, axis, clockwise);
+                requestFrame();
+                if (selected != null && selFace != -1 && !wholeCube) {
+                    int coord = axis == 0 ? selX : axis == 1 ? selY : selZ;
+                    if (coord >= first && coord <= last) {
+                        for (int t = 0; t < Math.abs(quarterTurns); t++) {
+                            selFace = rotateFaceIndex(selFace, axis, quarterTurns > 0);
+                        }
                         selMX = -1;
                         selMY = -1;
                     }
                 }
                 animating = false;
+                if (animation.shouldCommit()) {
+                    animation.axis = axis;
+                    animation.layer = first;
+                    animation.lastLayer = last;
+                    animation.quarterTurns = quarterTurns;
+                    animation.clockwise = quarterTurns > 0;
+                    animation.commit();
+                }
                 if (done != null) {
                     done.run();
                 }
@@ -767,9 +774,25 @@ public class Cubo extends JFrame {
         timer.start();
     }
 
-    private void rotateLayerAnimated(int axis, int layer, boolean clockwise) {
-        rotateLayerAnimated(axis, layer, clockwise, null);
+    /**
+     * Gira con animación la capa de la pieza seleccionada según las teclas
+     * modificadoras: con Mayúsculas media vuelta, con Control también la
+     * capa central contigua (un giro doble; la capa central sola gira igual)
+     * y con Alt el cubo entero.
+     */
+    private void rotateSelectionAnimated(int axis, int layer, boolean clockwise, KeyEvent e) {
+        int quarterTurns = e.isShiftDown() ? 2 : clockwise ? 1 : -1;
+        int first = layer, last = layer;
+        if (e.isAltDown()) {
+            first = 0;
+            last = 2;
+        } else if (e.isControlDown()) {
+            first = Math.min(layer, 1);
+            last = Math.max(layer, 1);
+        }
+        rotateLayersAnimated(axis, first, last, quarterTurns, null);
     }
+
     /**
      * Realiza una pequeña animación de selección desplazando temporalmente el
      * subcubo escogido hacia fuera.
@@ -787,121 +810,182 @@ public class Cubo extends JFrame {
             double dz = selZ - 1;
             double len = Math.sqrt(dx * dx + dy * dy + dz * dz);
             if (len == 0) len = 1;
+            syncCamera();
             double[] dir = rotateVector(new double[]{dx / len, dy / len, dz / len},
                     anguloX, anguloY, anguloZ);
             selTX = dir[0] * amount;
             selTY = dir[1] * amount;
             selTZ = dir[2] * amount;
-            moverCubo();
+            requestFrame();
             step[0]++;
             if (step[0] > 10) {
                 timer.stop();
                 selTX = selTY = selTZ = 0;
-                moverCubo();
+                requestFrame();
             }
         });
         timer.start();
     }
 
-    private void swapSubcubes(int x1, int y1, int z1, int x2, int y2, int z2) {
-        Subcubo tmp = cuboRubik[x1][y1][z1];
-        cuboRubik[x1][y1][z1] = cuboRubik[x2][y2][z2];
-        cuboRubik[x2][y2][z2] = tmp;
+    /**
+     * Pide un cuadro nuevo. Las peticiones se acumulan y {@link #scheduler}
+     * llama a {@link #moverCubo()} como mucho una vez por intervalo, así
+     * que varias llamadas a {@link #applyRotation} entre dos cuadros se ven
+     * juntas en el siguiente.
+     */
+    private void requestFrame() {
+        scheduler.requestFrame();
     }
+
     /**
-     * Redibuja el cubo aplicando las rotaciones y traslaciones actuales.
+     * Redibuja el cubo aplicando las rotaciones y traslaciones actuales,
+     * incluida la capa que se esté animando.
      */
     private void moverCubo() {
-        if (!ejeSubcubo) {
-            graficos.clear();
-
-            java.util.List<RenderInfo> infos = new java.util.ArrayList<>();
-            double[][] globalRot = Subcubo.rotation(anguloX, anguloY, anguloZ);
-            for (int x = 0; x < 3; x++) {
-                for (int y = 0; y < 3; y++) {
-                    for (int z = 0; z < 3; z++) {
-                        // Posición relativa al centro del cubo
-                        double posX = (x - 1) * size * escala;
-                        double posY = (y - 1) * size * escala;
-                        double posZ = (z - 1) * size * escala;
-
-                        // Aplicar las rotaciones alrededor del subcubo 14
-                        double[] rotatedPos = cuboRubik[x][y][z].rotar(new double[]{posX, posY, posZ}, globalRot);
-
-                        // Traslación con respecto al movimiento general del cubo
-                        int finalX = (int) (rotatedPos[0] + trasX);
-                        int finalY = (int) (rotatedPos[1] + trasY);
-                        int finalZ = (int) (rotatedPos[2] + trasZ);
-
-                        boolean highlight = gameMode && x == selX && y == selY && z == selZ;
-                        double tX = highlight ? selTX : 0;
-                        double tY = highlight ? selTY : 0;
-                        double tZ = highlight ? selTZ : 0;
-                        double depthVal = finalZ + tZ;
-                        infos.add(new RenderInfo(cuboRubik[x][y][z], finalX, finalY, depthVal,
-                                0, 0, 0, tX, tY, tZ, highlight, x, y, z));
+        CubeEvents.Frame event = new CubeEvents.Frame();
+        event.begin();
+        long start = System.nanoTime();
+        stats.beginFrame();
+        prepareFrame();
+        camera.toMat3(viewMatrix);
+        if (animAxis >= 0) {
+            animMatrix.setRotationAxis(animAxis, animAngle);
+        }
+        RenderOptions opt = renderOptions;
+        opt.showLabels = frameLabels();
+        opt.depthTest = depthBuffer;
+        opt.stats = stats;
+        graficos.clear();
+        stats.lap(FrameStats.RASTER);
+
+        // Todas las esquinas del cubo, una vez por cuadro, y las de la capa
+        // que gira con su propio giro; el eje pasa por el centro del cubo
+        lattice.transform(viewMatrix, size, trasX, trasY, trasZ);
+        if (animAxis >= 0) {
+            layerMatrix.mul(viewMatrix, animMatrix);
+            lattice.transformLayer(layerMatrix, animAxis, animFirst, animLast, size, trasX, trasY, trasZ);
+        }
+        int n = 0;
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                for (int z = 0; z < 3; z++) {
+                    int coord = animAxis == 0 ? x : animAxis == 1 ? y : z;
+                    boolean animated = animAxis >= 0 && coord >= animFirst && coord <= animLast;
+                    boolean highlight = gameMode && x == selX && y == selY && z == selZ;
+                    double tX = highlight ? selTX : 0;
+                    double tY = highlight ? selTY : 0;
+                    double tZ = highlight ? selTZ : 0;
+                    double depthVal = lattice.centerZ(x, y, z, animated) + tZ;
+                    RenderInfo info = renderInfos[n];
+                    if (info == null) {
+                        info = renderInfos[n] = new RenderInfo();
                     }
+                    // n recorre las casillas en el orden de CubeState.slot
+                    info.set(cuboRubik[n], depthVal, animated,
+                            tX, tY, tZ, highlight, x, y, z);
+                    n++;
                 }
             }
-            infos.sort((a, b) -> Double.compare(b.depth, a.depth));
-            for (RenderInfo info : infos) {
-                RenderOptions opt = new RenderOptions();
-                opt.highlight = info.highlight;
-                opt.extraRotX = info.ex;
-                opt.extraRotY = info.ey;
-                opt.extraRotZ = info.ez;
-                opt.extraTX = info.tx;
-                opt.extraTY = info.ty;
-                opt.extraTZ = info.tz;
-                opt.showLabels = showLabels;
-                opt.idxX = info.ix;
-                opt.idxY = info.iy;
-                opt.idxZ = info.iz;
-                info.cubo.dibujar(graficos, 1, anguloX, anguloY, anguloZ,
-                        info.x, info.y, (int) info.depth, lines, opt);
-            }
+        }
+        stats.lap(FrameStats.TRANSFORM);
+        // Con ejeSubcubo y el cubo quieto las piezas se dibujan en orden de
+        // índice
+        if (!depthBuffer && (!ejeSubcubo || animAxis >= 0)) {
+            java.util.Arrays.sort(renderInfos, BY_DEPTH);
+        }
+        stats.lap(FrameStats.SORT);
+        culledFaces = 0;
+        // La pieza seleccionada, mientras se desplaza, se separa de sus vecinas
+        int displaced = gameMode && selX != -1 && (selTX != 0 || selTY != 0 || selTZ != 0)
+                ? CubeState.slot(selX, selY, selZ) : -1;
+        for (RenderInfo info : renderInfos) {
+            opt.highlight = info.highlight;
+            opt.extraTX = info.tx;
+            opt.extraTY = info.ty;
+            opt.extraTZ = info.tz;
+            opt.hiddenNeighbours = CubeState.neighbourMask(info.ix, info.iy, info.iz,
+                    animAxis, animFirst, animLast, displaced);
+            opt.idxX = info.ix;
+            opt.idxY = info.iy;
+            opt.idxZ = info.iz;
+            culledFaces += info.cubo.dibujar(graficos, lattice, info.animated, frameLines(), opt);
+        }
+        drawDepthLabels();
+        stats.lap(FrameStats.RASTER);
+        drawUI();
+        stats.lap(FrameStats.HUD);
+        graficos.render();
+        stats.lap(FrameStats.PRESENT);
+        governor.frameRendered(Math.max(System.nanoTime() - start, graficos.getLastRasterNanos()));
+        if (stats.isEnabled()) {
+            finishStats();
+        }
+        if (event.shouldCommit()) {
+            event.polygons = graficos.getFramePolygons();
+            event.culledFaces = culledFaces;
+            event.resolutionDivisor = graficos.getResolutionDivisor();
+            event.depthBuffer = depthBuffer;
+            event.tiled = parallelRaster;
+            event.animating = animAxis >= 0;
+            event.rasterTime = graficos.getLastRasterNanos();
+            event.commit();
+        }
+    }
+
+    /**
+     * Completa las etapas del cuadro con lo medido fuera de este hilo y lo
+     * guarda. Sin hilo de render el rasterizado de lo grabado ocurre dentro
+     * de {@link Graficos#render()}; con él, se suma el del último cuadro
+     * publicado. La copia a pantalla es la del último repintado del panel.
+     */
+    private void finishStats() {
+        long raster = graficos.getLastRasterNanos();
+        if (graficos.isRenderThread()) {
+            stats.add(FrameStats.RASTER, raster);
         } else {
-            graficos.clear();
-
-            double[][] globalRot = Subcubo.rotation(anguloX, anguloY, anguloZ);
-            for (int x = 0; x < 3; x++) {
-                for (int y = 0; y < 3; y++) {
-                    for (int z = 0; z < 3; z++) {
-                        // Posición relativa al centro del cubo
-                        double posX = (x - 1) * size * escala;
-                        double posY = (y - 1) * size * escala;
-                        double posZ = (z - 1) * size * escala;
-
-                        // Aplicar rotaciones globales
-                        double[] rotatedPos = cuboRubik[x][y][z].rotar(
-                                new double[]{posX, posY, posZ}, globalRot);
-
-                        // Traslación global
-                        int finalX = (int) (rotatedPos[0] + trasX);
-                        int finalY = (int) (rotatedPos[1] + trasY);
-                        int finalZ = (int) (rotatedPos[2] + trasZ);
-
-                        boolean highlight = gameMode && x == selX && y == selY && z == selZ;
-                        double tX = highlight ? selTX : 0;
-                        double tY = highlight ? selTY : 0;
-                        double tZ = highlight ? selTZ : 0;
-                        RenderOptions opt = new RenderOptions();
-                        opt.highlight = highlight;
-                        opt.extraTX = tX;
-                        opt.extraTY = tY;
-                        opt.extraTZ = tZ;
-                        opt.showLabels = showLabels;
-                        opt.idxX = x;
-                        opt.idxY = y;
-                        opt.idxZ = z;
-                        cuboRubik[x][y][z].dibujar(graficos, 1.0, anguloX, anguloY, anguloZ,
-                                finalX, finalY, finalZ, lines, opt);
-                    }
+            stats.move(FrameStats.PRESENT, FrameStats.RASTER, raster);
+        }
+        if (panel != null) {
+            stats.add(FrameStats.PRESENT, panel.getLastPaintNanos());
+        }
+        stats.endFrame(graficos.getFramePolygons(), graficos.getFramePixels());
+    }
+
+    /**
+     * Prepara el contexto gráfico para un cuadro con las opciones actuales y
+     * la resolución que decide {@link #governor}.
+     */
+    private void prepareFrame() {
+        graficos.setDepthTest(depthBuffer);
+        graficos.setTiledRendering(parallelRaster);
+        graficos.setResolutionDivisor(governor.divisor());
+    }
+
+    /** Si el cuadro lleva aristas: no mientras la calidad está reducida. */
+    private boolean frameLines() {
+        return lines && !governor.isReduced();
+    }
+
+    /** Si el cuadro lleva etiquetas: no mientras la calidad está reducida. */
+    private boolean frameLabels() {
+        return showLabels && !governor.isReduced();
+    }
+
+    /**
+     * Con el buffer de profundidad las piezas se dibujan sin ordenar, así que
+     * las etiquetas se pintan al final y solo sobre las caras visibles.
+     */
+    private void drawDepthLabels() {
+        if (!depthBuffer || !frameLabels()) {
+            return;
+        }
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                for (int z = 0; z < 3; z++) {
+                    cuboRubik[CubeState.slot(x, y, z)].dibujarEtiquetas(graficos, x, y, z);
                 }
             }
         }
-        drawUI();
-        graficos.render();
     }
 
     /**
@@ -913,18 +997,25 @@ public class Cubo extends JFrame {
         for (int i = 0; i < 20; i++) {
             moves.add(new int[]{r.nextInt(3), r.nextInt(3), r.nextBoolean() ? 1 : 0});
         }
-        scrambleStep(moves, 0);
+        CubeEvents.Scramble event = new CubeEvents.Scramble();
+        event.begin();
+        scrambleStep(moves, 0, event);
     }
 
     /**
-     * Ejecuta recursivamente los pasos de mezclado.
+     * Ejecuta recursivamente los pasos de mezclado y graba el evento de la
+     * mezcla al terminar el último.
      */
-    private void scrambleStep(java.util.List<int[]> moves, int idx) {
+    private void scrambleStep(java.util.List<int[]> moves, int idx, CubeEvents.Scramble event) {
         if (idx >= moves.size()) {
+            if (event.shouldCommit()) {
+                event.moves = moves.size();
+                event.commit();
+            }
             return;
         }
         int[] m = moves.get(idx);
-        rotateLayerAnimated(m[0], m[1], m[2] == 1, () -> scrambleStep(moves, idx + 1));
+        rotateLayerAnimated(m[0], m[1], m[2] == 1, () -> scrambleStep(moves, idx + 1, event));
     }
 
     public static void main(String[] args) {
@@ -939,16 +1030,27 @@ public class Cubo extends JFrame {
         setResizable(false);
 
         graficos = new Graficos(800, 600);
-        RenderPanel panel = new RenderPanel(graficos);
+        // El EDT solo graba cada cuadro; lo rasteriza el hilo de render, y
+        // solo en la región que cambió respecto al cuadro anterior
+        graficos.setRenderThread(true);
+        graficos.setDirtyTracking(true);
+        panel = new RenderPanel(graficos);
         add(panel);
 
-        // Matriz de rotación inicial basada en los ángulos predeterminados
-        rotMatrix = matrixFromAngles(anguloX, anguloY, anguloZ);
+        // Orientación inicial basada en los ángulos predeterminados
+        camera.setRotation(anguloX, anguloY, anguloZ);
+        rotMatrix = camera.toMatrix(new double[3][3]);
         // Attach key events to the render panel so it receives them when
         // focus is requested on this component.
         panel.addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
+                CubeEvents.Input event = CubeEvents.beginInput();
+                handleKey(e);
+                CubeEvents.endInput(event, "keyPressed", e);
+            }
+
+            private void handleKey(KeyEvent e) {
                 switch (e.getKeyCode()) {
                     case KeyEvent.VK_A:
                         trasX -= 5;
@@ -970,23 +1072,23 @@ public class Cubo extends JFrame {
                             applyRotation(0, -5);
                         } else if (selX != -1 && selFace != -1) {
                             int[] m = getArrowRotation(new double[]{0, -1, 0},
-                                    cuboRubik[selX][selY][selZ], selFace);
+                                    cuboRubik[CubeState.slot(selX, selY, selZ)], selFace);
                             int axis = m[0];
                             int layer = axis == 0 ? selX : axis == 1 ? selY : selZ;
                             boolean cw = m[1] == 1;
-                            rotateLayerAnimated(axis, layer, cw);
+                            rotateSelectionAnimated(axis, layer, cw, e);
                         }
                         break;
                     case KeyEvent.VK_UP:
                         if (animating) break;
                         if (gameMode && selX != -1 && selFace != -1) {
-                            Subcubo sc = cuboRubik[selX][selY][selZ];
+                            Subcubo sc = cuboRubik[CubeState.slot(selX, selY, selZ)];
                             int[] m = getArrowRotation(new double[]{0, -1, 0},
                                     sc, selFace);
                             int axis = m[0];
                             int layer = (axis == 0 ? selX : axis == 1 ? selY : selZ);
                             boolean cw = m[1] == 1;
-                            rotateLayerAnimated(axis, layer, cw);
+                            rotateSelectionAnimated(axis, layer, cw, e);
                         }
                         break;
                     case KeyEvent.VK_K:    // tecla K
@@ -995,23 +1097,23 @@ public class Cubo extends JFrame {
                             applyRotation(0, 5);
                         } else if (selX != -1 && selFace != -1) {
                             int[] m = getArrowRotation(new double[]{0, 1, 0},
-                                    cuboRubik[selX][selY][selZ], selFace);
+                                    cuboRubik[CubeState.slot(selX, selY, selZ)], selFace);
                             int axis = m[0];
                             int layer = axis == 0 ? selX : axis == 1 ? selY : selZ;
                             boolean cw = m[1] == 1;
-                            rotateLayerAnimated(axis, layer, cw);
+                            rotateSelectionAnimated(axis, layer, cw, e);
                         }
                         break;
                     case KeyEvent.VK_DOWN:
                         if (animating) break;
                         if (gameMode && selX != -1 && selFace != -1) {
-                            Subcubo sc = cuboRubik[selX][selY][selZ];
+                            Subcubo sc = cuboRubik[CubeState.slot(selX, selY, selZ)];
                             int[] m = getArrowRotation(new double[]{0, 1, 0},
                                     sc, selFace);
                             int axis = m[0];
                             int layer = (axis == 0 ? selX : axis == 1 ? selY : selZ);
                             boolean cw = m[1] == 1;
-                            rotateLayerAnimated(axis, layer, cw);
+                            rotateSelectionAnimated(axis, layer, cw, e);
                         }
                         break;
 
@@ -1022,23 +1124,23 @@ public class Cubo extends JFrame {
                             applyRotation(1, 5);  // giro a la izquierda
                         } else if (selX != -1 && selFace != -1) {
                             int[] m = getArrowRotation(new double[]{-1, 0, 0},
-                                    cuboRubik[selX][selY][selZ], selFace);
+                                    cuboRubik[CubeState.slot(selX, selY, selZ)], selFace);
                             int axis = m[0];
                             int layer = axis == 0 ? selX : axis == 1 ? selY : selZ;
                             boolean cw = m[1] == 1;
-                            rotateLayerAnimated(axis, layer, cw);
+                            rotateSelectionAnimated(axis, layer, cw, e);
                         }
                         break;
                     case KeyEvent.VK_LEFT:
                         if (animating) break;
                         if (gameMode && selX != -1 && selFace != -1) {
-                            Subcubo sc = cuboRubik[selX][selY][selZ];
+                            Subcubo sc = cuboRubik[CubeState.slot(selX, selY, selZ)];
                             int[] m = getArrowRotation(new double[]{-1, 0, 0},
                                     sc, selFace);
                             int axis = m[0];
                             int layer = (axis == 0 ? selX : axis == 1 ? selY : selZ);
                             boolean cw = m[1] == 1;
-                            rotateLayerAnimated(axis, layer, cw);
+                            rotateSelectionAnimated(axis, layer, cw, e);
                         }
                         break;
                     case KeyEvent.VK_L:    // tecla L
@@ -1047,23 +1149,23 @@ public class Cubo extends JFrame {
                             applyRotation(1, -5);  // giro a la derecha
                         } else if (selX != -1 && selFace != -1) {
                             int[] m = getArrowRotation(new double[]{1, 0, 0},
-                                    cuboRubik[selX][selY][selZ], selFace);
+                                    cuboRubik[CubeState.slot(selX, selY, selZ)], selFace);
                             int axis = m[0];
                             int layer = axis == 0 ? selX : axis == 1 ? selY : selZ;
                             boolean cw = m[1] == 1;
-                            rotateLayerAnimated(axis, layer, cw);
+                            rotateSelectionAnimated(axis, layer, cw, e);
                         }
                         break;
                     case KeyEvent.VK_RIGHT:
                         if (animating) break;
                         if (gameMode && selX != -1 && selFace != -1) {
-                            Subcubo sc = cuboRubik[selX][selY][selZ];
+                            Subcubo sc = cuboRubik[CubeState.slot(selX, selY, selZ)];
                             int[] m = getArrowRotation(new double[]{1, 0, 0},
                                     sc, selFace);
                             int axis = m[0];
                             int layer = (axis == 0 ? selX : axis == 1 ? selY : selZ);
                             boolean cw = m[1] == 1;
-                            rotateLayerAnimated(axis, layer, cw);
+                            rotateSelectionAnimated(axis, layer, cw, e);
                         }
                         break;
 
@@ -1096,7 +1198,7 @@ public class Cubo extends JFrame {
                     case KeyEvent.VK_ESCAPE:
                         if (gameMode) {
                             selX = selY = selZ = -1;
-                            moverCubo();
+                            requestFrame();
                         }
                         break;
                     case KeyEvent.VK_B:
@@ -1108,11 +1210,21 @@ public class Cubo extends JFrame {
                     case KeyEvent.VK_N:
                         showLabels = !showLabels;
                         break;
+                    case KeyEvent.VK_Z:
+                        depthBuffer = !depthBuffer;
+                        break;
+                    case KeyEvent.VK_P:
+                        parallelRaster = !parallelRaster;
+                        break;
                     case KeyEvent.VK_H:
                         showControls = !showControls;
                         break;
+                    case KeyEvent.VK_F:
+                        stats.setEnabled(!stats.isEnabled());
+                        statsLines = null;
+                        break;
                 }
-                moverCubo();
+                requestFrame();
             }
         });
 
@@ -1120,17 +1232,24 @@ public class Cubo extends JFrame {
         panel.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
+                CubeEvents.Input event = CubeEvents.beginInput();
+                handlePress(e);
+                CubeEvents.endInput(event, "mousePressed", e);
+            }
+
+            private void handlePress(MouseEvent e) {
                 if (SwingUtilities.isLeftMouseButton(e) && gameMode) {
                     int mx = e.getX(), my = e.getY();
                     double bestDepth = Double.MAX_VALUE;
                     int idxX = -1, idxY = -1, idxZ = -1;
-                    double[][] globalRot = Subcubo.rotation(anguloX, anguloY, anguloZ);
+                    syncCamera();
+                    double[][] globalRot = rotMatrix;
                     for (int x = 0; x < 3; x++) {
                         for (int y = 0; y < 3; y++) {
                             for (int z = 0; z < 3; z++) {
-                                Subcubo sc = cuboRubik[x][y][z];
+                                Subcubo sc = cuboRubik[CubeState.slot(x, y, z)];
                                 if (sc.containsPoint(mx, my)) {
-                                    double posX = (x - 1) * size * escala, posY = (y - 1) * size * escala, posZ = (z - 1) * size * escala;
+                                    double posX = (x - 1) * size, posY = (y - 1) * size, posZ = (z - 1) * size;
                                     double[] r = sc.rotar(new double[]{posX, posY, posZ}, globalRot);
                                     if (r[2] < bestDepth) {
                                         bestDepth = r[2];
@@ -1146,23 +1265,24 @@ public class Cubo extends JFrame {
                         selX = idxX;
                         selY = idxY;
                         selZ = idxZ;
-                        selFace = cuboRubik[idxX][idxY][idxZ].faceAt(mx, my);
+                        selFace = cuboRubik[CubeState.slot(idxX, idxY, idxZ)].faceAt(mx, my);
                         selMX = mx;
                         selMY = my;
                         animateSelection();
                     }
-                    moverCubo();
+                    requestFrame();
                 } else if (SwingUtilities.isRightMouseButton(e)) {
                     int mx = e.getX(), my = e.getY();
                     double bestDepth = Double.MAX_VALUE;
                     int idxX = -1, idxY = -1, idxZ = -1;
-                    double[][] globalRot = Subcubo.rotation(anguloX, anguloY, anguloZ);
+                    syncCamera();
+                    double[][] globalRot = rotMatrix;
                     for (int x = 0; x < 3; x++) {
                         for (int y = 0; y < 3; y++) {
                             for (int z = 0; z < 3; z++) {
-                                Subcubo sc = cuboRubik[x][y][z];
+                                Subcubo sc = cuboRubik[CubeState.slot(x, y, z)];
                                 if (sc.containsPoint(mx, my)) {
-                                    double posX = (x - 1) * size * escala, posY = (y - 1) * size * escala, posZ = (z - 1) * size * escala;
+                                    double posX = (x - 1) * size, posY = (y - 1) * size, posZ = (z - 1) * size;
                                     double[] r = sc.rotar(new double[]{posX, posY, posZ}, globalRot);
                                     if (r[2] < bestDepth) {
                                         bestDepth = r[2];
@@ -1188,13 +1308,14 @@ public class Cubo extends JFrame {
                     double bestDepth = Double.MAX_VALUE;
                     int idxX = -1, idxY = -1, idxZ = -1;
                     // Busco el subcubo más cercano bajo el cursor
-                    double[][] globalRot = Subcubo.rotation(anguloX, anguloY, anguloZ);
+                    syncCamera();
+                    double[][] globalRot = rotMatrix;
                     for (int x = 0; x < 3; x++) {
                         for (int y = 0; y < 3; y++) {
                             for (int z = 0; z < 3; z++) {
-                                Subcubo sc = cuboRubik[x][y][z];
+                                Subcubo sc = cuboRubik[CubeState.slot(x, y, z)];
                                 if (sc.containsPoint(mx, my)) {
-                                    double posX = (x - 1) * size * escala, posY = (y - 1) * size * escala, posZ = (z - 1) * size * escala;
+                                    double posX = (x - 1) * size, posY = (y - 1) * size, posZ = (z - 1) * size;
                                     double[] r = sc.rotar(new double[]{posX, posY, posZ}, globalRot);
                                     if (r[2] < bestDepth) {
                                         bestDepth = r[2];
@@ -1248,21 +1369,33 @@ public class Cubo extends JFrame {
                             }
                         }
                     }
-                    moverCubo();
+                    requestFrame();
                 }
             }
 
             @Override
             public void mouseReleased(MouseEvent e) {
+                CubeEvents.Input event = CubeEvents.beginInput();
                 draggingCorner = false;
                 draggingFace = false;
                 draggingLayerZ = false;
+                if (governor.endInteraction()) {
+                    requestFrame(); // Volver a dibujar con calidad completa
+                }
+                CubeEvents.endInput(event, "mouseReleased", e);
             }
         });
 
         panel.addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
+                CubeEvents.Input event = CubeEvents.beginInput();
+                handleDrag(e);
+                CubeEvents.endInput(event, "mouseDragged", e);
+            }
+
+            private void handleDrag(MouseEvent e) {
+                governor.beginInteraction();
                 if (draggingCorner && (e.getModifiersEx() & InputEvent.BUTTON3_DOWN_MASK) != 0) {
                     double vx1 = lastX - trasX;
                     double vy1 = lastY - trasY;
@@ -1274,7 +1407,7 @@ public class Cubo extends JFrame {
                     applyRotation(2, angle);
                     lastX = e.getX();
                     lastY = e.getY();
-                    moverCubo();
+                    requestFrame();
                 } else if (!gameMode && draggingLayerZ && (e.getModifiersEx() & InputEvent.BUTTON1_DOWN_MASK) != 0) {
                     double vx1 = lastX - trasX;
                     double vy1 = lastY - trasY;
@@ -1295,7 +1428,7 @@ public class Cubo extends JFrame {
                     applyRotation(0, dy / 2.0);
                     lastX = e.getX();
                     lastY = e.getY();
-                    moverCubo();
+                    requestFrame();
                 } else if ((e.getModifiersEx() & InputEvent.BUTTON3_DOWN_MASK) != 0) {
                     int dx = e.getX() - lastX, dy = e.getY() - lastY;
                     // --- ARRASTRE DERECHO: también invertido ---
@@ -1303,18 +1436,20 @@ public class Cubo extends JFrame {
                     applyRotation(0, dy / 2.0);  // antes era -= dy/2.0
                     lastX = e.getX();
                     lastY = e.getY();
-                    moverCubo();
+                    requestFrame();
                 }
             }
         });
 
         panel.addMouseWheelListener(e -> {
+            CubeEvents.Input event = CubeEvents.beginInput();
             int newSize = size - e.getWheelRotation() * 5;
             if (newSize < 20) {
                 newSize = 20;
             }
             resizeSubcubes(newSize);
-            moverCubo();
+            requestFrame();
+            CubeEvents.endInput(event, "mouseWheelMoved", e);
         });
 
         // El panel debe poder enfocarse para captar las teclas
@@ -1325,55 +1460,136 @@ public class Cubo extends JFrame {
     }
 
     /**
-     * Dibuja textos y botones de ayuda sobre la imagen generada.
+     * Dibuja textos y botones de ayuda sobre la imagen generada. Los textos
+     * fijos se componen desde {@link #hudLayer}; solo los contadores del
+     * cuadro se dibujan de nuevo.
      */
     private void drawUI() {
+        long start = System.nanoTime();
+        if (hudLayer == null || hudGameMode != gameMode || hudShowControls != showControls) {
+            Graficos layer = new Graficos(graficos.getWidth(), graficos.getHeight());
+            drawHudText(layer);
+            hudLayer = layer.toOverlay();
+            hudGameMode = gameMode;
+            hudShowControls = showControls;
+        }
+        graficos.drawOverlay(hudLayer);
+        if (stats.isEnabled()) {
+            drawStats();
+        }
+        hudNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Dibuja el panel de estadísticas: cuadros por segundo, percentiles 50 y
+     * 99 de cada etapa en microsegundos y los contadores del último cuadro,
+     * incluido lo que tardó {@link #drawUI()}. Esos valores cambian en cada
+     * cuadro, así que no van en el HUD fijo: allí harían sucia la esquina
+     * del texto en todos los cuadros y anularían el redibujado parcial.
+     * El texto se rehace como mucho cada {@link #STATS_REFRESH_NANOS}.
+     */
+    private void drawStats() {
+        long now = System.nanoTime();
+        if (statsLines == null || now - statsUpdated >= STATS_REFRESH_NANOS) {
+            java.util.List<String> lines = new java.util.ArrayList<>();
+            lines.add("FPS " + stats.fps() + "  SAMPLES " + stats.size());
+            lines.add(pad("STAGE US", 10) + pad("P50", 7) + "P99");
+            for (int s = 0; s <= FrameStats.STAGES; s++) {
+                String name = s == FrameStats.TOTAL ? "FRAME" : FrameStats.NAMES[s];
+                lines.add(pad(name, 10) + pad(String.valueOf(stats.percentile(s, 0.5) / 1000), 7)
+                        + stats.percentile(s, 0.99) / 1000);
+            }
+            lines.add("POLYGONS " + stats.lastPolygons() + "  PIXELS " + stats.lastPixels());
+            lines.add("CULLED " + culledFaces + " OF 162");
+            long alloc = stats.lastAllocatedBytes();
+            lines.add("ALLOC " + (alloc < 0 ? "N:A" : alloc / 1024 + " KB"));
+            lines.add("HUD LAST " + hudNanos / 1000 + " US");
+            lines.add("RES 1:" + governor.divisor() + "  FRAME "
+                    + Math.round(governor.lastFrameMs()) + " OF " + Math.round(governor.budgetMs()) + " MS");
+            lines.add("RES DOWN " + governor.reductions() + "  UP " + governor.restorations());
+            lines.add("FRAMES " + scheduler.getFrames() + "  DROPPED "
+                    + scheduler.getDroppedRequests() + "  " + scheduler.getTargetFps() + " FPS");
+            statsLines = lines.toArray(new String[0]);
+            statsUpdated = now;
+        }
+        int y = 44;
+        for (String line : statsLines) {
+            PixelFont.drawString(graficos, line, 620, y, 1, Palette.HUD_ACCENT);
+            y += 10;
+        }
+    }
+
+    /** Completa {@code text} con espacios hasta {@code width} caracteres. */
+    private static String pad(String text, int width) {
+        StringBuilder sb = new StringBuilder(text);
+        while (sb.length() < width) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Dibuja los textos fijos del HUD, que solo dependen de
+     * {@link #gameMode} y {@link #showControls}.
+     */
+    private void drawHudText(Graficos g) {
         if (!showControls) {
-            PixelFont.drawString(graficos, "RUBIK 3D", 10, 20, 5, Color.WHITE);
-            PixelFont.drawString(graficos, gameMode ? "MODE: PLAY" : "MODE: VIEW", 620, 20, 2, Color.YELLOW);
+            PixelFont.drawString(g, "RUBIK 3D", 10, 20, 5, Palette.HUD_TEXT);
+            PixelFont.drawString(g, gameMode ? "MODE: PLAY" : "MODE: VIEW", 620, 20, 2, Palette.HUD_ACCENT);
             return;
         }
-        PixelFont.drawString(graficos, "RUBIK 3D", 10, 20, 5, Color.WHITE);
-        PixelFont.drawString(graficos, gameMode ? "MODE: PLAY" : "MODE: VIEW", 620, 20, 2, Color.YELLOW);
+        PixelFont.drawString(g, "RUBIK 3D", 10, 20, 5, Palette.HUD_TEXT);
+        PixelFont.drawString(g, gameMode ? "MODE: PLAY" : "MODE: VIEW", 620, 20, 2, Palette.HUD_ACCENT);
 
         int y = 60;
         int step = 24;
 
         if (gameMode) {
             y += step;
-            PixelFont.drawString(graficos, "LEFT CLICK SELECTS A SUBCUBE", 10, y, 2, Color.WHITE);
+            PixelFont.drawString(g, "LEFT CLICK SELECTS A SUBCUBE", 10, y, 2, Palette.HUD_TEXT);
+            y += step;
+            PixelFont.drawString(g, "ESC CLEARS SUBCUBE SELECTION", 10, y, 2, Palette.HUD_TEXT);
+            y += step;
+            PixelFont.drawString(g, "PRESS ENTER TO VIEW MODE", 10, y, 2, Palette.HUD_TEXT);
             y += step;
-            PixelFont.drawString(graficos, "ESC CLEARS SUBCUBE SELECTION", 10, y, 2, Color.WHITE);
+            PixelFont.drawString(g, "R MIX CUBE", 10, y, 2, Palette.HUD_TEXT);
             y += step;
-            PixelFont.drawString(graficos, "PRESS ENTER TO VIEW MODE", 10, y, 2, Color.WHITE);
+            PixelFont.drawString(g, "SHIFT ARROWS HALF TURN", 10, y, 2, Palette.HUD_TEXT);
             y += step;
-            PixelFont.drawString(graficos, "R MIX CUBE", 10, y, 2, Color.WHITE);
+            PixelFont.drawString(g, "CTRL ARROWS WIDE TURN", 10, y, 2, Palette.HUD_TEXT);
+            y += step;
+            PixelFont.drawString(g, "ALT ARROWS TURN WHOLE CUBE", 10, y, 2, Palette.HUD_TEXT);
             y += step;
         } else {
             y += step;
-            PixelFont.drawString(graficos, "PRESS ENTER TO PLAY MODE", 10, y, 2, Color.WHITE);
+            PixelFont.drawString(g, "PRESS ENTER TO PLAY MODE", 10, y, 2, Palette.HUD_TEXT);
             y += step;
         }
         y += step;
-        PixelFont.drawString(graficos, "WASD MOVE CUBE UP LEFT DOWN RIGHT", 10, y, 2, Color.WHITE);
+        PixelFont.drawString(g, "WASD MOVE CUBE UP LEFT DOWN RIGHT", 10, y, 2, Palette.HUD_TEXT);
         y += step;
-        PixelFont.drawString(graficos, "IJKL ROTATE CUBE UP LEFT DOWN RIGHT", 10, y, 2, Color.WHITE);
+        PixelFont.drawString(g, "IJKL ROTATE CUBE UP LEFT DOWN RIGHT", 10, y, 2, Palette.HUD_TEXT);
         y += step;
-        PixelFont.drawString(graficos, "UO ROTATE CUBE IN Z DIRECTION LEFT RIGHT", 10, y, 2, Color.WHITE);
+        PixelFont.drawString(g, "UO ROTATE CUBE IN Z DIRECTION LEFT RIGHT", 10, y, 2, Palette.HUD_TEXT);
         y += step;
-        PixelFont.drawString(graficos, "LEFT DRAG ROTATE CUBE", 10, y, 2, Color.WHITE);
+        PixelFont.drawString(g, "LEFT DRAG ROTATE CUBE", 10, y, 2, Palette.HUD_TEXT);
         y += step;
-        PixelFont.drawString(graficos, "MOUSE WHEEL SCALE", 10, y, 2, Color.WHITE);
+        PixelFont.drawString(g, "MOUSE WHEEL SCALE", 10, y, 2, Palette.HUD_TEXT);
         y += step;
         y += step;
-        PixelFont.drawString(graficos, "B TOGGLE LINES", 10, y, 2, Color.WHITE);
+        PixelFont.drawString(g, "B TOGGLE LINES", 10, y, 2, Palette.HUD_TEXT);
         y += step;
-        PixelFont.drawString(graficos, "E CHANGE AXIS", 10, y, 2, Color.WHITE);
+        PixelFont.drawString(g, "E CHANGE AXIS", 10, y, 2, Palette.HUD_TEXT);
         y += step;
-        PixelFont.drawString(graficos, "N TOGGLE LABELS", 10, y, 2, Color.WHITE);
+        PixelFont.drawString(g, "N TOGGLE LABELS", 10, y, 2, Palette.HUD_TEXT);
         y += step;
-        PixelFont.drawString(graficos, "H SHOW CONTROLS", 10, y, 2, Color.WHITE);
+        PixelFont.drawString(g, "Z TOGGLE DEPTH BUFFER", 10, y, 2, Palette.HUD_TEXT);
+        y += step;
+        PixelFont.drawString(g, "P TOGGLE PARALLEL RASTER", 10, y, 2, Palette.HUD_TEXT);
+        y += step;
+        PixelFont.drawString(g, "H SHOW CONTROLS", 10, y, 2, Palette.HUD_TEXT);
+        y += step;
+        PixelFont.drawString(g, "F FRAME STATS", 10, y, 2, Palette.HUD_TEXT);
         y += step;
-
     }
 }
@@ -0,0 +1,559 @@
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Lista de comandos de dibujo grabados por {@link Graficos} durante un
+ * cuadro. Cada comando guarda su operación, su color, su rectángulo
+ * envolvente en píxeles y sus parámetros numéricos en un arreglo compartido,
+ * de modo que grabar un cuadro no reserva memoria una vez que los arreglos
+ * alcanzan su tamaño de trabajo. Las coordenadas ya llevan aplicada la
+ * traslación del contexto que los grabó.
+ */
+final class DisplayList {
+
+    /** Rellena el lienzo con el fondo. */
+    static final byte CLEAR = 0;
+    /** Rectángulo relleno de extremos incluidos. */
+    static final byte RECT = 1;
+    /** Polígono convexo relleno. */
+    static final byte POLYGON = 2;
+    /** Línea de Bresenham. */
+    static final byte LINE = 3;
+    /** Círculo relleno. */
+    static final byte FILL_CIRCLE = 4;
+    /** Circunferencia. */
+    static final byte CIRCLE = 5;
+    /** Circunferencia punteada. */
+    static final byte DOTTED_CIRCLE = 6;
+    /** Elipse inscrita en un rectángulo. */
+    static final byte OVAL = 7;
+    /** Píxel suelto. */
+    static final byte PIXEL = 8;
+    /**
+     * Puerta de visibilidad: los {@code count} comandos siguientes solo se
+     * dibujan si su punto pasa la prueba de profundidad.
+     */
+    static final byte GATE = 9;
+    /** Texto de {@link PixelFont}: un carácter por parámetro tras x, y y escala. */
+    static final byte TEXT = 10;
+    /** Capa retenida ({@link Overlay}) desplazada (x, y), con su reducción. */
+    static final byte OVERLAY = 11;
+
+    private int size = 0;
+    private byte[] op = new byte[64];
+    private boolean[] depth = new boolean[64];
+    private int[] color = new int[64];
+    private int[] count = new int[64];
+    private int[] offset = new int[64];
+    private int[] minX = new int[64];
+    private int[] minY = new int[64];
+    private int[] maxX = new int[64];
+    private int[] maxY = new int[64];
+    /** Resultado de evaluar cada puerta al reproducir la lista. */
+    private boolean[] hidden = new boolean[64];
+    /** Capa de cada comando {@link #OVERLAY}; {@code null} en los demás. */
+    private Overlay[] layer = new Overlay[64];
+
+    /** Parámetros de todos los comandos, uno tras otro. */
+    private double[] data = new double[512];
+    private int dataSize = 0;
+
+    /** Si algún comando usa el buffer de profundidad. */
+    private boolean usesDepth = false;
+    /** Número de cuadro asignado al enviarla al hilo de render. */
+    private long frame;
+    /** Si el hilo de render debe reproducirla por baldosas. */
+    private boolean parallel;
+    /** Log2 del divisor de resolución con que se grabó. */
+    private int shift;
+    /**
+     * Región que hay que redibujar, {@code [x0, x1) x [y0, y1)}. Fuera de
+     * ella el cuadro es igual al anterior y no se rasteriza.
+     */
+    private int dirtyX0, dirtyY0, dirtyX1, dirtyY1;
+
+    DisplayList() {
+        setDirtyAll();
+    }
+
+    /** Número de comandos grabados. */
+    int size() {
+        return size;
+    }
+
+    /** Descarta los comandos conservando la capacidad reservada. */
+    void reset() {
+        // Soltar las capas para no retener las que ya no se usan
+        Arrays.fill(layer, 0, size, null);
+        size = 0;
+        dataSize = 0;
+        usesDepth = false;
+        setDirtyAll();
+    }
+
+    /** Marca todo el lienzo como región a redibujar. */
+    void setDirtyAll() {
+        setDirty(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    void setDirty(int x0, int y0, int x1, int y1) {
+        dirtyX0 = x0;
+        dirtyY0 = y0;
+        dirtyX1 = x1;
+        dirtyY1 = y1;
+    }
+
+    /** Amplía la región a redibujar con la de otra lista. */
+    void includeDirty(DisplayList other) {
+        dirtyX0 = Math.min(dirtyX0, other.dirtyX0);
+        dirtyY0 = Math.min(dirtyY0, other.dirtyY0);
+        dirtyX1 = Math.max(dirtyX1, other.dirtyX1);
+        dirtyY1 = Math.max(dirtyY1, other.dirtyY1);
+    }
+
+    int dirtyX0() {
+        return dirtyX0;
+    }
+
+    int dirtyY0() {
+        return dirtyY0;
+    }
+
+    int dirtyX1() {
+        return dirtyX1;
+    }
+
+    int dirtyY1() {
+        return dirtyY1;
+    }
+
+    /**
+     * Compara esta lista con la del cuadro anterior y deja como región a
+     * redibujar la unión de los rectángulos envolventes, viejos y nuevos, de
+     * los comandos que cambiaron. Primero descarta el prefijo y el sufijo
+     * comunes a las dos listas, así que insertar o quitar un comando solo
+     * ensucia los comandos del tramo central y no todos los que le siguen.
+     * Un píxel fuera de esa región solo lo tocan comandos idénticos y en el
+     * mismo orden en los dos cuadros, así que conserva su valor. Las puertas
+     * de visibilidad, de cualquiera de las dos listas, cuyo punto cae en la
+     * región arrastran a todo su contenido. Devuelve {@code false} si los dos
+     * cuadros son iguales.
+     */
+    boolean diff(DisplayList previous) {
+        int limit = Math.min(size, previous.size);
+        int head = 0;
+        while (head < limit && sameCommand(head, previous, head)) {
+            head++;
+        }
+        // Una puerta del prefijo que abarca comandos del tramo central
+        // cambia de contenido, así que el tramo empieza en ella
+        for (int i = 0; i < head; i++) {
+            if (op[i] == GATE && i + count[i] >= head) {
+                head = i;
+                break;
+            }
+        }
+        int tail = 0;
+        while (tail < limit - head && sameCommand(size - 1 - tail, previous, previous.size - 1 - tail)) {
+            tail++;
+        }
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE;
+        int x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+        for (int i = head; i < size - tail; i++) {
+            x0 = Math.min(x0, minX[i]);
+            y0 = Math.min(y0, minY[i]);
+            x1 = Math.max(x1, maxX[i]);
+            y1 = Math.max(y1, maxY[i]);
+        }
+        for (int i = head; i < previous.size - tail; i++) {
+            x0 = Math.min(x0, previous.minX[i]);
+            y0 = Math.min(y0, previous.minY[i]);
+            x1 = Math.max(x1, previous.maxX[i]);
+            y1 = Math.max(y1, previous.maxY[i]);
+        }
+        if (x0 > x1) {
+            return false;
+        }
+        // Extender con el contenido de las puertas afectadas hasta que la
+        // región deje de crecer
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (int pass = 0; pass < 2; pass++) {
+                DisplayList list = pass == 0 ? this : previous;
+                for (int i = 0; i < list.size; i++) {
+                    if (list.op[i] != GATE || list.count[i] == 0) {
+                        continue;
+                    }
+                    int gx = list.gateX(i), gy = list.gateY(i);
+                    if (gx < x0 || gx > x1 || gy < y0 || gy > y1) {
+                        continue;
+                    }
+                    for (int k = i + 1; k <= i + list.count[i]; k++) {
+                        if (list.minX[k] < x0 || list.minY[k] < y0 || list.maxX[k] > x1 || list.maxY[k] > y1) {
+                            x0 = Math.min(x0, list.minX[k]);
+                            y0 = Math.min(y0, list.minY[k]);
+                            x1 = Math.max(x1, list.maxX[k]);
+                            y1 = Math.max(y1, list.maxY[k]);
+                            grown = true;
+                        }
+                    }
+                }
+            }
+        }
+        // Los rectángulos envolventes incluyen su último píxel
+        setDirty(x0, y0, x1 == Integer.MAX_VALUE ? x1 : x1 + 1, y1 == Integer.MAX_VALUE ? y1 : y1 + 1);
+        return true;
+    }
+
+    /** Compara el comando {@code i} con el comando {@code j} de otra lista. */
+    private boolean sameCommand(int i, DisplayList other, int j) {
+        if (op[i] != other.op[j] || depth[i] != other.depth[j] || color[i] != other.color[j]
+                || count[i] != other.count[j]) {
+            return false;
+        }
+        int len = valueCount(i);
+        if (len != other.valueCount(j)) {
+            return false;
+        }
+        return Arrays.equals(data, offset[i], offset[i] + len,
+                other.data, other.offset[j], other.offset[j] + len);
+    }
+
+    /** Número de parámetros del comando {@code i}. */
+    private int valueCount(int i) {
+        return (i + 1 < size ? offset[i + 1] : dataSize) - offset[i];
+    }
+
+    /** Copia el contenido de otra lista, reutilizando la capacidad propia. */
+    void copyFrom(DisplayList other) {
+        if (op.length < other.size) {
+            int cap = other.op.length;
+            op = new byte[cap];
+            depth = new boolean[cap];
+            color = new int[cap];
+            count = new int[cap];
+            offset = new int[cap];
+            minX = new int[cap];
+            minY = new int[cap];
+            maxX = new int[cap];
+            maxY = new int[cap];
+            hidden = new boolean[cap];
+            layer = new Overlay[cap];
+        }
+        if (data.length < other.dataSize) {
+            data = new double[other.data.length];
+        }
+        size = other.size;
+        dataSize = other.dataSize;
+        usesDepth = other.usesDepth;
+        System.arraycopy(other.op, 0, op, 0, size);
+        System.arraycopy(other.depth, 0, depth, 0, size);
+        System.arraycopy(other.color, 0, color, 0, size);
+        System.arraycopy(other.count, 0, count, 0, size);
+        System.arraycopy(other.offset, 0, offset, 0, size);
+        System.arraycopy(other.minX, 0, minX, 0, size);
+        System.arraycopy(other.minY, 0, minY, 0, size);
+        System.arraycopy(other.maxX, 0, maxX, 0, size);
+        System.arraycopy(other.maxY, 0, maxY, 0, size);
+        System.arraycopy(other.data, 0, data, 0, dataSize);
+        System.arraycopy(other.layer, 0, layer, 0, size);
+    }
+
+    /** Anota el cuadro, el modo y la resolución con que se reproduce la lista. */
+    void setFrame(long frame, boolean parallel, int shift) {
+        this.frame = frame;
+        this.parallel = parallel;
+        this.shift = shift;
+    }
+
+    int shift() {
+        return shift;
+    }
+
+    long frame() {
+        return frame;
+    }
+
+    boolean isParallel() {
+        return parallel;
+    }
+
+    boolean usesDepth() {
+        return usesDepth;
+    }
+
+    byte op(int i) {
+        return op[i];
+    }
+
+    boolean depth(int i) {
+        return depth[i];
+    }
+
+    int count(int i) {
+        return count[i];
+    }
+
+    /** Indica si el comando escribe en el buffer de profundidad. */
+    boolean writesDepth(int i) {
+        return depth[i] && (op[i] == CLEAR || op[i] == POLYGON);
+    }
+
+    /** Primera puerta en o después de {@code from}, o {@link #size()}. */
+    int nextGate(int from) {
+        for (int i = from; i < size; i++) {
+            if (op[i] == GATE) {
+                return i;
+            }
+        }
+        return size;
+    }
+
+    int gateX(int i) {
+        return (int) data[offset[i]];
+    }
+
+    int gateY(int i) {
+        return (int) data[offset[i] + 1];
+    }
+
+    double gateZ(int i) {
+        return data[offset[i] + 2];
+    }
+
+    boolean isHidden(int i) {
+        return hidden[i];
+    }
+
+    void setHidden(int i, boolean value) {
+        hidden[i] = value;
+    }
+
+    int minX(int i) {
+        return minX[i];
+    }
+
+    int minY(int i) {
+        return minY[i];
+    }
+
+    int maxX(int i) {
+        return maxX[i];
+    }
+
+    int maxY(int i) {
+        return maxY[i];
+    }
+
+    void addClear(boolean withDepth) {
+        int i = begin(CLEAR, withDepth, 0, 0);
+        setBounds(i, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    void addRect(int x0, int y0, int x1, int y1, int rgb) {
+        int i = begin(RECT, false, rgb, 4);
+        data[dataSize++] = x0;
+        data[dataSize++] = y0;
+        data[dataSize++] = x1;
+        data[dataSize++] = y1;
+        setBounds(i, x0, y0, x1, y1);
+    }
+
+    /**
+     * Graba un polígono con sus vértices intercalados en {@code vertices}:
+     * (x, y) por vértice, o (x, y, z) si lleva profundidad.
+     */
+    void addPolygon(double[] vertices, int n, boolean withDepth, int rgb) {
+        int stride = withDepth ? 3 : 2;
+        int i = begin(POLYGON, withDepth, rgb, n * stride);
+        count[i] = n;
+        System.arraycopy(vertices, 0, data, dataSize, n * stride);
+        dataSize += n * stride;
+        double x0 = vertices[0], x1 = x0, y0 = vertices[1], y1 = y0;
+        for (int k = 1; k < n; k++) {
+            double x = vertices[k * stride], y = vertices[k * stride + 1];
+            if (x < x0) x0 = x;
+            if (x > x1) x1 = x;
+            if (y < y0) y0 = y;
+            if (y > y1) y1 = y;
+        }
+        // Cota holgada de un píxel para no depender del redondeo a coma fija
+        setBounds(i, (int) Math.floor(x0) - 1, (int) Math.floor(y0) - 1,
+                (int) Math.ceil(x1) + 1, (int) Math.ceil(y1) + 1);
+    }
+
+    void addLine(int x1, int y1, double z1, int x2, int y2, double z2, boolean withDepth, int rgb) {
+        int i = begin(LINE, withDepth, rgb, 6);
+        data[dataSize++] = x1;
+        data[dataSize++] = y1;
+        data[dataSize++] = z1;
+        data[dataSize++] = x2;
+        data[dataSize++] = y2;
+        data[dataSize++] = z2;
+        setBounds(i, Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2));
+    }
+
+    /**
+     * Graba una de las figuras de un punto o dos: círculos ({@code x}, {@code y},
+     * radio), elipses (dos esquinas) y píxeles sueltos.
+     */
+    void addShape(byte operation, int a, int b, int c, int d, int rgb) {
+        int i = begin(operation, false, rgb, 4);
+        data[dataSize++] = a;
+        data[dataSize++] = b;
+        data[dataSize++] = c;
+        data[dataSize++] = d;
+        switch (operation) {
+            case OVAL:
+                setBounds(i, Math.min(a, c) - 1, Math.min(b, d) - 1, Math.max(a, c) + 1, Math.max(b, d) + 1);
+                break;
+            case PIXEL:
+                setBounds(i, a, b, a, b);
+                break;
+            default:
+                int r = Math.abs(c);
+                setBounds(i, a - r, b - r, a + r, b + r);
+                break;
+        }
+    }
+
+    void addText(CharSequence text, int x, int y, int scale, int rgb) {
+        int n = text.length();
+        int i = begin(TEXT, false, rgb, 3 + n);
+        count[i] = n;
+        data[dataSize++] = x;
+        data[dataSize++] = y;
+        data[dataSize++] = scale;
+        for (int k = 0; k < n; k++) {
+            data[dataSize++] = text.charAt(k);
+        }
+        setBounds(i, x, y, x + (n * PixelFont.ADVANCE - 1) * scale - 1,
+                y + PixelFont.GLYPH_HEIGHT * scale - 1);
+    }
+
+    /**
+     * Graba una capa retenida. Sus parámetros incluyen el número de la capa,
+     * así que al comparar cuadros una capa nueva cuenta como cambio.
+     */
+    void addOverlay(Overlay overlay, int dx, int dy, int shift) {
+        int i = begin(OVERLAY, false, 0, 4);
+        layer[i] = overlay;
+        data[dataSize++] = dx;
+        data[dataSize++] = dy;
+        data[dataSize++] = shift;
+        data[dataSize++] = overlay.serial;
+        setBounds(i, (overlay.minX + dx) >> shift, (overlay.minY + dy) >> shift,
+                (overlay.maxX + dx) >> shift, (overlay.maxY + dy) >> shift);
+    }
+
+    /**
+     * Abre una puerta de visibilidad en el punto indicado. Devuelve su índice
+     * para cerrarla con {@link #closeGate(int)}.
+     */
+    int addGate(int x, int y, double z, boolean withDepth) {
+        int i = begin(GATE, withDepth, 0, 3);
+        count[i] = 0;
+        data[dataSize++] = x;
+        data[dataSize++] = y;
+        data[dataSize++] = z;
+        setBounds(i, x, y, x, y);
+        return i;
+    }
+
+    /** Cierra la puerta {@code i}: abarca todo lo grabado después de ella. */
+    void closeGate(int i) {
+        count[i] = size - i - 1;
+    }
+
+    /** Ejecuta el comando {@code i} sobre {@code g}, respetando su recorte. */
+    void replay(int i, Graficos g) {
+        int o = offset[i];
+        switch (op[i]) {
+            case CLEAR:
+                g.rawClear(depth[i]);
+                break;
+            case RECT:
+                g.rawFillRect((int) data[o], (int) data[o + 1], (int) data[o + 2], (int) data[o + 3], color[i]);
+                break;
+            case POLYGON:
+                g.rawFillPolygon(data, o, count[i], depth[i], color[i]);
+                break;
+            case LINE:
+                if (depth[i]) {
+                    g.rawDrawLineDepth((int) data[o], (int) data[o + 1], data[o + 2],
+                            (int) data[o + 3], (int) data[o + 4], data[o + 5], color[i]);
+                } else {
+                    g.rawDrawLine((int) data[o], (int) data[o + 1],
+                            (int) data[o + 3], (int) data[o + 4], color[i]);
+                }
+                break;
+            case FILL_CIRCLE:
+                g.rawFillCircle((int) data[o], (int) data[o + 1], (int) data[o + 2], color[i]);
+                break;
+            case CIRCLE:
+                g.rawDrawCircle((int) data[o], (int) data[o + 1], (int) data[o + 2], color[i]);
+                break;
+            case DOTTED_CIRCLE:
+                g.rawDrawDottedCircle((int) data[o], (int) data[o + 1], (int) data[o + 2], color[i]);
+                break;
+            case OVAL:
+                g.rawDrawOval((int) data[o], (int) data[o + 1], (int) data[o + 2], (int) data[o + 3], color[i]);
+                break;
+            case PIXEL:
+                g.rawPutPixel((int) data[o], (int) data[o + 1], color[i]);
+                break;
+            case OVERLAY:
+                g.rawDrawOverlay(layer[i], (int) data[o], (int) data[o + 1], (int) data[o + 2]);
+                break;
+            case TEXT: {
+                int x = (int) data[o], y = (int) data[o + 1], scale = (int) data[o + 2];
+                for (int k = 0; k < count[i]; k++) {
+                    g.rawDrawGlyph((char) data[o + 3 + k], x + k * PixelFont.ADVANCE * scale, y, scale, color[i]);
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Comando desconocido: " + op[i]);
+        }
+    }
+
+    /** Reserva un comando nuevo y espacio para sus parámetros. */
+    private int begin(byte operation, boolean withDepth, int rgb, int values) {
+        if (size == op.length) {
+            int cap = size * 2;
+            op = Arrays.copyOf(op, cap);
+            depth = Arrays.copyOf(depth, cap);
+            color = Arrays.copyOf(color, cap);
+            count = Arrays.copyOf(count, cap);
+            offset = Arrays.copyOf(offset, cap);
+            minX = Arrays.copyOf(minX, cap);
+            minY = Arrays.copyOf(minY, cap);
+            maxX = Arrays.copyOf(maxX, cap);
+            maxY = Arrays.copyOf(maxY, cap);
+            hidden = Arrays.copyOf(hidden, cap);
+            layer = Arrays.copyOf(layer, cap);
+        }
+        if (dataSize + values > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + values));
+        }
+        int i = size++;
+        op[i] = operation;
+        depth[i] = withDepth;
+        usesDepth |= withDepth;
+        hidden[i] = false;
+        layer[i] = null;
+        count[i] = 0;
+        color[i] = rgb;
+        offset[i] = dataSize;
+        return i;
+    }
+
+    private void setBounds(int i, int x0, int y0, int x1, int y1) {
+        minX[i] = x0;
+        minY[i] = y0;
+        maxX[i] = x1;
+        maxY[i] = y1;
+    }
+}
@@ -0,0 +1,118 @@
+package main;
+
+import javax.swing.Timer;
+
+/**
+ * Planificador de cuadros. Los eventos ya no redibujan al momento: piden un
+ * cuadro, lo que solo marca que la escena cambió, y un {@link Timer} de
+ * Swing dibuja como mucho un cuadro por intervalo con todo lo acumulado.
+ * Las peticiones que llegan mientras ya hay un cuadro pendiente se funden
+ * con él y se cuentan como descartadas. Todo ocurre en el EDT.
+ */
+public class FrameScheduler {
+
+    /** Cuadros por segundo por defecto. */
+    public static final int DEFAULT_TARGET_FPS = 60;
+
+    private final Runnable renderer;
+    private final Timer timer;
+    private int targetFps;
+    /** Si hay cambios sin dibujar. */
+    private boolean pending = false;
+    /** Momento en que empezó el último cuadro, en nanosegundos. */
+    private long lastFrameNanos;
+    private long requests = 0;
+    private long frames = 0;
+    private long dropped = 0;
+
+    /**
+     * Crea un planificador con la tasa de la propiedad del sistema
+     * {@code rubik.targetFps}, o {@link #DEFAULT_TARGET_FPS} si no está.
+     *
+     * @param renderer acción que dibuja un cuadro completo
+     */
+    public FrameScheduler(Runnable renderer) {
+        this(Integer.getInteger("rubik.targetFps", DEFAULT_TARGET_FPS), renderer);
+    }
+
+    /**
+     * @param targetFps cuadros por segundo como máximo
+     * @param renderer  acción que dibuja un cuadro completo
+     */
+    public FrameScheduler(int targetFps, Runnable renderer) {
+        this.renderer = renderer;
+        timer = new Timer(0, e -> tick());
+        setTargetFps(targetFps);
+        lastFrameNanos = System.nanoTime() - intervalNanos();
+    }
+
+    /** Cambia la tasa máxima de cuadros por segundo. */
+    public void setTargetFps(int fps) {
+        if (fps < 1) {
+            throw new IllegalArgumentException("Tasa de cuadros no válida: " + fps);
+        }
+        targetFps = fps;
+        timer.setDelay(Math.max(1, 1000 / fps));
+    }
+
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    private long intervalNanos() {
+        return 1_000_000_000L / targetFps;
+    }
+
+    /**
+     * Pide que se dibuje un cuadro. Si ya pasó un intervalo desde el último
+     * se dibuja en cuanto el EDT quede libre; si no, al cumplirse.
+     */
+    public void requestFrame() {
+        requests++;
+        if (pending) {
+            dropped++;
+            return;
+        }
+        pending = true;
+        if (!timer.isRunning()) {
+            long wait = intervalNanos() - (System.nanoTime() - lastFrameNanos);
+            timer.setInitialDelay((int) Math.max(0, wait / 1_000_000));
+            timer.start();
+        }
+    }
+
+    /**
+     * Dibuja el cuadro pendiente, si lo hay. Tras un intervalo sin
+     * peticiones el temporizador se detiene.
+     */
+    void tick() {
+        if (!pending) {
+            timer.stop();
+            return;
+        }
+        pending = false;
+        frames++;
+        lastFrameNanos = System.nanoTime();
+        renderer.run();
+    }
+
+    /** Indica si hay un cuadro pedido aún sin dibujar. */
+    public boolean isPending() {
+        return pending;
+    }
+
+    /** Peticiones recibidas. */
+    public long getRequests() {
+        return requests;
+    }
+
+    /** Cuadros dibujados. */
+    public long getFrames() {
+        return frames;
+    }
+
+    /** Peticiones fundidas con un cuadro que ya estaba pendiente. */
+    public long getDroppedRequests() {
+        return dropped;
+    }
+}
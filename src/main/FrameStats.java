@@ -0,0 +1,226 @@
+package main;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Estadísticas de los últimos cuadros para el panel de rendimiento. Cada
+ * cuadro se reparte en etapas ({@link #TRANSFORM}, {@link #SORT},
+ * {@link #RASTER}, {@link #HUD} y {@link #PRESENT}) midiendo con
+ * {@link #lap(int)} el tiempo transcurrido desde la marca anterior, y al
+ * cerrarlo se guarda en un búfer circular de {@link #CAPACITY} cuadros junto
+ * con los polígonos, los píxeles y los bytes reservados en el hilo que
+ * dibuja. Mientras está desactivado cada llamada se reduce a comprobar un
+ * booleano: no se lee el reloj ni se escribe en el búfer.
+ */
+public final class FrameStats {
+
+    /** Rotación y proyección de piezas y vértices. */
+    public static final int TRANSFORM = 0;
+    /** Orden de piezas y caras del algoritmo del pintor. */
+    public static final int SORT = 1;
+    /** Dibujo o grabación de primitivas y su rasterizado. */
+    public static final int RASTER = 2;
+    /** Textos y capas del HUD. */
+    public static final int HUD = 3;
+    /** Entrega del cuadro y copia al panel. */
+    public static final int PRESENT = 4;
+    /** Número de etapas. */
+    public static final int STAGES = 5;
+    /** Índice con el que {@link #percentile} devuelve el cuadro completo. */
+    public static final int TOTAL = STAGES;
+    /** Nombres de las etapas, en el orden de sus índices. */
+    static final String[] NAMES = {"TRANSFORM", "SORT", "RASTER", "HUD", "PRESENT"};
+
+    /** Cuadros que guarda el búfer circular. */
+    public static final int CAPACITY = 128;
+    /** Ventana sobre la que se cuentan los cuadros por segundo. */
+    private static final long FPS_WINDOW = 1_000_000_000L;
+
+    private boolean enabled = false;
+    /** Tiempos por etapa, {@code (STAGES + 1)} valores por cuadro; el último es el total. */
+    private final long[] nanos = new long[(STAGES + 1) * CAPACITY];
+    /** Instante en que empezó cada cuadro. */
+    private final long[] starts = new long[CAPACITY];
+    private final int[] polygons = new int[CAPACITY];
+    private final long[] pixels = new long[CAPACITY];
+    private final long[] allocated = new long[CAPACITY];
+    /** Siguiente posición del búfer circular. */
+    private int head = 0;
+    /** Cuadros guardados, como mucho {@link #CAPACITY}. */
+    private int count = 0;
+
+    /** Tiempos del cuadro en curso. */
+    private final long[] current = new long[STAGES];
+    private long frameStart;
+    private long lapStart;
+    private long allocStart;
+    /** Bytes reservados por el hilo, o null si la JVM no lo mide. */
+    private com.sun.management.ThreadMXBean threads;
+    /** Copia ordenable para calcular percentiles sin reservar memoria. */
+    private final long[] scratch = new long[CAPACITY];
+
+    /**
+     * Activa o desactiva la toma de estadísticas. Al activarla se vacía el
+     * búfer para no mezclar cuadros de antes con los nuevos.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            head = 0;
+            count = 0;
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+                threads = (com.sun.management.ThreadMXBean) bean;
+                threads.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+        this.enabled = enabled;
+    }
+
+    /** Indica si se están tomando estadísticas. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Empieza un cuadro; las marcas siguientes se miden desde aquí. */
+    public void beginFrame() {
+        if (enabled) {
+            beginFrame(System.nanoTime());
+        }
+    }
+
+    void beginFrame(long now) {
+        Arrays.fill(current, 0);
+        frameStart = lapStart = now;
+        allocStart = allocatedBytes();
+    }
+
+    /**
+     * Atribuye a {@code stage} el tiempo transcurrido desde la marca
+     * anterior o desde el inicio del cuadro.
+     */
+    public void lap(int stage) {
+        if (enabled) {
+            long now = System.nanoTime();
+            current[stage] += now - lapStart;
+            lapStart = now;
+        }
+    }
+
+    /** Suma a {@code stage} un tiempo medido fuera de las marcas. */
+    public void add(int stage, long nanos) {
+        if (enabled) {
+            current[stage] += nanos;
+        }
+    }
+
+    /**
+     * Pasa de una etapa a otra un tiempo que la marca de {@code from}
+     * incluyó pero pertenece a {@code to}.
+     */
+    public void move(int from, int to, long nanos) {
+        if (enabled) {
+            current[from] -= nanos;
+            current[to] += nanos;
+        }
+    }
+
+    /**
+     * Cierra el cuadro en curso y lo guarda en el búfer circular.
+     *
+     * @param polygonCount polígonos dibujados en el cuadro
+     * @param pixelCount   píxeles escritos al rasterizarlo
+     */
+    public void endFrame(int polygonCount, long pixelCount) {
+        if (enabled) {
+            endFrame(System.nanoTime(), polygonCount, pixelCount);
+        }
+    }
+
+    void endFrame(long now, int polygonCount, long pixelCount) {
+        int slot = head;
+        int base = slot * (STAGES + 1);
+        long total = 0;
+        for (int s = 0; s < STAGES; s++) {
+            nanos[base + s] = current[s];
+            total += current[s];
+        }
+        // El total incluye el tiempo medido fuera de las marcas del cuadro
+        nanos[base + STAGES] = Math.max(total, now - frameStart);
+        starts[slot] = frameStart;
+        polygons[slot] = polygonCount;
+        pixels[slot] = pixelCount;
+        allocated[slot] = allocStart < 0 ? -1 : allocatedBytes() - allocStart;
+        head = (slot + 1) % CAPACITY;
+        if (count < CAPACITY) {
+            count++;
+        }
+    }
+
+    private long allocatedBytes() {
+        return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Cuadros guardados en el búfer. */
+    public int size() {
+        return count;
+    }
+
+    /** Posición del búfer del cuadro {@code age} cuadros anterior al último. */
+    private int slot(int age) {
+        return (head - 1 - age + CAPACITY) % CAPACITY;
+    }
+
+    /**
+     * Percentil de los tiempos guardados de una etapa, por el método del
+     * rango más cercano.
+     *
+     * @param stage etapa, o {@link #TOTAL} para el cuadro completo
+     * @param p     fracción entre 0 y 1, por ejemplo 0.99
+     * @return nanosegundos, o 0 si no hay cuadros
+     */
+    public long percentile(int stage, double p) {
+        if (count == 0) {
+            return 0;
+        }
+        for (int i = 0; i < count; i++) {
+            scratch[i] = nanos[slot(i) * (STAGES + 1) + stage];
+        }
+        Arrays.sort(scratch, 0, count);
+        int rank = (int) Math.ceil(p * count);
+        return scratch[Math.min(Math.max(rank, 1), count) - 1];
+    }
+
+    /** Cuadros empezados en el último segundo antes del más reciente. */
+    public int fps() {
+        if (count == 0) {
+            return 0;
+        }
+        long newest = starts[slot(0)];
+        int frames = 1;
+        while (frames < count && newest - starts[slot(frames)] < FPS_WINDOW) {
+            frames++;
+        }
+        return frames;
+    }
+
+    /** Polígonos dibujados en el último cuadro. */
+    public int lastPolygons() {
+        return count == 0 ? 0 : polygons[slot(0)];
+    }
+
+    /** Píxeles escritos al rasterizar el último cuadro. */
+    public long lastPixels() {
+        return count == 0 ? 0 : pixels[slot(0)];
+    }
+
+    /**
+     * Bytes reservados por el hilo que dibuja durante el último cuadro, o
+     * -1 si la JVM no permite medirlo.
+     */
+    public long lastAllocatedBytes() {
+        return count == 0 ? 0 : allocated[slot(0)];
+    }
+}
@@ -3,14 +3,21 @@ package main;
 /**
  * Utilidad de dibujo por software utilizada por el programa.
  * Provee operaciones básicas para pintar en un {@link BufferedImage} sin
- * utilizar APIs gráficas de alto nivel. Todas las posiciones se traducen
- * usando {@code translateX} y {@code translateY} para permitir desplazamientos
- * temporales.
+ * utilizar APIs gráficas de alto nivel. Los píxeles se escriben directamente
+ * en el arreglo {@code int[]} que respalda la imagen, evitando el recorrido
+ * por el {@code ColorModel} de {@link BufferedImage#setRGB}. Todas las
+ * posiciones se traducen usando {@code translateX} y {@code translateY} para
+ * permitir desplazamientos temporales. Cada primitiva recibe el color como
+ * entero ARGB empaquetado, normalmente tomado de {@link Palette}, o como
+ * {@link Color}.
  */
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Graficos {
 
@@ -20,12 +27,40 @@ public class Graficos {
     private final int HEIGHT;
     /** Imagen que actúa como framebuffer donde se dibuja todo. */
     private BufferedImage buffer;
+    /**
+     * Píxeles del framebuffer en formato RGB empaquetado, fila a fila. Es el
+     * mismo arreglo que respalda a {@link #buffer}, por lo que escribir aquí
+     * modifica la imagen sin conversiones.
+     */
+    private final int[] pixels;
+
+    /** Color de fondo usado por {@link #clear()} en formato RGB empaquetado. */
+    private static final int BACKGROUND = 0x0F110C;
+    /**
+     * Fila completa pintada con el color de fondo. {@link #clear()} la copia
+     * sobre cada fila del lienzo con {@link System#arraycopy}.
+     */
+    private final int[] backgroundRow;
 
     // Variables de traslación aplicadas de forma global a las operaciones
     // de dibujo. Permiten mover temporalmente el origen de coordenadas.
     private int translateX = 0;
     private int translateY = 0;
 
+    // Área propia en coordenadas absolutas: todo el lienzo, o una baldosa en
+    // las vistas de baldosa.
+    private final int areaX0, areaY0, areaX1, areaY1;
+    // Rectángulo de recorte en coordenadas absolutas: las primitivas solo
+    // escriben en [clipX0, clipX1) x [clipY0, clipY1). Es el área propia,
+    // reducida a la región sucia mientras se reproduce un cuadro parcial.
+    private int clipX0, clipY0, clipX1, clipY1;
+
+    // Resolución interna: con divisor 2^resShift todas las coordenadas se
+    // dividen al dibujar y el cuadro ocupa solo la esquina superior
+    // izquierda del lienzo, que el panel amplía al mostrarla.
+    private int resShift = 0;
+    private double resScale = 1.0;
+
     /**
      * Crea un nuevo contexto de dibujo para un área de las dimensiones
      * indicadas.
@@ -36,7 +71,194 @@ public class Graficos {
     public Graficos(int width, int height) {
         this.WIDTH = width;
         this.HEIGHT = height;
-        buffer = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        // Imagen opaca: el panel puede copiarla sin mezclar canales alfa
+        buffer = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+        backgroundRow = new int[WIDTH];
+        Arrays.fill(backgroundRow, BACKGROUND);
+        areaX0 = areaY0 = 0;
+        areaX1 = WIDTH;
+        areaY1 = HEIGHT;
+        clipX1 = WIDTH;
+        clipY1 = HEIGHT;
+    }
+
+    /**
+     * Crea una vista de una baldosa del lienzo {@code parent}. Comparte sus
+     * píxeles, pero tiene su propio recorte y sus propios buffers de trabajo
+     * para poder rasterizar en paralelo con las demás baldosas.
+     */
+    private Graficos(Graficos parent, int x0, int y0, int x1, int y1) {
+        this.WIDTH = parent.WIDTH;
+        this.HEIGHT = parent.HEIGHT;
+        buffer = parent.buffer;
+        pixels = parent.pixels;
+        backgroundRow = parent.backgroundRow;
+        areaX0 = clipX0 = x0;
+        areaY0 = clipY0 = y0;
+        areaX1 = clipX1 = x1;
+        areaY1 = clipY1 = y1;
+    }
+
+    /**
+     * Limita el recorte a la intersección del área propia con el rectángulo
+     * {@code [x0, x1) x [y0, y1)}. Si el rectángulo queda fuera, el recorte
+     * queda vacío.
+     */
+    private void setFrameClip(int x0, int y0, int x1, int y1) {
+        clipX0 = Math.max(areaX0, x0);
+        clipY0 = Math.max(areaY0, y0);
+        clipX1 = Math.max(clipX0, Math.min(areaX1, x1));
+        clipY1 = Math.max(clipY0, Math.min(areaY1, y1));
+    }
+
+
+    // ----- Capa de spans -----
+    // Todas las primitivas de relleno se reducen a tramos horizontales que se
+    // recortan una sola vez contra el lienzo y se rellenan en bloque.
+
+    /**
+     * Rellena el tramo horizontal {@code [x0, x1)} de la fila {@code y} con
+     * un color empaquetado. Las coordenadas son absolutas (ya trasladadas) y
+     * el tramo se recorta contra el rectángulo de recorte antes de escribir.
+     *
+     * @param y   fila del tramo
+     * @param x0  primera columna incluida
+     * @param x1  columna final excluida
+     * @param rgb color en formato RGB empaquetado
+     */
+    private void fillSpan(int y, int x0, int x1, int rgb) {
+        if (y < clipY0 || y >= clipY1) {
+            return;
+        }
+        if (x0 < clipX0) x0 = clipX0;
+        if (x1 > clipX1) x1 = clipX1;
+        if (x0 >= x1) {
+            return;
+        }
+        int row = y * WIDTH;
+        Arrays.fill(pixels, row + x0, row + x1, rgb);
+        pixelsWritten += x1 - x0;
+    }
+
+    // ----- Buffer de profundidad -----
+    // Modo opcional en el que cada píxel guarda la profundidad de lo último
+    // pintado. Además se mantiene, por bloques de 16 píxeles de cada fila,
+    // una cota superior de la profundidad almacenada; si un tramo nuevo queda
+    // entero por detrás de esa cota se descarta sin leer píxel a píxel.
+
+    /** Log2 del ancho de los bloques de rechazo temprano. */
+    private static final int DEPTH_BLOCK_BITS = 4;
+    /** Margen con el que las aristas ganan a la cara sobre la que están. */
+    private static final double LINE_DEPTH_BIAS = 2.0;
+
+    /** Indica si las primitivas con profundidad usan el buffer de Z. */
+    private boolean depthTest = false;
+    /** Profundidad por píxel; se reserva al activar el modo. */
+    private float[] depth;
+    /** Cota superior de profundidad de cada bloque de cada fila. */
+    private float[] depthBlockMax;
+    /** Número de bloques de rechazo por fila. */
+    private int depthBlocksPerRow;
+    /** Plano de profundidad del polígono en curso: z = z0 + dzdx*x + dzdy*y. */
+    private double planeZ0, planeDzDx, planeDzDy;
+    /** Si los tramos del polígono en curso deben pasar la prueba de Z. */
+    private boolean spanDepth = false;
+
+    /**
+     * Activa o desactiva el buffer de profundidad. Al activarlo se reserva
+     * (una sola vez) y se vacía; {@link #clear()} lo vacía en cada cuadro.
+     */
+    public void setDepthTest(boolean enabled) {
+        if (enabled && depth == null) {
+            depth = new float[WIDTH * HEIGHT];
+            depthBlocksPerRow = (WIDTH + (1 << DEPTH_BLOCK_BITS) - 1) >> DEPTH_BLOCK_BITS;
+            depthBlockMax = new float[depthBlocksPerRow * HEIGHT];
+            clearDepth();
+        }
+        depthTest = enabled;
+    }
+
+    /** Indica si el buffer de profundidad está activo. */
+    public boolean isDepthTest() {
+        return depthTest;
+    }
+
+    /** Vacía el buffer de profundidad y las cotas de los bloques. */
+    private void clearDepth() {
+        Arrays.fill(depth, Float.POSITIVE_INFINITY);
+        Arrays.fill(depthBlockMax, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Vacía la profundidad dentro del rectángulo de recorte. Las baldosas
+     * están alineadas a los bloques de rechazo, así que cada bloque
+     * pertenece a una sola baldosa.
+     */
+    private void clearDepthClip() {
+        int b0 = clipX0 >> DEPTH_BLOCK_BITS;
+        int b1 = (clipX1 + (1 << DEPTH_BLOCK_BITS) - 1) >> DEPTH_BLOCK_BITS;
+        for (int y = clipY0; y < clipY1; y++) {
+            Arrays.fill(depth, y * WIDTH + clipX0, y * WIDTH + clipX1, Float.POSITIVE_INFINITY);
+            Arrays.fill(depthBlockMax, y * depthBlocksPerRow + b0, y * depthBlocksPerRow + b1,
+                    Float.POSITIVE_INFINITY);
+        }
+    }
+
+    /**
+     * Variante de {@link #fillSpan} que interpola la profundidad del plano
+     * actual y solo escribe los píxeles más cercanos. Los bloques cuya cota
+     * de profundidad ya está por delante del tramo se saltan completos.
+     */
+    private void fillSpanDepth(int y, int x0, int x1, int rgb) {
+        if (y < clipY0 || y >= clipY1) {
+            return;
+        }
+        if (x0 < clipX0) x0 = clipX0;
+        if (x1 > clipX1) x1 = clipX1;
+        if (x0 >= x1) {
+            return;
+        }
+        int row = y * WIDTH;
+        int blockRow = y * depthBlocksPerRow;
+        double zRow = planeZ0 + planeDzDy * (y + 0.5);
+        int written = 0;
+        int x = x0;
+        while (x < x1) {
+            int b = x >> DEPTH_BLOCK_BITS;
+            int blockStart = b << DEPTH_BLOCK_BITS;
+            int blockEnd = Math.min(blockStart + (1 << DEPTH_BLOCK_BITS), WIDTH);
+            int segEnd = Math.min(blockEnd, x1);
+            float za = (float) (zRow + planeDzDx * (x + 0.5));
+            float zb = (float) (zRow + planeDzDx * (segEnd - 0.5));
+            float segMin = Math.min(za, zb);
+            float segMax = Math.max(za, zb);
+            if (depthBlockMax[blockRow + b] <= segMin) {
+                x = segEnd; // Bloque totalmente ocluido
+                continue;
+            }
+            for (int px = x; px < segEnd; px++) {
+                float z = (float) (zRow + planeDzDx * (px + 0.5));
+                int i = row + px;
+                if (z < depth[i]) {
+                    depth[i] = z;
+                    pixels[i] = rgb;
+                    written++;
+                }
+            }
+            // Si el tramo cubre el bloque entero, ningún píxel del bloque
+            // queda por detrás del punto más lejano del tramo
+            if (x == blockStart && segEnd == blockEnd && segMax < depthBlockMax[blockRow + b]) {
+                depthBlockMax[blockRow + b] = segMax;
+            }
+            x = segEnd;
+        }
+        pixelsWritten += written;
+    }
+
+    /** Variante de {@link #fillRect(int, int, int, int, int)} que recibe un {@link Color}. */
+    public void fillRect(int x0, int y0, int x1, int y1, Color color) {
+        fillRect(x0, y0, x1, y1, color.getRGB());
     }
 
     /**
@@ -46,140 +268,496 @@ public class Graficos {
      * @param y0 coordenada Y inicial
      * @param x1 coordenada X final
      * @param y1 coordenada Y final
-     * @param color color con el que rellenar
+     * @param rgb   color ARGB empaquetado con el que rellenar
      */
-    public void fillRect(int x0, int y0, int x1, int y1, Color color) {
+    public void fillRect(int x0, int y0, int x1, int y1, int rgb) {
         // Ajustar las coordenadas según la traslación actual
-        x0 += translateX;
-        y0 += translateY;
-        x1 += translateX;
-        y1 += translateY;
+        x0 = (x0 + translateX) >> resShift;
+        y0 = (y0 + translateY) >> resShift;
+        x1 = (x1 + translateX) >> resShift;
+        y1 = (y1 + translateY) >> resShift;
 
-        // Normalizar los extremos para recorrer correctamente el área
+        // Normalizar los extremos; el recorte lo hace cada span
         int nx0 = Math.min(x0, x1);
-        int ny0 = Math.min(y0, y1);
         int nx1 = Math.max(x0, x1);
+        int ny0 = Math.min(y0, y1);
         int ny1 = Math.max(y0, y1);
+        if (recording) {
+            commands.addRect(nx0, ny0, nx1, ny1, rgb);
+        } else {
+            rawFillRect(nx0, ny0, nx1, ny1, rgb);
+        }
+    }
 
-        // Rellenar pixel a pixel el área calculada
+    /**
+     * Rellena el rectángulo de extremos incluidos ya trasladados y
+     * normalizados como una serie de tramos horizontales.
+     */
+    void rawFillRect(int x0, int y0, int x1, int y1, int rgb) {
+        int ny0 = Math.max(y0, clipY0);
+        int ny1 = Math.min(y1, clipY1 - 1);
         for (int y = ny0; y <= ny1; y++) {
-            for (int x = nx0; x <= nx1; x++) {
-                putPixel(x, y, color);
-            }
+            fillSpan(y, x0, x1 + 1, rgb);
         }
     }
 
+    /** Variante de {@link #drawRect(int, int, int, int, int)} que recibe un {@link Color}. */
+    public void drawRect(int x0, int y0, int x1, int y1, Color color) {
+        drawRect(x0, y0, x1, y1, color.getRGB());
+    }
+
     /**
      * Dibuja los bordes de un rectángulo utilizando {@link #drawLine}.
      */
-    public void drawRect(int x0, int y0, int x1, int y1, Color color) {
-        drawLine(x0, y0, x1, y0, color);
-        drawLine(x0, y1, x1, y1, color);
-        drawLine(x0, y0, x0, y1, color);
-        drawLine(x1, y0, x1, y1, color);
+    public void drawRect(int x0, int y0, int x1, int y1, int rgb) {
+        drawLine(x0, y0, x1, y0, rgb);
+        drawLine(x0, y1, x1, y1, rgb);
+        drawLine(x0, y0, x0, y1, rgb);
+        drawLine(x1, y0, x1, y1, rgb);
     }
     
     
+    /** Variante de {@link #fillPolygon(int[], int[], int, int)} que recibe un {@link Color}. */
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints, Color color) {
+        fillPolygon(xPoints, yPoints, nPoints, color.getRGB());
+    }
+
     /**
      * Rellena un polígono convexo utilizando el algoritmo de scan-line.
+     * Los vértices enteros se convierten a la misma representación en coma
+     * fija que usa {@link #fillPolygon(double[], double[], int, int)}.
      *
      * @param xPoints arreglo de coordenadas X de los vértices
      * @param yPoints arreglo de coordenadas Y de los vértices
      * @param nPoints número de puntos válidos en los arreglos
-     * @param color   color de relleno
+     * @param rgb     color de relleno, ARGB empaquetado
      */
-    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints, Color color) {
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints, int rgb) {
+        if (nPoints < 3) return;
+        ensureVertexCapacity(nPoints * 2);
+        for (int i = 0; i < nPoints; i++) {
+            polyData[2 * i] = (xPoints[i] + translateX) * resScale;
+            polyData[2 * i + 1] = (yPoints[i] + translateY) * resScale;
+        }
+        submitPolygon(nPoints, false, rgb);
+    }
+
+    /** Variante de {@link #fillPolygon(double[], double[], int, int)} que recibe un {@link Color}. */
+    public void fillPolygon(double[] xPoints, double[] yPoints, int nPoints, Color color) {
+        fillPolygon(xPoints, yPoints, nPoints, color.getRGB());
+    }
+
+    /**
+     * Rellena un polígono convexo con vértices en coordenadas subpíxel. Es la
+     * variante usada por {@link Subcubo#dibujar} para que las pegatinas
+     * vecinas compartan aristas exactas en lugar de truncarlas a enteros.
+     *
+     * @param xPoints arreglo de coordenadas X de los vértices
+     * @param yPoints arreglo de coordenadas Y de los vértices
+     * @param nPoints número de puntos válidos en los arreglos
+     * @param rgb     color de relleno, ARGB empaquetado
+     */
+    public void fillPolygon(double[] xPoints, double[] yPoints, int nPoints, int rgb) {
         if (nPoints < 3) return;
-        
-        // Aplicar la traslación a todos los puntos para trabajar con
-        // coordenadas absolutas, manteniendo coherencia con otros métodos
-        int[] tx = new int[nPoints];
-        int[] ty = new int[nPoints];
+        ensureVertexCapacity(nPoints * 2);
         for (int i = 0; i < nPoints; i++) {
-            tx[i] = xPoints[i] + translateX;
-            ty[i] = yPoints[i] + translateY;
+            polyData[2 * i] = (xPoints[i] + translateX) * resScale;
+            polyData[2 * i + 1] = (yPoints[i] + translateY) * resScale;
         }
+        submitPolygon(nPoints, false, rgb);
+    }
 
-        // Determinar el rango vertical del polígono usando los puntos traducidos
-        int minY = HEIGHT - 1, maxY = 0;
+    /** Variante de {@link #fillPolygon(double[], double[], double[], int, int)} que recibe un {@link Color}. */
+    public void fillPolygon(double[] xPoints, double[] yPoints, double[] zPoints, int nPoints, Color color) {
+        fillPolygon(xPoints, yPoints, zPoints, nPoints, color.getRGB());
+    }
+
+    /**
+     * Rellena un polígono convexo plano con prueba de profundidad. La
+     * profundidad de cada píxel se interpola sobre el plano que forman los
+     * vértices y solo se pinta donde queda más cerca (menor Z) que lo ya
+     * dibujado, por lo que las caras pueden enviarse en cualquier orden. Si
+     * el buffer de profundidad está desactivado equivale a
+     * {@link #fillPolygon(double[], double[], int, int)}.
+     *
+     * @param xPoints arreglo de coordenadas X de los vértices
+     * @param yPoints arreglo de coordenadas Y de los vértices
+     * @param zPoints profundidad de cada vértice (menor es más cercano)
+     * @param nPoints número de puntos válidos en los arreglos
+     * @param rgb     color de relleno, ARGB empaquetado
+     */
+    public void fillPolygon(double[] xPoints, double[] yPoints, double[] zPoints, int nPoints, int rgb) {
+        if (!depthTest) {
+            fillPolygon(xPoints, yPoints, nPoints, rgb);
+            return;
+        }
+        if (nPoints < 3) return;
+        ensureVertexCapacity(nPoints * 3);
         for (int i = 0; i < nPoints; i++) {
-            if (ty[i] < minY) minY = ty[i];
-            if (ty[i] > maxY) maxY = ty[i];
-        }
-
-        // Escanear líneas
-        for (int y = minY; y <= maxY; y++) {
-            // Lista temporal de intersecciones con la línea actual
-            int[] nodes = new int[nPoints];
-            int nodesCount = 0;
-            int j = nPoints - 1;
-            for (int i = 0; i < nPoints; i++) {
-                // Comprobar si la arista cruza la línea actual
-                if ((ty[i] < y && ty[j] >= y) || (ty[j] < y && ty[i] >= y)) {
-                    nodes[nodesCount++] = (tx[i] + (y - ty[i]) * (tx[j] - tx[i]) / (ty[j] - ty[i]));
+            polyData[3 * i] = (xPoints[i] + translateX) * resScale;
+            polyData[3 * i + 1] = (yPoints[i] + translateY) * resScale;
+            polyData[3 * i + 2] = zPoints[i];
+        }
+        submitPolygon(nPoints, true, rgb);
+    }
+
+    /** Vértices trasladados del polígono en curso: (x, y) o (x, y, z). */
+    private double[] polyData = new double[12];
+
+    private void ensureVertexCapacity(int n) {
+        if (polyData.length < n) {
+            polyData = new double[n];
+        }
+    }
+
+    /** Graba o rasteriza el polígono cargado en {@link #polyData}. */
+    private void submitPolygon(int n, boolean withDepth, int rgb) {
+        polygonCount++;
+        if (recording) {
+            commands.addPolygon(polyData, n, withDepth, rgb);
+        } else {
+            rawFillPolygon(polyData, 0, n, withDepth, rgb);
+        }
+    }
+
+    /**
+     * Rellena un polígono cuyos vértices, ya trasladados, están intercalados
+     * en {@code data} a partir de {@code offset}: dos valores por vértice, o
+     * tres si lleva profundidad. Tanto el dibujo directo como la reproducción
+     * por baldosas pasan por aquí, de modo que ambos producen los mismos
+     * píxeles.
+     */
+    void rawFillPolygon(double[] data, int offset, int n, boolean withDepth, int rgb) {
+        int stride = withDepth ? 3 : 2;
+        if (withDepth) {
+            // Plano z = z0 + dzdx * x + dzdy * y a partir de la normal de Newell
+            double nx = 0, ny = 0, nz = 0, cx = 0, cy = 0, cz = 0;
+            int j = n - 1;
+            for (int i = 0; i < n; j = i++) {
+                int a = offset + j * 3, b = offset + i * 3;
+                nx += (data[a + 1] - data[b + 1]) * (data[a + 2] + data[b + 2]);
+                ny += (data[a + 2] - data[b + 2]) * (data[a] + data[b]);
+                nz += (data[a] - data[b]) * (data[a + 1] + data[b + 1]);
+                cx += data[b];
+                cy += data[b + 1];
+                cz += data[b + 2];
+            }
+            if (Math.abs(nz) < 1e-9) {
+                return; // Polígono de canto: no ocupa área en pantalla
+            }
+            cx /= n;
+            cy /= n;
+            cz /= n;
+            planeDzDx = -nx / nz;
+            planeDzDy = -ny / nz;
+            planeZ0 = cz - planeDzDx * cx - planeDzDy * cy;
+        }
+
+        ensurePolygonCapacity(n);
+        for (int i = 0; i < n; i++) {
+            polyFx[i] = toFixed(data[offset + i * stride]);
+            polyFy[i] = toFixed(data[offset + i * stride + 1]);
+        }
+        spanDepth = withDepth;
+        rasterizePolygon(n, rgb);
+        spanDepth = false;
+    }
+
+    // ----- Rasterizador de polígonos por tabla de aristas -----
+    // Los vértices se guardan en coma fija 28.4 y la posición X de cada arista
+    // avanza en coma fija 16.16. Un píxel se pinta cuando su centro
+    // (x + 0.5, y + 0.5) cae dentro del polígono, incluyendo las aristas
+    // superiores e izquierdas y excluyendo las inferiores y derechas, de modo
+    // que dos polígonos que comparten una arista nunca pintan el mismo píxel
+    // ni dejan huecos entre ellos.
+
+    /** Bits de precisión subpíxel de los vértices. */
+    private static final int SUBPIXEL_BITS = 4;
+    /** Una unidad de píxel en coma fija 28.4. */
+    private static final int SUBPIXEL_ONE = 1 << SUBPIXEL_BITS;
+    /** Medio píxel en coma fija 28.4 (posición del centro del píxel). */
+    private static final int SUBPIXEL_HALF = SUBPIXEL_ONE >> 1;
+    /** Medio píxel en coma fija 16.16. */
+    private static final long FIXED_HALF = 1L << 15;
+    /** Un píxel menos una unidad en coma fija 16.16, para redondear hacia arriba. */
+    private static final long FIXED_CEIL = (1L << 16) - 1;
+
+    // Buffers reutilizables entre llamadas: vértices en coma fija y la tabla
+    // de aristas (fila inicial, fila final excluida, X actual y pendiente).
+    private int[] polyFx = new int[4];
+    private int[] polyFy = new int[4];
+    private int[] edgeYStart = new int[4];
+    private int[] edgeYEnd = new int[4];
+    private long[] edgeX = new long[4];
+    private long[] edgeStep = new long[4];
+    /** Índices de las aristas ordenadas por fila inicial. */
+    private int[] edgeOrder = new int[4];
+    /** Aristas activas en la fila actual. */
+    private int[] activeEdges = new int[4];
+    /** Intersecciones de la fila actual en coma fija 16.16. */
+    private long[] crossings = new long[4];
+
+    /** Convierte una coordenada en píxeles a coma fija 28.4 redondeando. */
+    private static int toFixed(double v) {
+        return (int) Math.floor(v * SUBPIXEL_ONE + 0.5);
+    }
+
+    /**
+     * Amplía los buffers de trabajo si el polígono tiene más vértices que la
+     * capacidad actual. Con cuadriláteros nunca reserva memoria.
+     */
+    private void ensurePolygonCapacity(int n) {
+        if (polyFx.length >= n) {
+            return;
+        }
+        polyFx = new int[n];
+        polyFy = new int[n];
+        edgeYStart = new int[n];
+        edgeYEnd = new int[n];
+        edgeX = new long[n];
+        edgeStep = new long[n];
+        edgeOrder = new int[n];
+        activeEdges = new int[n];
+        crossings = new long[n];
+    }
+
+    /**
+     * Rasteriza el polígono cargado en {@link #polyFx}/{@link #polyFy}.
+     * Construye la tabla de aristas una sola vez, la ordena por fila inicial
+     * y recorre las filas manteniendo la lista de aristas activas, cuyas
+     * intersecciones avanzan de forma incremental.
+     */
+    private void rasterizePolygon(int n, int rgb) {
+        // Construir la tabla de aristas, orientadas siempre de arriba abajo
+        // para que una arista compartida produzca exactamente las mismas
+        // intersecciones en los dos polígonos que la usan.
+        int edges = 0;
+        int j = n - 1;
+        for (int i = 0; i < n; j = i++) {
+            int xa = polyFx[j], ya = polyFy[j];
+            int xb = polyFx[i], yb = polyFy[i];
+            if (ya == yb) {
+                continue; // Las aristas horizontales no cruzan centros de fila
+            }
+            if (ya > yb) {
+                int t = xa; xa = xb; xb = t;
+                t = ya; ya = yb; yb = t;
+            }
+            // Primera fila cuyo centro está en o por debajo del extremo
+            // superior y primera fila cuyo centro alcanza el inferior
+            int yStart = (ya - SUBPIXEL_HALF + SUBPIXEL_ONE - 1) >> SUBPIXEL_BITS;
+            int yEnd = (yb - SUBPIXEL_HALF + SUBPIXEL_ONE - 1) >> SUBPIXEL_BITS;
+            if (yStart >= yEnd || yEnd <= clipY0 || yStart >= clipY1) {
+                continue;
+            }
+            long dx = xb - xa;
+            long dy = yb - ya;
+            long step = Math.floorDiv(dx << 16, dy);
+            long yCenter = ((long) yStart << SUBPIXEL_BITS) + SUBPIXEL_HALF;
+            edgeX[edges] = ((long) xa << (16 - SUBPIXEL_BITS))
+                    + Math.floorDiv((yCenter - ya) * dx << (16 - SUBPIXEL_BITS), dy);
+            edgeStep[edges] = step;
+            edgeYStart[edges] = yStart;
+            edgeYEnd[edges] = Math.min(yEnd, clipY1);
+            // Inserción ordenada por fila inicial
+            int k = edges;
+            while (k > 0 && edgeYStart[edgeOrder[k - 1]] > yStart) {
+                edgeOrder[k] = edgeOrder[k - 1];
+                k--;
+            }
+            edgeOrder[k] = edges;
+            edges++;
+        }
+        if (edges < 2) {
+            return;
+        }
+
+        int y = Math.max(edgeYStart[edgeOrder[0]], clipY0);
+        int next = 0;
+        int active = 0;
+        while (next < edges || active > 0) {
+            // Incorporar las aristas que empiezan en esta fila (o antes, si
+            // quedaron por encima del recorte)
+            while (next < edges && edgeYStart[edgeOrder[next]] <= y) {
+                int e = edgeOrder[next++];
+                if (edgeYStart[e] < y) {
+                    edgeX[e] += edgeStep[e] * (y - edgeYStart[e]);
                 }
-                j = i;
-            }
-
-            // Ordenar nodos
-            // Ordenar las intersecciones de izquierda a derecha
-            Arrays.sort(nodes, 0, nodesCount);
-
-            // Dibujar las líneas entre los pares de nodos
-            // Rellenar la línea entre cada par de intersecciones
-            for (int i = 0; i < nodesCount; i += 2) {
-                if (nodes[i] >= WIDTH) break;
-                if (nodes[i + 1] > 0) {
-                    if (nodes[i] < 0) nodes[i] = 0;
-                    if (nodes[i + 1] > WIDTH) nodes[i + 1] = WIDTH;
-                    for (int x = nodes[i]; x < nodes[i + 1]; x++) {
-                        putPixel(x, y, color);
-                    }
+                activeEdges[active++] = e;
+            }
+            // Retirar las aristas que ya terminaron
+            int count = 0;
+            for (int a = 0; a < active; a++) {
+                int e = activeEdges[a];
+                if (edgeYEnd[e] > y) {
+                    activeEdges[count++] = e;
+                }
+            }
+            active = count;
+            if (active == 0) {
+                if (next >= edges) {
+                    break;
+                }
+                y = Math.max(edgeYStart[edgeOrder[next]], clipY0);
+                continue;
+            }
+            if (y >= clipY1) {
+                break;
+            }
+
+            // Ordenar las intersecciones (normalmente solo dos) y rellenar
+            // los tramos entre pares
+            for (int a = 0; a < active; a++) {
+                long x = edgeX[activeEdges[a]];
+                int k = a;
+                while (k > 0 && crossings[k - 1] > x) {
+                    crossings[k] = crossings[k - 1];
+                    k--;
+                }
+                crossings[k] = x;
+            }
+            for (int a = 0; a + 1 < active; a += 2) {
+                int xl = (int) ((crossings[a] - FIXED_HALF + FIXED_CEIL) >> 16);
+                int xr = (int) ((crossings[a + 1] - FIXED_HALF + FIXED_CEIL) >> 16);
+                if (spanDepth) {
+                    fillSpanDepth(y, xl, xr, rgb);
+                } else {
+                    fillSpan(y, xl, xr, rgb);
                 }
             }
+            for (int a = 0; a < active; a++) {
+                int e = activeEdges[a];
+                edgeX[e] += edgeStep[e];
+            }
+            y++;
         }
     }
 
+    /** Variante de {@link #drawLine(int, int, int, int, int)} que recibe un {@link Color}. */
+    public void drawLine(int x1, int y1, int x2, int y2, Color color) {
+        drawLine(x1, y1, x2, y2, color.getRGB());
+    }
+
     /**
      * Dibuja una línea usando el algoritmo de Bresenham.
      */
-    public void drawLine(int x1, int y1, int x2, int y2, Color color) {
-        x1 += translateX;
-        y1 += translateY;
-        x2 += translateX;
-        y2 += translateY;
+    public void drawLine(int x1, int y1, int x2, int y2, int rgb) {
+        x1 = (x1 + translateX) >> resShift;
+        y1 = (y1 + translateY) >> resShift;
+        x2 = (x2 + translateX) >> resShift;
+        y2 = (y2 + translateY) >> resShift;
+        if (recording) {
+            commands.addLine(x1, y1, 0, x2, y2, 0, false, rgb);
+        } else {
+            rawDrawLine(x1, y1, x2, y2, rgb);
+        }
+    }
 
+    /** Traza con Bresenham una línea de extremos ya trasladados. */
+    void rawDrawLine(int x1, int y1, int x2, int y2, int rgb) {
         int dx = Math.abs(x2 - x1);
         int dy = Math.abs(y2 - y1);
         int sx = x1 < x2 ? 1 : -1;
         int sy = y1 < y2 ? 1 : -1;
         int err = dx - dy;
 
+        // Los píxeles consecutivos de una misma fila forman un tramo que se
+        // escribe de una vez al cambiar de fila o al alcanzar el destino.
+        int runStart = x1;
         while (true) {
-            putPixel(x1, y1, color);
-
             // Si se alcanzó el destino se termina
             if (x1 == x2 && y1 == y2) {
+                fillSpan(y1, Math.min(runStart, x1), Math.max(runStart, x1) + 1, rgb);
                 break;
             }
 
             int e2 = 2 * err;
+            int prevX = x1;
             if (e2 > -dy) { // Ajuste horizontal
                 err -= dy;
                 x1 += sx;
             }
             if (e2 < dx) { // Ajuste vertical
+                fillSpan(y1, Math.min(runStart, prevX), Math.max(runStart, prevX) + 1, rgb);
                 err += dx;
                 y1 += sy;
+                runStart = x1;
             }
         }
     }
 
+    /** Variante de {@link #drawLine(int, int, double, int, int, double, int)} que recibe un {@link Color}. */
+    public void drawLine(int x1, int y1, double z1, int x2, int y2, double z2, Color color) {
+        drawLine(x1, y1, z1, x2, y2, z2, color.getRGB());
+    }
+
+    /**
+     * Dibuja una línea con prueba de profundidad. La profundidad se interpola
+     * a lo largo de la línea y cada píxel se pinta solo si no queda detrás de
+     * lo ya dibujado; las líneas no escriben en el buffer de profundidad. Sin
+     * buffer de profundidad equivale a {@link #drawLine(int, int, int, int, int)}.
+     */
+    public void drawLine(int x1, int y1, double z1, int x2, int y2, double z2, int rgb) {
+        if (!depthTest) {
+            drawLine(x1, y1, x2, y2, rgb);
+            return;
+        }
+        x1 = (x1 + translateX) >> resShift;
+        y1 = (y1 + translateY) >> resShift;
+        x2 = (x2 + translateX) >> resShift;
+        y2 = (y2 + translateY) >> resShift;
+        if (recording) {
+            commands.addLine(x1, y1, z1, x2, y2, z2, true, rgb);
+        } else {
+            rawDrawLineDepth(x1, y1, z1, x2, y2, z2, rgb);
+        }
+    }
+
+    /** Traza una línea con prueba de profundidad de extremos ya trasladados. */
+    void rawDrawLineDepth(int x1, int y1, double z1, int x2, int y2, double z2, int rgb) {
+        int dx = Math.abs(x2 - x1);
+        int dy = Math.abs(y2 - y1);
+        int sx = x1 < x2 ? 1 : -1;
+        int sy = y1 < y2 ? 1 : -1;
+        int err = dx - dy;
+        int steps = Math.max(dx, dy);
+        double dz = steps == 0 ? 0 : (z2 - z1) / steps;
+        double z = z1;
+
+        while (true) {
+            if (x1 >= clipX0 && x1 < clipX1 && y1 >= clipY0 && y1 < clipY1) {
+                int i = y1 * WIDTH + x1;
+                if (z - LINE_DEPTH_BIAS < depth[i]) {
+                    pixels[i] = rgb;
+                    pixelsWritten++;
+                }
+            }
+            if (x1 == x2 && y1 == y2) {
+                break;
+            }
+            int e2 = 2 * err;
+            if (e2 > -dy) {
+                err -= dy;
+                x1 += sx;
+            }
+            if (e2 < dx) {
+                err += dx;
+                y1 += sy;
+            }
+            z += dz;
+        }
+    }
+
+    /** Variante de {@link #drawThickLine(int, int, int, int, int, int)} que recibe un {@link Color}. */
+    public void drawThickLine(int x0, int y0, int x1, int y1, int thickness, Color color) {
+        drawThickLine(x0, y0, x1, y1, thickness, color.getRGB());
+    }
+
     /**
      * Dibuja una línea con grosor calculando desplazamientos perpendiculares
      * a la dirección original.
      */
-    public void drawThickLine(int x0, int y0, int x1, int y1, int thickness, Color color) {
+    public void drawThickLine(int x0, int y0, int x1, int y1, int thickness, int rgb) {
         int dx = x1 - x0;
         int dy = y1 - y0;
         double distance = Math.sqrt(dx * dx + dy * dy);
@@ -188,7 +766,7 @@ public class Graficos {
         // Si la distancia es cero, dibuja un pequeño cuadrado y termina
         if (distance == 0) {
             fillRect(x0 - halfThickness, y0 - halfThickness,
-                     x0 + halfThickness, y0 + halfThickness, color);
+                     x0 + halfThickness, y0 + halfThickness, rgb);
             return;
         }
 
@@ -198,64 +776,111 @@ public class Graficos {
         for (int i = -halfThickness; i <= halfThickness; i++) {
             int xOffset = (int) (i * unitDy);   // desplazamiento perpendicular en X
             int yOffset = (int) (i * unitDx);   // desplazamiento perpendicular en Y
-            drawLine(x0 + xOffset, y0 - yOffset, x1 + xOffset, y1 - yOffset, color);
+            drawLine(x0 + xOffset, y0 - yOffset, x1 + xOffset, y1 - yOffset, rgb);
         }
     }
 
+    /** Variante de {@link #fillCircle(int, int, int, int)} que recibe un {@link Color}. */
+    public void fillCircle(int x0, int y0, int RADIO, Color fillColor) {
+        fillCircle(x0, y0, RADIO, fillColor.getRGB());
+    }
+
     /**
      * Rellena un círculo completo comprobando cada píxel dentro del radio.
      */
-    public void fillCircle(int x0, int y0, int RADIO, Color fillColor) {
+    public void fillCircle(int x0, int y0, int RADIO, int rgb) {
         // Aplicar traslación a la posición base
-        x0 += translateX;
-        y0 += translateY;
+        x0 = (x0 + translateX) >> resShift;
+        y0 = (y0 + translateY) >> resShift;
+        if (recording) {
+            commands.addShape(DisplayList.FILL_CIRCLE, x0, y0, RADIO >> resShift, 0, rgb);
+        } else {
+            rawFillCircle(x0, y0, RADIO >> resShift, rgb);
+        }
+    }
 
+    /** Rellena un círculo de centro ya trasladado. */
+    void rawFillCircle(int x0, int y0, int RADIO, int rgb) {
         // Calcular el cuadrado del radio una única vez
         int rSquared = RADIO * RADIO;
 
-        // Recorremos un cuadrado que circunscribe al círculo
-        for (int y = y0 - RADIO; y <= y0 + RADIO; y++) {
-            for (int x = x0 - RADIO; x <= x0 + RADIO; x++) {
-                int dx = x - x0;
-                int dy = y - y0;
-                if (dx * dx + dy * dy <= rSquared) {
-                    putPixel(x, y, fillColor);
-                }
-            }
+        // Cada fila del círculo es un único tramo de semiancho
+        // floor(sqrt(r² - dy²)), el mismo conjunto de píxeles que cumple
+        // dx² + dy² <= r²
+        int yStart = Math.max(y0 - RADIO, clipY0);
+        int yEnd = Math.min(y0 + RADIO, clipY1 - 1);
+        for (int y = yStart; y <= yEnd; y++) {
+            int dy = y - y0;
+            int rem = rSquared - dy * dy;
+            int half = (int) Math.sqrt(rem);
+            // Corregir posibles errores de redondeo de la raíz en coma flotante
+            while (half * half > rem) half--;
+            while ((half + 1) * (half + 1) <= rem) half++;
+            fillSpan(y, x0 - half, x0 + half + 1, rgb);
         }
     }
 
+    /** Variante de {@link #drawCircle(int, int, int, int)} que recibe un {@link Color}. */
+    public void drawCircle(int x0, int y0, int RADIO, Color color) {
+        drawCircle(x0, y0, RADIO, color.getRGB());
+    }
+
     /**
      * Dibuja la circunferencia de un círculo mediante simetría octogonal.
      */
-    public void drawCircle(int x0, int y0, int RADIO, Color color) {
+    public void drawCircle(int x0, int y0, int RADIO, int rgb) {
         // Aplicar traslación a la posición base
-        x0 += translateX;
-        y0 += translateY;
+        x0 = (x0 + translateX) >> resShift;
+        y0 = (y0 + translateY) >> resShift;
+        if (recording) {
+            commands.addShape(DisplayList.CIRCLE, x0, y0, RADIO >> resShift, 0, rgb);
+        } else {
+            rawDrawCircle(x0, y0, RADIO >> resShift, rgb);
+        }
+    }
 
+    /** Dibuja una circunferencia de centro ya trasladado. */
+    void rawDrawCircle(int x0, int y0, int RADIO, int rgb) {
         // Solo calculamos 1/8 del círculo y repetimos por simetría
         for (int t = 0; t <= 45; t++) {
             int x = (int) (RADIO * Math.sin(Math.toRadians(t)));
             int y = (int) (RADIO * Math.cos(Math.toRadians(t)));
 
             // Octantes positivos
-            putPixel(x0 + x, y0 + y, color);
-            putPixel(x0 + y, y0 + x, color);
-            putPixel(x0 + y, y0 - x, color);
-            putPixel(x0 + x, y0 - y, color);
+            plot(x0 + x, y0 + y, rgb);
+            plot(x0 + y, y0 + x, rgb);
+            plot(x0 + y, y0 - x, rgb);
+            plot(x0 + x, y0 - y, rgb);
 
             // Octantes negativos
-            putPixel(x0 - x, y0 - y, color);
-            putPixel(x0 - y, y0 - x, color);
-            putPixel(x0 - y, y0 + x, color);
-            putPixel(x0 - x, y0 + y, color);
+            plot(x0 - x, y0 - y, rgb);
+            plot(x0 - y, y0 - x, rgb);
+            plot(x0 - y, y0 + x, rgb);
+            plot(x0 - x, y0 + y, rgb);
         }
     }
 
+    /** Variante de {@link #drawDottedCircle(int, int, int, int)} que recibe un {@link Color}. */
+    public void drawDottedCircle(int x0, int y0, int radio, Color color) {
+        drawDottedCircle(x0, y0, radio, color.getRGB());
+    }
+
     /**
      * Dibuja la circunferencia de un círculo con un patrón de puntos.
      */
-    public void drawDottedCircle(int x0, int y0, int radio, Color color) {
+    public void drawDottedCircle(int x0, int y0, int radio, int rgb) {
+        // Aplicar traslación al centro
+        x0 = (x0 + translateX) >> resShift;
+        y0 = (y0 + translateY) >> resShift;
+        if (recording) {
+            commands.addShape(DisplayList.DOTTED_CIRCLE, x0, y0, radio >> resShift, 0, rgb);
+        } else {
+            rawDrawDottedCircle(x0, y0, radio >> resShift, rgb);
+        }
+    }
+
+    /** Dibuja una circunferencia punteada de centro ya trasladado. */
+    void rawDrawDottedCircle(int x0, int y0, int radio, int rgb) {
         int x = 0;
         int y = radio;
         int d = 3 - 2 * radio; // Parámetro de decisión
@@ -263,7 +888,7 @@ public class Graficos {
 
         while (x <= y) {
             if (counter % 10 < 5) { // Controla el patrón de puntos
-                drawDots(x0, y0, x, y, color);
+                drawDots(x0, y0, x, y, rgb);
             }
             counter++;
 
@@ -275,7 +900,7 @@ public class Graficos {
                 d = d + 4 * (x - y) + 10;
             }
             if (counter % 10 < 5) { // Controla el patrón de puntos
-                drawDots(x0, y0, x, y, color);
+                drawDots(x0, y0, x, y, rgb);
             }
         }
     }
@@ -283,32 +908,41 @@ public class Graficos {
     /**
      * Pinta los ocho puntos simétricos de un círculo.
      */
-    private void drawDots(int xc, int yc, int x, int y, Color c) {
-        // Aplicar traslación al centro
-        xc += translateX;
-        yc += translateY;
+    private void drawDots(int xc, int yc, int x, int y, int rgb) {
+        plot(xc + x, yc + y, rgb);
+        plot(xc - x, yc + y, rgb);
+        plot(xc + x, yc - y, rgb);
+        plot(xc - x, yc - y, rgb);
+        plot(xc + y, yc + x, rgb);
+        plot(xc - y, yc + x, rgb);
+        plot(xc + y, yc - x, rgb);
+        plot(xc - y, yc - x, rgb);
+    }
 
-        putPixel(xc + x, yc + y, c);
-        putPixel(xc - x, yc + y, c);
-        putPixel(xc + x, yc - y, c);
-        putPixel(xc - x, yc - y, c);
-        putPixel(xc + y, yc + x, c);
-        putPixel(xc - y, yc + x, c);
-        putPixel(xc + y, yc - x, c);
-        putPixel(xc - y, yc - x, c);
+    /** Variante de {@link #drawOval(int, int, int, int, int)} que recibe un {@link Color}. */
+    public void drawOval(int x0, int y0, int x1, int y1, Color color) {
+        drawOval(x0, y0, x1, y1, color.getRGB());
     }
 
     /**
      * Dibuja la circunferencia de una elipse mediante el algoritmo de
      * Bresenham para elipses.
      */
-    public void drawOval(int x0, int y0, int x1, int y1, Color color) {
+    public void drawOval(int x0, int y0, int x1, int y1, int rgb) {
         // Aplicar traslación a las posiciones base
-        x0 += translateX;
-        y0 += translateY;
-        x1 += translateX;
-        y1 += translateY;
+        x0 = (x0 + translateX) >> resShift;
+        y0 = (y0 + translateY) >> resShift;
+        x1 = (x1 + translateX) >> resShift;
+        y1 = (y1 + translateY) >> resShift;
+        if (recording) {
+            commands.addShape(DisplayList.OVAL, x0, y0, x1, y1, rgb);
+        } else {
+            rawDrawOval(x0, y0, x1, y1, rgb);
+        }
+    }
 
+    /** Dibuja una elipse inscrita en un rectángulo ya trasladado. */
+    void rawDrawOval(int x0, int y0, int x1, int y1, int rgb) {
         int a = Math.abs(x1 - x0) / 2;
         int b = Math.abs(y1 - y0) / 2;
         int xCenter = (x0 + x1) / 2;
@@ -320,15 +954,13 @@ public class Graficos {
         int bSquared = b * b;
         int twoASquared = 2 * aSquared;
         int twoBSquared = 2 * bSquared;
-        int xChange = bSquared * (1 - 2 * a) + 2 * aSquared * y;
-        int yChange = aSquared * (1 + 2 * b) - 2 * bSquared * x;
         int ellipseError = (int) (bSquared - aSquared * b + 0.25 * aSquared);
 
         while (x * bSquared <= y * aSquared) {
-            putPixel(xCenter + x, yCenter + y, color);
-            putPixel(xCenter - x, yCenter + y, color);
-            putPixel(xCenter + x, yCenter - y, color);
-            putPixel(xCenter - x, yCenter - y, color);
+            plot(xCenter + x, yCenter + y, rgb);
+            plot(xCenter - x, yCenter + y, rgb);
+            plot(xCenter + x, yCenter - y, rgb);
+            plot(xCenter - x, yCenter - y, rgb);
 
             x++;
             if (ellipseError < 0) {
@@ -341,15 +973,13 @@ public class Graficos {
 
         x = a;
         y = 0;
-        xChange = aSquared * (1 - 2 * b) + 2 * bSquared * x;
-        yChange = bSquared * (1 + 2 * a) - 2 * aSquared * y;
         ellipseError = (int) (aSquared - bSquared * a + 0.25 * bSquared);
 
         while (x * bSquared > y * aSquared) {
-            putPixel(xCenter + x, yCenter + y, color);
-            putPixel(xCenter - x, yCenter + y, color);
-            putPixel(xCenter + x, yCenter - y, color);
-            putPixel(xCenter - x, yCenter - y, color);
+            plot(xCenter + x, yCenter + y, rgb);
+            plot(xCenter - x, yCenter + y, rgb);
+            plot(xCenter + x, yCenter - y, rgb);
+            plot(xCenter - x, yCenter - y, rgb);
 
             y++;
             if (ellipseError < 0) {
@@ -362,16 +992,610 @@ public class Graficos {
 
     }
 
+    /** Variante de {@link #putPixel(int, int, int)} que recibe un {@link Color}. */
+    public void putPixel(int x, int y, Color color) {
+        putPixel(x, y, color.getRGB());
+    }
+
     /**
      * Coloca un único píxel en el buffer si las coordenadas están dentro del
      * área válida.
      */
-    public void putPixel(int x, int y, Color color) {
-        if (x >= 0 && x < buffer.getWidth() && y >= 0 && y < buffer.getHeight()) {
-            buffer.setRGB(x, y, color.getRGB());
+    public void putPixel(int x, int y, int rgb) {
+        x >>= resShift;
+        y >>= resShift;
+        if (recording) {
+            commands.addShape(DisplayList.PIXEL, x, y, 0, 0, rgb);
+        } else {
+            plot(x, y, rgb);
+        }
+    }
+
+    /** Coloca un píxel ya empaquetado; lo usan los comandos grabados. */
+    void rawPutPixel(int x, int y, int rgb) {
+        plot(x, y, rgb);
+    }
+
+    /**
+     * Escribe un texto con la fuente de {@link PixelFont}. Cada carácter se
+     * pinta como los tramos ya rasterizados de su glifo, y al grabar el
+     * cuadro todo el texto ocupa un único comando.
+     *
+     * @param text  texto a dibujar; las minúsculas se muestran en mayúsculas
+     * @param x     esquina izquierda del primer carácter
+     * @param y     esquina superior del texto
+     * @param scale tamaño en píxeles de cada punto de la fuente
+     * @param rgb   color ARGB empaquetado
+     */
+    public void drawText(CharSequence text, int x, int y, int scale, int rgb) {
+        int n = text.length();
+        if (n == 0) {
+            return;
+        }
+        x = (x + translateX) >> resShift;
+        y = (y + translateY) >> resShift;
+        scale = Math.max(1, scale >> resShift);
+        if (recording) {
+            commands.addText(text, x, y, scale, rgb);
+        } else {
+            for (int k = 0; k < n; k++) {
+                rawDrawGlyph(text.charAt(k), x + k * PixelFont.ADVANCE * scale, y, scale, rgb);
+            }
+        }
+    }
+
+    /**
+     * Crea una {@link Overlay} con lo dibujado en este lienzo. Pensado para
+     * un lienzo auxiliar recién creado, cuyos píxeles empiezan transparentes.
+     */
+    public Overlay toOverlay() {
+        return new Overlay(pixels, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Compone una capa retenida sobre el cuadro, desplazada por la traslación
+     * actual. Solo se copian sus píxeles opacos.
+     */
+    public void drawOverlay(Overlay overlay) {
+        if (overlay.isEmpty()) {
+            return;
+        }
+        if (recording) {
+            commands.addOverlay(overlay, translateX, translateY, resShift);
+        } else {
+            rawDrawOverlay(overlay, translateX, translateY, resShift);
+        }
+    }
+
+    /**
+     * Copia los tramos de una capa, recortados, desplazados (dx, dy) en
+     * píxeles de resolución completa. Con {@code shift > 0} el cuadro se
+     * dibuja a resolución reducida y solo se toma un píxel de cada bloque de
+     * {@code 2^shift} de lado.
+     */
+    void rawDrawOverlay(Overlay overlay, int dx, int dy, int shift) {
+        int[] runs = overlay.runs;
+        int mask = (1 << shift) - 1;
+        for (int r = 0; r < overlay.lengths.length; r++) {
+            int fy = runs[r * 3] + dy;
+            int y = fy >> shift;
+            if ((fy & mask) != 0 || y < clipY0 || y >= clipY1) {
+                continue;
+            }
+            int fx0 = runs[r * 3 + 1] + dx;
+            int src = runs[r * 3 + 2];
+            if (shift == 0) {
+                int x0 = fx0;
+                int x1 = x0 + overlay.lengths[r];
+                if (x0 < clipX0) {
+                    src += clipX0 - x0;
+                    x0 = clipX0;
+                }
+                if (x1 > clipX1) x1 = clipX1;
+                if (x0 < x1) {
+                    System.arraycopy(overlay.colors, src, pixels, y * WIDTH + x0, x1 - x0);
+                    pixelsWritten += x1 - x0;
+                }
+                continue;
+            }
+            int row = y * WIDTH;
+            for (int k = (-fx0) & mask; k < overlay.lengths[r]; k += 1 << shift) {
+                int x = (fx0 + k) >> shift;
+                if (x >= clipX0 && x < clipX1) {
+                    pixels[row + x] = overlay.colors[src + k];
+                    pixelsWritten++;
+                }
+            }
+        }
+    }
+
+    /** Pinta los tramos de un glifo con su esquina ya trasladada. */
+    void rawDrawGlyph(char c, int x, int y, int scale, int rgb) {
+        int[] spans = PixelFont.glyph(c, scale);
+        for (int k = 0; k < spans.length; k += 3) {
+            fillSpan(y + spans[k], x + spans[k + 1], x + spans[k + 2], rgb);
+        }
+    }
+
+    /**
+     * Escribe un color ya empaquetado en el arreglo de píxeles comprobando
+     * el rectángulo de recorte.
+     */
+    private void plot(int x, int y, int rgb) {
+        if (x >= clipX0 && x < clipX1 && y >= clipY0 && y < clipY1) {
+            pixels[y * WIDTH + x] = rgb;
+            pixelsWritten++;
         }
     }
     
+    // ----- Rasterizado por baldosas -----
+    // En modo por baldosas las primitivas no se dibujan al momento: se graban
+    // en una lista de comandos del cuadro. Al terminar el cuadro
+    // ({@link #flush()}) cada comando se reparte entre las baldosas de 64x64
+    // que toca su rectángulo envolvente y las baldosas se rasterizan en
+    // paralelo en el ForkJoinPool común. Cada baldosa reproduce sus comandos
+    // en el orden original y con el mismo código que el modo directo, solo
+    // que recortada a su área, así que el resultado es idéntico píxel a píxel.
+
+    /** Log2 del lado de las baldosas. Múltiplo de los bloques de profundidad. */
+    private static final int TILE_BITS = 6;
+    /** Lado de las baldosas en píxeles. */
+    static final int TILE_SIZE = 1 << TILE_BITS;
+    /** Número de baldosas por debajo del cual una tarea deja de dividirse. */
+    private static final int TILES_PER_TASK = 2;
+
+    /** Indica si se rasteriza por baldosas en paralelo. */
+    private boolean tiled = false;
+    /** Indica si las primitivas se graban en lugar de dibujarse al momento. */
+    private boolean recording = false;
+    /** Comandos grabados desde el último {@link #flush()}. */
+    private DisplayList commands;
+    /** Vistas de cada baldosa, por filas; se crean al primer uso. */
+    private Graficos[] tiles;
+    private int tilesX;
+    /** Índices de los comandos que tocan cada baldosa. */
+    private int[][] tileCommands;
+    private int[] tileCommandCount;
+    /** Puerta de visibilidad abierta en la lista actual, o -1. */
+    private int openGate = -1;
+
+    /**
+     * Elige entre rasterizar cada primitiva al momento en el hilo que dibuja
+     * o grabarlas y rasterizarlas por baldosas en paralelo al llamar a
+     * {@link #flush()} o {@link #render()}. Ambos modos producen la misma
+     * imagen.
+     */
+    public void setTiledRendering(boolean enabled) {
+        if (enabled == tiled) {
+            return;
+        }
+        flush();
+        tiled = enabled;
+        updateRecording();
+    }
+
+    /** Indica si el rasterizado por baldosas está activo. */
+    public boolean isTiledRendering() {
+        return tiled;
+    }
+
+    /** Graba mientras haya baldosas, hilo de render o regiones sucias. */
+    private void updateRecording() {
+        recording = tiled || renderLoop != null || dirtyTracking;
+        if (recording && commands == null) {
+            commands = new DisplayList();
+        }
+    }
+
+    /**
+     * Rasteriza todos los comandos grabados. En modo directo no hace nada;
+     * {@link #render()} la llama antes de repintar el panel. Con hilo de
+     * render o con regiones sucias los comandos se acumulan hasta
+     * {@link #render()}, que necesita el cuadro completo.
+     */
+    public void flush() {
+        if (renderLoop != null || dirtyTracking || commands == null || commands.size() == 0) {
+            return;
+        }
+        replay(commands, tiled);
+        commands.reset();
+    }
+
+    /**
+     * Comprueba si lo que se dibuje a continuación alrededor del punto
+     * indicado quedaría visible, para dibujarlo solo en ese caso (por
+     * ejemplo, una etiqueta sobre una cara). La región termina con
+     * {@link #endVisibleIf()} y no se pueden anidar. En modo directo la
+     * prueba se hace al momento y devuelve {@code false} si el punto está
+     * oculto; al grabar se decide al rasterizar, sobre la profundidad de lo
+     * grabado antes, y siempre devuelve {@code true}. Sin buffer de
+     * profundidad el punto siempre es visible.
+     */
+    public boolean beginVisibleIf(int x, int y, double z) {
+        x = (x + translateX) >> resShift;
+        y = (y + translateY) >> resShift;
+        if (recording) {
+            openGate = commands.addGate(x, y, z, depthTest);
+            return true;
+        }
+        return !depthTest || isVisibleRaw(x, y, z);
+    }
+
+    /** Cierra la región abierta con {@link #beginVisibleIf}. */
+    public void endVisibleIf() {
+        if (openGate >= 0) {
+            commands.closeGate(openGate);
+            openGate = -1;
+        }
+    }
+
+    /** Prueba de profundidad de un punto en coordenadas absolutas. */
+    private boolean isVisibleRaw(int x, int y, double z) {
+        if (x < 0 || x >= WIDTH || y < 0 || y >= HEIGHT) {
+            return false;
+        }
+        return z - LINE_DEPTH_BIAS < depth[y * WIDTH + x];
+    }
+
+    /**
+     * Ejecuta una lista de comandos sobre este lienzo, en serie o por
+     * baldosas. Las puertas de visibilidad necesitan la profundidad de todo
+     * lo anterior, así que antes de evaluarlas se termina de rasterizar lo
+     * previo; las puertas seguidas sin escrituras de profundidad entre ellas
+     * se evalúan de una vez.
+     */
+    void replay(DisplayList list, boolean parallel) {
+        setFrameClip(list.dirtyX0(), list.dirtyY0(), list.dirtyX1(), list.dirtyY1());
+        int n = list.size();
+        int start = 0;
+        while (start < n) {
+            int gate = list.nextGate(start);
+            replayRange(list, start, gate, parallel);
+            if (gate == n) {
+                break;
+            }
+            int end = gate;
+            while (end < n && !list.writesDepth(end)) {
+                if (list.op(end) == DisplayList.GATE) {
+                    boolean hidden = list.depth(end)
+                            && !isVisibleRaw(list.gateX(end), list.gateY(end), list.gateZ(end));
+                    list.setHidden(end, hidden);
+                    if (hidden) {
+                        end += list.count(end); // Su contenido no se dibuja
+                    }
+                }
+                end++;
+            }
+            replayRange(list, gate, end, parallel);
+            start = end;
+        }
+        setFrameClip(areaX0, areaY0, WIDTH >> resShift, HEIGHT >> resShift);
+    }
+
+    /** Ejecuta los comandos {@code [from, to)} de una lista. */
+    private void replayRange(DisplayList list, int from, int to, boolean parallel) {
+        if (from >= to) {
+            return;
+        }
+        if (!parallel) {
+            for (int i = from; i < to; i++) {
+                if (list.op(i) == DisplayList.GATE) {
+                    if (list.isHidden(i)) {
+                        i += list.count(i);
+                    }
+                } else if (list.maxX(i) >= clipX0 && list.minX(i) < clipX1
+                        && list.maxY(i) >= clipY0 && list.minY(i) < clipY1) {
+                    list.replay(i, this);
+                }
+            }
+            return;
+        }
+        ensureTiles();
+        binCommands(list, from, to);
+        for (Graficos tile : tiles) {
+            tile.depth = depth;
+            tile.depthBlockMax = depthBlockMax;
+            tile.depthBlocksPerRow = depthBlocksPerRow;
+            tile.commands = list;
+            tile.setFrameClip(clipX0, clipY0, clipX1, clipY1);
+        }
+        ForkJoinPool.commonPool().invoke(new TileTask(this, 0, tiles.length));
+        for (Graficos tile : tiles) {
+            pixelsWritten += tile.takePixelsWritten();
+        }
+    }
+
+    /** Crea las vistas de las baldosas y sus listas de comandos. */
+    private void ensureTiles() {
+        if (tiles != null) {
+            return;
+        }
+        tilesX = (WIDTH + TILE_SIZE - 1) >> TILE_BITS;
+        int tilesY = (HEIGHT + TILE_SIZE - 1) >> TILE_BITS;
+        tiles = new Graficos[tilesX * tilesY];
+        tileCommands = new int[tiles.length][16];
+        tileCommandCount = new int[tiles.length];
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                int x0 = tx << TILE_BITS;
+                int y0 = ty << TILE_BITS;
+                tiles[ty * tilesX + tx] = new Graficos(this, x0, y0,
+                        Math.min(x0 + TILE_SIZE, WIDTH), Math.min(y0 + TILE_SIZE, HEIGHT));
+            }
+        }
+    }
+
+    /**
+     * Reparte los comandos {@code [from, to)} entre las baldosas que tocan
+     * dentro del recorte actual.
+     */
+    private void binCommands(DisplayList list, int from, int to) {
+        Arrays.fill(tileCommandCount, 0);
+        for (int i = from; i < to; i++) {
+            if (list.op(i) == DisplayList.GATE) {
+                if (list.isHidden(i)) {
+                    i += list.count(i);
+                }
+                continue;
+            }
+            int x0 = Math.max(list.minX(i), clipX0);
+            int y0 = Math.max(list.minY(i), clipY0);
+            int x1 = Math.min(list.maxX(i), clipX1 - 1);
+            int y1 = Math.min(list.maxY(i), clipY1 - 1);
+            if (x0 > x1 || y0 > y1) {
+                continue; // Fuera del recorte
+            }
+            for (int ty = y0 >> TILE_BITS; ty <= y1 >> TILE_BITS; ty++) {
+                for (int tx = x0 >> TILE_BITS; tx <= x1 >> TILE_BITS; tx++) {
+                    int t = ty * tilesX + tx;
+                    int[] cmds = tileCommands[t];
+                    if (tileCommandCount[t] == cmds.length) {
+                        cmds = tileCommands[t] = Arrays.copyOf(cmds, cmds.length * 2);
+                    }
+                    cmds[tileCommandCount[t]++] = i;
+                }
+            }
+        }
+    }
+
+    /** Reproduce en orden los comandos de una baldosa sobre su vista. */
+    private void renderTile(int t) {
+        Graficos tile = tiles[t];
+        int[] cmds = tileCommands[t];
+        for (int k = 0, n = tileCommandCount[t]; k < n; k++) {
+            tile.commands.replay(cmds[k], tile);
+        }
+    }
+
+    /** Rasteriza un rango de baldosas dividiéndolo por la mitad. */
+    private static final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Graficos owner;
+        private final int from, to;
+
+        TileTask(Graficos owner, int from, int to) {
+            this.owner = owner;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TILES_PER_TASK) {
+                for (int t = from; t < to; t++) {
+                    owner.renderTile(t);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(owner, from, mid), new TileTask(owner, mid, to));
+            }
+        }
+    }
+
+    // ----- Hilo de render -----
+    // Con el hilo de render activo, quien dibuja (el EDT) solo graba los
+    // comandos del cuadro; {@link #render()} los entrega a un
+    // {@link RenderLoop}, que los rasteriza en su propio hilo sobre un búfer
+    // trasero y publica el cuadro terminado. {@link #getBuffer()} devuelve
+    // siempre el último cuadro completo, nunca uno a medio dibujar.
+
+    /** Bucle de render en segundo plano, o null si se dibuja en este hilo. */
+    private RenderLoop renderLoop;
+
+    /**
+     * Activa o desactiva el hilo de render. Al desactivarlo se espera al
+     * último cuadro enviado y se copia al buffer propio.
+     */
+    public void setRenderThread(boolean enabled) {
+        if (enabled == (renderLoop != null)) {
+            return;
+        }
+        if (enabled) {
+            flush();
+            renderLoop = new RenderLoop(this);
+        } else {
+            RenderLoop loop = renderLoop;
+            loop.finish();
+            loop.shutdown();
+            renderLoop = null;
+            int[] front = ((DataBufferInt) loop.frontBuffer().getRaster().getDataBuffer()).getData();
+            System.arraycopy(front, 0, pixels, 0, pixels.length);
+            commands.reset();
+        }
+        updateRecording();
+    }
+
+    /** Indica si el hilo de render está activo. */
+    public boolean isRenderThread() {
+        return renderLoop != null;
+    }
+
+    /**
+     * Espera a que esté publicado el último cuadro enviado con
+     * {@link #render()}. Sin hilo de render solo rasteriza lo pendiente.
+     */
+    public void finish() {
+        if (renderLoop != null) {
+            renderLoop.finish();
+        } else {
+            flush();
+        }
+    }
+
+    /**
+     * Repinta la región {@code [x0, x1) x [y0, y1)} del panel asociado; el
+     * hilo de render la llama al publicar. La región está en píxeles del
+     * cuadro, dibujado con divisor de resolución {@code 2^shift}.
+     */
+    void repaintPanel(int x0, int y0, int x1, int y1, int shift) {
+        x0 = Math.max(x0, 0) << shift;
+        y0 = Math.max(y0, 0) << shift;
+        x1 = Math.min(x1, WIDTH >> shift) << shift;
+        y1 = Math.min(y1, HEIGHT >> shift) << shift;
+        if (panel != null && x0 < x1 && y0 < y1) {
+            panel.repaint(x0, y0, x1 - x0, y1 - y0);
+        }
+    }
+
+    /** Tiempo del último rasterizado, en este hilo o en el de render. */
+    private long lastRasterNanos = 0;
+
+    // Contadores del cuadro: polígonos recibidos desde el último render() y
+    // píxeles escritos por las primitivas (sin contar el borrado del fondo).
+    // Solo suman enteros, así que se llevan siempre.
+    private int polygonCount = 0;
+    private long pixelsWritten = 0;
+    private int framePolygons = 0;
+    private long framePixels = 0;
+
+    /** Devuelve los píxeles escritos desde la llamada anterior y reinicia la cuenta. */
+    long takePixelsWritten() {
+        long n = pixelsWritten;
+        pixelsWritten = 0;
+        return n;
+    }
+
+    /** Polígonos que recibió el último cuadro entregado con {@link #render()}. */
+    public int getFramePolygons() {
+        return framePolygons;
+    }
+
+    /**
+     * Píxeles que escribieron las primitivas al rasterizar el último cuadro.
+     * Con hilo de render es el último cuadro publicado.
+     */
+    public long getFramePixels() {
+        return renderLoop != null ? renderLoop.lastPixels() : framePixels;
+    }
+
+    /**
+     * Nanosegundos que tardó en rasterizarse el último cuadro. Con hilo de
+     * render es el último cuadro publicado.
+     */
+    public long getLastRasterNanos() {
+        return renderLoop != null ? renderLoop.lastRasterNanos() : lastRasterNanos;
+    }
+
+    /**
+     * Cambia la resolución interna. Con divisor {@code d} las coordenadas
+     * de todas las primitivas se dividen por {@code d}, se rasteriza un
+     * cuadro de {@code 1/d²} píxeles en la esquina superior izquierda del
+     * lienzo y {@link RenderPanel} lo amplía al mostrarlo. El siguiente
+     * cuadro se dibuja entero.
+     *
+     * @param divisor potencia de dos: 1 para resolución completa
+     */
+    public void setResolutionDivisor(int divisor) {
+        if (divisor < 1 || Integer.bitCount(divisor) != 1) {
+            throw new IllegalArgumentException("El divisor debe ser una potencia de dos: " + divisor);
+        }
+        int shift = Integer.numberOfTrailingZeros(divisor);
+        if (shift == resShift) {
+            return;
+        }
+        flush();
+        resShift = shift;
+        resScale = 1.0 / divisor;
+        if (previousFrame != null) {
+            previousFrame.reset(); // Nada del cuadro anterior sigue valiendo
+        }
+        if (!recording) {
+            setFrameClip(areaX0, areaY0, WIDTH >> resShift, HEIGHT >> resShift);
+        }
+    }
+
+    /** Divisor de resolución con que se dibuja. */
+    public int getResolutionDivisor() {
+        return 1 << resShift;
+    }
+
+    /**
+     * Divisor de resolución de la imagen que devuelve {@link #getBuffer()}:
+     * su contenido ocupa {@code 1/divisor} del ancho y del alto.
+     */
+    public int getBufferDivisor() {
+        return renderLoop != null ? renderLoop.frontDivisor() : 1 << resShift;
+    }
+
+    /**
+     * Copia los píxeles (y la profundidad, si ambos la usan) de otro lienzo
+     * del mismo tamaño. El hilo de render parte así del último cuadro
+     * publicado antes de redibujar solo su región sucia.
+     */
+    void copyFrom(Graficos other) {
+        System.arraycopy(other.pixels, 0, pixels, 0, pixels.length);
+        if (depth != null && other.depth != null) {
+            System.arraycopy(other.depth, 0, depth, 0, depth.length);
+            System.arraycopy(other.depthBlockMax, 0, depthBlockMax, 0, depthBlockMax.length);
+        }
+    }
+
+    // ----- Regiones sucias -----
+    // Con el seguimiento de regiones sucias, {@link #render()} compara los
+    // comandos del cuadro con los del anterior. Solo se rasteriza, dentro de
+    // un recorte, la unión de los rectángulos envolventes de lo que cambió, y
+    // solo esa parte del panel se repinta. Si nada cambió no se dibuja nada.
+
+    /** Indica si se redibuja solo lo que cambió respecto al cuadro anterior. */
+    private boolean dirtyTracking = false;
+    /** Comandos del último cuadro enviado, para compararlos con el siguiente. */
+    private DisplayList previousFrame;
+    /** Región redibujada en el último cuadro: x0, y0, x1, y1. */
+    private final int[] lastDirty = new int[4];
+
+    /**
+     * Activa o desactiva el redibujado parcial. Al activarlo el siguiente
+     * cuadro se dibuja entero.
+     */
+    public void setDirtyTracking(boolean enabled) {
+        if (enabled == dirtyTracking) {
+            return;
+        }
+        if (enabled) {
+            flush();
+            previousFrame = new DisplayList();
+        } else {
+            previousFrame = null;
+        }
+        dirtyTracking = enabled;
+        updateRecording();
+    }
+
+    /** Indica si el redibujado parcial está activo. */
+    public boolean isDirtyTracking() {
+        return dirtyTracking;
+    }
+
+    /**
+     * Región del lienzo redibujada por el último {@link #render()}, o un
+     * rectángulo vacío si no cambió nada.
+     */
+    public java.awt.Rectangle getDirtyBounds() {
+        return new java.awt.Rectangle(lastDirty[0], lastDirty[1],
+                lastDirty[2] - lastDirty[0], lastDirty[3] - lastDirty[1]);
+    }
+
     /** Panel Swing donde se mostrará la imagen resultante. */
     private javax.swing.JPanel panel;
 
@@ -383,25 +1607,81 @@ public class Graficos {
     }
     
     /**
-     * Solicita el repintado del panel asociado.
+     * Termina de rasterizar lo grabado y solicita el repintado del panel
+     * asociado.
      */
     public void render() {
-        if (panel != null) {
-            panel.repaint();
+        framePolygons = polygonCount;
+        polygonCount = 0;
+        if (dirtyTracking) {
+            if (!commands.diff(previousFrame)) {
+                // Cuadro idéntico al anterior: no hay nada que dibujar
+                framePixels = 0;
+                commands.reset();
+                Arrays.fill(lastDirty, 0);
+                return;
+            }
+            previousFrame.copyFrom(commands);
         }
+        int viewW = WIDTH >> resShift, viewH = HEIGHT >> resShift;
+        lastDirty[0] = Math.max(commands == null ? 0 : commands.dirtyX0(), 0);
+        lastDirty[1] = Math.max(commands == null ? 0 : commands.dirtyY0(), 0);
+        lastDirty[2] = Math.min(commands == null ? viewW : commands.dirtyX1(), viewW);
+        lastDirty[3] = Math.min(commands == null ? viewH : commands.dirtyY1(), viewH);
+        if (commands != null) {
+            commands.setDirty(lastDirty[0], lastDirty[1], lastDirty[2], lastDirty[3]);
+        }
+        if (renderLoop != null) {
+            // El hilo de render repinta el panel al publicar el cuadro
+            commands = renderLoop.submit(commands, tiled, resShift);
+            return;
+        }
+        long start = System.nanoTime();
+        if (dirtyTracking) {
+            replay(commands, tiled);
+            commands.reset();
+        } else {
+            flush();
+        }
+        lastRasterNanos = System.nanoTime() - start;
+        framePixels = takePixelsWritten();
+        repaintPanel(lastDirty[0], lastDirty[1], lastDirty[2], lastDirty[3], resShift);
     }
 
     
     /**
-     * Limpia el buffer rellenándolo con un color oscuro. (fondo)
+     * Limpia el buffer rellenándolo con un color oscuro. (fondo) Con el
+     * buffer de profundidad activo también lo reinicia.
      */
     public void clear() {
-        fillRect(0, 0, WIDTH, HEIGHT, new Color(15, 17, 12));
+        if (recording) {
+            commands.addClear(depthTest);
+        } else {
+            rawClear(depthTest);
+        }
     }
 
-    /** Devuelve la imagen interna usada como buffer. */
+    /** Pinta el fondo (y vacía la profundidad) dentro del recorte. */
+    void rawClear(boolean withDepth) {
+        int w = clipX1 - clipX0;
+        for (int y = clipY0; y < clipY1; y++) {
+            System.arraycopy(backgroundRow, clipX0, pixels, y * WIDTH + clipX0, w);
+        }
+        if (withDepth && clipX0 < clipX1) {
+            if (clipX0 == 0 && clipY0 == 0 && clipX1 == WIDTH && clipY1 == HEIGHT) {
+                clearDepth();
+            } else {
+                clearDepthClip();
+            }
+        }
+    }
+
+    /**
+     * Devuelve la imagen interna usada como buffer. Con hilo de render es el
+     * último cuadro publicado.
+     */
     public BufferedImage getBuffer() {
-        return buffer;
+        return renderLoop != null ? renderLoop.frontBuffer() : buffer;
     }
 
     /** Ancho del buffer. */
@@ -0,0 +1,154 @@
+package main;
+
+/**
+ * Matriz 3x3 de rotación guardada en nueve campos primitivos, por filas.
+ * Todas las operaciones escriben sobre la propia matriz o sobre un
+ * {@link Vec3} de destino, así que una vez creadas las matrices de trabajo
+ * la transformación de un cuadro no reserva memoria. Convive con las
+ * matrices {@code double[][]} de {@link Subcubo}, que siguen usándose fuera
+ * del dibujo.
+ */
+public final class Mat3 {
+
+    public double m00, m01, m02;
+    public double m10, m11, m12;
+    public double m20, m21, m22;
+
+    /** Crea la matriz identidad. */
+    public Mat3() {
+        m00 = m11 = m22 = 1;
+    }
+
+    /** Convierte esta matriz en la identidad y la devuelve. */
+    public Mat3 setIdentity() {
+        m00 = 1; m01 = 0; m02 = 0;
+        m10 = 0; m11 = 1; m12 = 0;
+        m20 = 0; m21 = 0; m22 = 1;
+        return this;
+    }
+
+    /** Copia otra matriz. */
+    public Mat3 set(Mat3 o) {
+        m00 = o.m00; m01 = o.m01; m02 = o.m02;
+        m10 = o.m10; m11 = o.m11; m12 = o.m12;
+        m20 = o.m20; m21 = o.m21; m22 = o.m22;
+        return this;
+    }
+
+    /** Copia una matriz {@code double[3][3]}. */
+    public Mat3 set(double[][] m) {
+        m00 = m[0][0]; m01 = m[0][1]; m02 = m[0][2];
+        m10 = m[1][0]; m11 = m[1][1]; m12 = m[1][2];
+        m20 = m[2][0]; m21 = m[2][1]; m22 = m[2][2];
+        return this;
+    }
+
+    /**
+     * Rotación de {@code degrees} grados alrededor de un eje cartesiano,
+     * como {@link Subcubo#rotationAxis}.
+     *
+     * @param axis 0=X, 1=Y, 2=Z
+     */
+    public Mat3 setRotationAxis(int axis, double degrees) {
+        double rad = Math.toRadians(degrees);
+        double c = Math.cos(rad);
+        double s = Math.sin(rad);
+        switch (axis) {
+            case 0:
+                m00 = 1; m01 = 0; m02 = 0;
+                m10 = 0; m11 = c; m12 = -s;
+                m20 = 0; m21 = s; m22 = c;
+                break;
+            case 1:
+                m00 = c; m01 = 0; m02 = s;
+                m10 = 0; m11 = 1; m12 = 0;
+                m20 = -s; m21 = 0; m22 = c;
+                break;
+            default:
+                m00 = c; m01 = -s; m02 = 0;
+                m10 = s; m11 = c; m12 = 0;
+                m20 = 0; m21 = 0; m22 = 1;
+                break;
+        }
+        return this;
+    }
+
+    /**
+     * Rotación de ángulos de Euler aplicados en orden X, Y y Z, como
+     * {@link Subcubo#rotation}: {@code Rz * Ry * Rx}.
+     */
+    public Mat3 setRotation(double angX, double angY, double angZ) {
+        double rx = Math.toRadians(angX), ry = Math.toRadians(angY), rz = Math.toRadians(angZ);
+        double cx = Math.cos(rx), sx = Math.sin(rx);
+        double cy = Math.cos(ry), sy = Math.sin(ry);
+        double cz = Math.cos(rz), sz = Math.sin(rz);
+        // Ry * Rx
+        double a00 = cy, a01 = sy * sx, a02 = sy * cx;
+        double a11 = cx, a12 = -sx;
+        double a20 = -sy, a21 = cy * sx, a22 = cy * cx;
+        // Rz * (Ry * Rx); la fila central de Ry * Rx es (0, cx, -sx)
+        m00 = cz * a00;
+        m01 = cz * a01 - sz * a11;
+        m02 = cz * a02 - sz * a12;
+        m10 = sz * a00;
+        m11 = sz * a01 + cz * a11;
+        m12 = sz * a02 + cz * a12;
+        m20 = a20;
+        m21 = a21;
+        m22 = a22;
+        return this;
+    }
+
+    /**
+     * Guarda en esta matriz el producto {@code a * b}. Cualquiera de los dos
+     * factores puede ser esta misma matriz.
+     */
+    public Mat3 mul(Mat3 a, Mat3 b) {
+        double r00 = a.m00 * b.m00 + a.m01 * b.m10 + a.m02 * b.m20;
+        double r01 = a.m00 * b.m01 + a.m01 * b.m11 + a.m02 * b.m21;
+        double r02 = a.m00 * b.m02 + a.m01 * b.m12 + a.m02 * b.m22;
+        double r10 = a.m10 * b.m00 + a.m11 * b.m10 + a.m12 * b.m20;
+        double r11 = a.m10 * b.m01 + a.m11 * b.m11 + a.m12 * b.m21;
+        double r12 = a.m10 * b.m02 + a.m11 * b.m12 + a.m12 * b.m22;
+        double r20 = a.m20 * b.m00 + a.m21 * b.m10 + a.m22 * b.m20;
+        double r21 = a.m20 * b.m01 + a.m21 * b.m11 + a.m22 * b.m21;
+        double r22 = a.m20 * b.m02 + a.m21 * b.m12 + a.m22 * b.m22;
+        m00 = r00; m01 = r01; m02 = r02;
+        m10 = r10; m11 = r11; m12 = r12;
+        m20 = r20; m21 = r21; m22 = r22;
+        return this;
+    }
+
+    /**
+     * Guarda en esta matriz el producto {@code a * b} con {@code b} como
+     * {@code double[3][3]}; {@code a} puede ser esta misma matriz.
+     */
+    public Mat3 mul(Mat3 a, double[][] b) {
+        double r00 = a.m00 * b[0][0] + a.m01 * b[1][0] + a.m02 * b[2][0];
+        double r01 = a.m00 * b[0][1] + a.m01 * b[1][1] + a.m02 * b[2][1];
+        double r02 = a.m00 * b[0][2] + a.m01 * b[1][2] + a.m02 * b[2][2];
+        double r10 = a.m10 * b[0][0] + a.m11 * b[1][0] + a.m12 * b[2][0];
+        double r11 = a.m10 * b[0][1] + a.m11 * b[1][1] + a.m12 * b[2][1];
+        double r12 = a.m10 * b[0][2] + a.m11 * b[1][2] + a.m12 * b[2][2];
+        double r20 = a.m20 * b[0][0] + a.m21 * b[1][0] + a.m22 * b[2][0];
+        double r21 = a.m20 * b[0][1] + a.m21 * b[1][1] + a.m22 * b[2][1];
+        double r22 = a.m20 * b[0][2] + a.m21 * b[1][2] + a.m22 * b[2][2];
+        m00 = r00; m01 = r01; m02 = r02;
+        m10 = r10; m11 = r11; m12 = r12;
+        m20 = r20; m21 = r21; m22 = r22;
+        return this;
+    }
+
+    /** Transforma el punto {@code (x, y, z)} y deja el resultado en {@code out}. */
+    public Vec3 transform(double x, double y, double z, Vec3 out) {
+        out.x = m00 * x + m01 * y + m02 * z;
+        out.y = m10 * x + m11 * y + m12 * z;
+        out.z = m20 * x + m21 * y + m22 * z;
+        return out;
+    }
+
+    /** Transforma {@code v} en el propio vector. */
+    public Vec3 transform(Vec3 v) {
+        return transform(v.x, v.y, v.z, v);
+    }
+}
@@ -0,0 +1,218 @@
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Las 24 orientaciones posibles de una pieza del cubo y sus tablas de
+ * transición. Una orientación es un índice de 0 a 23; girar una capa 90°
+ * se reduce a {@code TURN[o][eje][sentido]}, sin multiplicar matrices ni
+ * corregir el error de coma flotante. Las tablas se generan una vez, al
+ * cargar la clase, recorriendo todas las orientaciones alcanzables desde la
+ * identidad con giros de 90° sobre los tres ejes.
+ *
+ * <p>Cada orientación guarda también qué pegatina queda en cada cara local
+ * de la pieza. Todas las piezas llevan las seis pegatinas, así que los
+ * colores dependen solo de la orientación y no de la posición de origen.
+ */
+public final class Orientation {
+
+    /** Número de orientaciones de un cubo. */
+    public static final int COUNT = 24;
+    /** Orientación inicial de todas las piezas. */
+    public static final int IDENTITY = 0;
+
+    /**
+     * Ciclos de las pegatinas para cada eje: al girar 90° en sentido horario
+     * la pegatina de cada cara pasa a la siguiente del ciclo.
+     */
+    private static final int[][] FACE_CYCLES = {
+        {0, 2, 1, 3}, // X axis: back -> bottom -> front -> top
+        {0, 4, 1, 5}, // Y axis: back -> left -> front -> right
+        {3, 5, 2, 4}  // Z axis: top -> right -> bottom -> left
+    };
+
+    /** Matriz de cada orientación, por filas, con entradas -1, 0 o 1. */
+    private static final int[][] MATRICES = new int[COUNT][];
+    /** Las mismas matrices para el dibujo; nadie debe modificarlas. */
+    private static final Mat3[] MAT3 = new Mat3[COUNT];
+    /** {@code TURN[o][eje][horario ? 1 : 0]}: orientación tras girar 90°. */
+    private static final byte[][][] TURN = new byte[COUNT][3][2];
+    /** {@code STICKERS[o][cara]}: pegatina de {@link Palette} en cada cara local. */
+    private static final byte[][] STICKERS = new byte[COUNT][];
+    /** {@code DIRECTION[o][cara]}: dirección (0 -Z ... 5 +X) a la que apunta cada cara. */
+    private static final byte[][] DIRECTION = new byte[COUNT][6];
+    /** {@code CORNER[o][v]}: esquina de {@link CubieMesh} en la que cae el vértice local {@code v}. */
+    private static final byte[][] CORNER = new byte[COUNT][CubieMesh.VERTICES];
+    /** {@code COMPOSE[a * COUNT + b]}: orientación de la matriz {@code M[a] * M[b]}. */
+    private static final byte[] COMPOSE = new byte[COUNT * COUNT];
+    /** Orientación inversa de cada una. */
+    private static final byte[] INVERSE = new byte[COUNT];
+
+    static {
+        MATRICES[IDENTITY] = new int[]{1, 0, 0, 0, 1, 0, 0, 0, 1};
+        STICKERS[IDENTITY] = new byte[]{
+            Palette.GREEN, Palette.BLUE, Palette.WHITE_STICKER,
+            Palette.PURPLE, Palette.ORANGE, Palette.RED
+        };
+        int count = 1;
+        for (int o = 0; o < count; o++) {
+            for (int axis = 0; axis < 3; axis++) {
+                for (int cw = 0; cw < 2; cw++) {
+                    int[] m = multiply(quarterTurn(axis, cw == 1), MATRICES[o]);
+                    byte[] stickers = cycle(STICKERS[o], FACE_CYCLES[axis], cw == 1);
+                    int next = indexOf(m, count);
+                    if (next < 0) {
+                        next = count++;
+                        MATRICES[next] = m;
+                        STICKERS[next] = stickers;
+                    } else if (!Arrays.equals(STICKERS[next], stickers)) {
+                        throw new IllegalStateException("Pegatinas distintas para la orientación " + next);
+                    }
+                    TURN[o][axis][cw] = (byte) next;
+                }
+            }
+        }
+        if (count != COUNT) {
+            throw new IllegalStateException("Se esperaban 24 orientaciones y hay " + count);
+        }
+        for (int o = 0; o < COUNT; o++) {
+            int[] m = MATRICES[o];
+            MAT3[o] = new Mat3().set(new double[][]{
+                {m[0], m[1], m[2]}, {m[3], m[4], m[5]}, {m[6], m[7], m[8]}
+            });
+            for (int face = 0; face < 6; face++) {
+                // La normal local de la cara es ±e_k: la global es ±columna k
+                int k = 2 - face / 2;
+                int sign = face % 2 == 0 ? -1 : 1;
+                for (int row = 0; row < 3; row++) {
+                    int v = sign * m[row * 3 + k];
+                    if (v != 0) {
+                        DIRECTION[o][face] = (byte) (2 * (2 - row) + (v > 0 ? 1 : 0));
+                    }
+                }
+            }
+            for (int b = 0; b < COUNT; b++) {
+                int ab = indexOf(multiply(m, MATRICES[b]), COUNT);
+                COMPOSE[o * COUNT + b] = (byte) ab;
+                if (ab == IDENTITY) {
+                    INVERSE[o] = (byte) b;
+                }
+            }
+            for (int v = 0; v < CubieMesh.VERTICES; v++) {
+                double vx = CubieMesh.x(v), vy = CubieMesh.y(v), vz = CubieMesh.z(v);
+                double rx = m[0] * vx + m[1] * vy + m[2] * vz;
+                double ry = m[3] * vx + m[4] * vy + m[5] * vz;
+                double rz = m[6] * vx + m[7] * vy + m[8] * vz;
+                for (int c = 0; c < CubieMesh.VERTICES; c++) {
+                    if (CubieMesh.x(c) == rx && CubieMesh.y(c) == ry && CubieMesh.z(c) == rz) {
+                        CORNER[o][v] = (byte) c;
+                    }
+                }
+            }
+        }
+    }
+
+    private Orientation() {
+    }
+
+    /** Giro de 90° exacto alrededor de un eje, como {@link Subcubo#rotationAxis}. */
+    private static int[] quarterTurn(int axis, boolean clockwise) {
+        int s = clockwise ? 1 : -1;
+        switch (axis) {
+            case 0:
+                return new int[]{1, 0, 0, 0, 0, -s, 0, s, 0};
+            case 1:
+                return new int[]{0, 0, s, 0, 1, 0, -s, 0, 0};
+            default:
+                return new int[]{0, -s, 0, s, 0, 0, 0, 0, 1};
+        }
+    }
+
+    private static int[] multiply(int[] a, int[] b) {
+        int[] r = new int[9];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                r[i * 3 + j] = a[i * 3] * b[j] + a[i * 3 + 1] * b[3 + j] + a[i * 3 + 2] * b[6 + j];
+            }
+        }
+        return r;
+    }
+
+    private static byte[] cycle(byte[] stickers, int[] cycle, boolean clockwise) {
+        byte[] r = stickers.clone();
+        for (int i = 0; i < cycle.length; i++) {
+            int from = cycle[i];
+            int to = cycle[(i + 1) % cycle.length];
+            if (clockwise) {
+                r[to] = stickers[from];
+            } else {
+                r[from] = stickers[to];
+            }
+        }
+        return r;
+    }
+
+    private static int indexOf(int[] m, int count) {
+        for (int o = 0; o < count; o++) {
+            if (Arrays.equals(MATRICES[o], m)) {
+                return o;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Orientación que resulta de girar 90° la pieza alrededor de un eje.
+     *
+     * @param axis      eje de rotación (0=X, 1=Y, 2=Z)
+     * @param clockwise sentido horario si es {@code true}
+     */
+    public static int turn(int orientation, int axis, boolean clockwise) {
+        return TURN[orientation][axis][clockwise ? 1 : 0];
+    }
+
+    /**
+     * Orientación que resulta de aplicar {@code b} y después {@code a}, es
+     * decir, la de la matriz {@code M[a] * M[b]}. Un giro de capa compone
+     * así la orientación de cada pieza: {@code turn(o, eje, sentido)} es
+     * {@code compose(turn(IDENTITY, eje, sentido), o)}.
+     */
+    public static int compose(int a, int b) {
+        return COMPOSE[a * COUNT + b];
+    }
+
+    /** Orientación que deshace {@code orientation}. */
+    public static int inverse(int orientation) {
+        return INVERSE[orientation];
+    }
+
+    /** Pegatina de {@link Palette} que muestra la cara local {@code face}. */
+    public static byte sticker(int orientation, int face) {
+        return STICKERS[orientation][face];
+    }
+
+    /** Dirección, con la numeración de las caras, a la que apunta la cara local. */
+    public static int direction(int orientation, int face) {
+        return DIRECTION[orientation][face];
+    }
+
+    /** Esquina de {@link CubieMesh} a la que lleva la orientación el vértice local. */
+    public static int corner(int orientation, int vertex) {
+        return CORNER[orientation][vertex];
+    }
+
+    /** Copia de la matriz de rotación de una orientación. */
+    public static double[][] matrix(int orientation) {
+        int[] m = MATRICES[orientation];
+        return new double[][]{
+            {m[0], m[1], m[2]},
+            {m[3], m[4], m[5]},
+            {m[6], m[7], m[8]}
+        };
+    }
+
+    /** Matriz compartida de una orientación para componerla al dibujar; solo lectura. */
+    static Mat3 mat3(int orientation) {
+        return MAT3[orientation];
+    }
+}
@@ -0,0 +1,86 @@
+package main;
+
+/**
+ * Capa retenida que se superpone a cada cuadro, como el HUD. Guarda solo los
+ * píxeles opacos de una imagen, agrupados en tramos horizontales con sus
+ * colores, para componerla copiando cada tramo con
+ * {@link System#arraycopy}. Es inmutable: si su contenido cambia se crea otra
+ * capa, así que el hilo de render puede seguir componiendo la anterior sin
+ * sincronización.
+ */
+public final class Overlay {
+
+    /** Contador para distinguir capas al comparar cuadros. */
+    private static int nextSerial = 0;
+
+    /** Número único de la capa. */
+    final int serial;
+    /** Tripletes (fila, x0, inicio en {@link #colors}) de cada tramo. */
+    final int[] runs;
+    /** Longitud de cada tramo. */
+    final int[] lengths;
+    /** Colores de todos los tramos, uno tras otro. */
+    final int[] colors;
+    /** Rectángulo envolvente de los píxeles opacos, extremos incluidos. */
+    final int minX, minY, maxX, maxY;
+
+    /**
+     * Extrae los píxeles opacos de un lienzo: los que tienen alfa distinto de
+     * cero. Un {@link Graficos} recién creado está a cero, así que basta con
+     * dibujar en él con colores opacos, como los de {@link Palette}.
+     *
+     * @param pixels píxeles ARGB fila a fila
+     * @param width  ancho del lienzo
+     * @param height alto del lienzo
+     */
+    Overlay(int[] pixels, int width, int height) {
+        int runCount = 0, colorCount = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            if (pixels[i] >>> 24 != 0) {
+                colorCount++;
+                if (i % width == 0 || pixels[i - 1] >>> 24 == 0) {
+                    runCount++;
+                }
+            }
+        }
+        runs = new int[runCount * 3];
+        lengths = new int[runCount];
+        colors = new int[colorCount];
+        int r = 0, c = 0;
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = -1, y1 = -1;
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int x = 0;
+            while (x < width) {
+                if (pixels[row + x] >>> 24 == 0) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < width && pixels[row + x] >>> 24 != 0) {
+                    x++;
+                }
+                runs[r * 3] = y;
+                runs[r * 3 + 1] = start;
+                runs[r * 3 + 2] = c;
+                lengths[r++] = x - start;
+                System.arraycopy(pixels, row + start, colors, c, x - start);
+                c += x - start;
+                x0 = Math.min(x0, start);
+                x1 = Math.max(x1, x - 1);
+                y0 = Math.min(y0, y);
+                y1 = y;
+            }
+        }
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+        serial = nextSerial++;
+    }
+
+    /** Indica si la capa no tiene ningún píxel opaco. */
+    public boolean isEmpty() {
+        return lengths.length == 0;
+    }
+}
@@ -0,0 +1,79 @@
+package main;
+
+import java.awt.Color;
+
+/**
+ * Colores del programa precalculados en formato ARGB empaquetado, listos para
+ * las primitivas enteras de {@link Graficos}. Las pegatinas se identifican
+ * por su índice en {@link #STICKERS}, y los tonos de resaltado se calculan
+ * una sola vez aquí, así que dibujar un cuadro no crea ningún {@link Color}.
+ */
+public final class Palette {
+
+    /** Pegatina verde. */
+    public static final int GREEN = 0;
+    /** Pegatina azul. */
+    public static final int BLUE = 1;
+    /** Pegatina blanca. */
+    public static final int WHITE_STICKER = 2;
+    /** Pegatina morada. */
+    public static final int PURPLE = 3;
+    /** Pegatina naranja. */
+    public static final int ORANGE = 4;
+    /** Pegatina roja. */
+    public static final int RED = 5;
+
+    /** Color de cada pegatina, indexado por su identificador. */
+    private static final int[] STICKERS = {
+        0xFF72B01D, // verde
+        0xFF087F8C, // azul
+        0xFFF6F7EB, // blanco
+        0xFF612940, // morado
+        0xFFF25C54, // naranja
+        0xFFDE1A1A  // rojo
+    };
+    /** Pegatinas de una pieza resaltada: {@link Color#darker()}. */
+    private static final int[] HIGHLIGHT = new int[STICKERS.length];
+    /**
+     * Cara más cercana de una pieza resaltada:
+     * {@link Color#darker()} seguido de {@link Color#brighter()}.
+     */
+    private static final int[] HIGHLIGHT_NEAR = new int[STICKERS.length];
+
+    static {
+        for (int i = 0; i < STICKERS.length; i++) {
+            Color dark = new Color(STICKERS[i]).darker();
+            HIGHLIGHT[i] = dark.getRGB();
+            HIGHLIGHT_NEAR[i] = dark.brighter().getRGB();
+        }
+    }
+
+    /** Aristas de las piezas y texto de las etiquetas. */
+    public static final int EDGE = 0xFF000000;
+    /** Texto principal del HUD. */
+    public static final int HUD_TEXT = 0xFFFFFFFF;
+    /** Texto destacado del HUD. */
+    public static final int HUD_ACCENT = 0xFFFFFF00;
+
+    private Palette() {
+    }
+
+    /** Número de colores de pegatina distintos. */
+    public static int stickerCount() {
+        return STICKERS.length;
+    }
+
+    /**
+     * Devuelve el tono con el que se pinta una pegatina.
+     *
+     * @param id        identificador de la pegatina
+     * @param highlight si la pieza está resaltada
+     * @param nearest   si es la cara más cercana de la pieza resaltada
+     */
+    public static int sticker(int id, boolean highlight, boolean nearest) {
+        if (!highlight) {
+            return STICKERS[id];
+        }
+        return nearest ? HIGHLIGHT_NEAR[id] : HIGHLIGHT[id];
+    }
+}
@@ -2,89 +2,161 @@ package main;
 
 /**
  * Fuente de 5x7 píxeles utilizada para renderizar texto básico en la pantalla.
+ * Cada carácter se convierte, la primera vez que se usa con una escala, en
+ * la lista de tramos horizontales que ocupa; {@link Graficos#drawText} pinta
+ * después esos tramos de una vez en lugar de un rectángulo por píxel.
  */
 
 import java.awt.Color;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 public class PixelFont {
+    /** Ancho de un carácter en píxeles de la fuente, sin el espacio. */
+    static final int GLYPH_WIDTH = 5;
+    /** Alto de un carácter en píxeles de la fuente. */
+    static final int GLYPH_HEIGHT = 7;
+    /** Avance horizontal entre caracteres en píxeles de la fuente. */
+    static final int ADVANCE = GLYPH_WIDTH + 1;
+
+    /**
+     * Patrón de bits de cada carácter, indexado directamente por su código:
+     * una matriz de 5x7 donde 1 indica un píxel encendido. Las minúsculas
+     * usan el glifo de las mayúsculas y los caracteres sin patrón se dibujan
+     * como espacio.
+     */
+    private static final int[][] FONT = new int[128][];
+
     /**
-     * Mapa que asocia cada carácter con un patrón de bits que representa
-     * una matriz de 5x7 donde 1 indica un píxel encendido.
+     * Atlas de glifos ya rasterizados: {@code atlas[escala][carácter]} son
+     * tripletes (fila, x0, x1) con los tramos {@code [x0, x1)} de cada fila
+     * relativos a la esquina del carácter. Cada escala se rasteriza entera la
+     * primera vez que se pide y se publica con una tabla nueva; las tablas y
+     * sus filas no se modifican después, así que el hilo de render y los de
+     * las baldosas pueden leerlas mientras otro hilo añade escalas.
      */
-    private static final Map<Character, int[]> FONT = new HashMap<>();
+    private static volatile int[][][] atlas = new int[0][][];
+
     static {
         // digits
-        FONT.put('0', new int[]{0b01110,0b10001,0b10011,0b10101,0b11001,0b10001,0b01110});
-        FONT.put('1', new int[]{0b00100,0b01100,0b00100,0b00100,0b00100,0b00100,0b01110});
-        FONT.put('2', new int[]{0b01110,0b10001,0b00001,0b00110,0b01000,0b10000,0b11111});
-        FONT.put('3', new int[]{0b11110,0b00001,0b00001,0b01110,0b00001,0b00001,0b11110});
-        FONT.put('4', new int[]{0b00010,0b00110,0b01010,0b10010,0b11111,0b00010,0b00010});
-        FONT.put('5', new int[]{0b11111,0b10000,0b10000,0b11110,0b00001,0b00001,0b11110});
-        FONT.put('6', new int[]{0b01110,0b10000,0b10000,0b11110,0b10001,0b10001,0b01110});
-        FONT.put('7', new int[]{0b11111,0b00001,0b00010,0b00100,0b01000,0b01000,0b01000});
-        FONT.put('8', new int[]{0b01110,0b10001,0b10001,0b01110,0b10001,0b10001,0b01110});
-        FONT.put('9', new int[]{0b01110,0b10001,0b10001,0b01111,0b00001,0b00001,0b01110});
+        put('0', new int[]{0b01110,0b10001,0b10011,0b10101,0b11001,0b10001,0b01110});
+        put('1', new int[]{0b00100,0b01100,0b00100,0b00100,0b00100,0b00100,0b01110});
+        put('2', new int[]{0b01110,0b10001,0b00001,0b00110,0b01000,0b10000,0b11111});
+        put('3', new int[]{0b11110,0b00001,0b00001,0b01110,0b00001,0b00001,0b11110});
+        put('4', new int[]{0b00010,0b00110,0b01010,0b10010,0b11111,0b00010,0b00010});
+        put('5', new int[]{0b11111,0b10000,0b10000,0b11110,0b00001,0b00001,0b11110});
+        put('6', new int[]{0b01110,0b10000,0b10000,0b11110,0b10001,0b10001,0b01110});
+        put('7', new int[]{0b11111,0b00001,0b00010,0b00100,0b01000,0b01000,0b01000});
+        put('8', new int[]{0b01110,0b10001,0b10001,0b01110,0b10001,0b10001,0b01110});
+        put('9', new int[]{0b01110,0b10001,0b10001,0b01111,0b00001,0b00001,0b01110});
         // letters
-        FONT.put('A', new int[]{0b01110,0b10001,0b10001,0b11111,0b10001,0b10001,0b10001});
-        FONT.put('B', new int[]{0b11110,0b10001,0b10001,0b11110,0b10001,0b10001,0b11110});
-        FONT.put('C', new int[]{0b01111,0b10000,0b10000,0b10000,0b10000,0b10000,0b01111});
-        FONT.put('D', new int[]{0b11110,0b10001,0b10001,0b10001,0b10001,0b10001,0b11110});
-        FONT.put('E', new int[]{0b11111,0b10000,0b10000,0b11110,0b10000,0b10000,0b11111});
-        FONT.put('F', new int[]{0b11111,0b10000,0b10000,0b11110,0b10000,0b10000,0b10000});
-        FONT.put('G', new int[]{0b01110,0b10001,0b10000,0b10011,0b10001,0b10001,0b01110});
-        FONT.put('H', new int[]{0b10001,0b10001,0b10001,0b11111,0b10001,0b10001,0b10001});
-        FONT.put('I', new int[]{0b11111,0b00100,0b00100,0b00100,0b00100,0b00100,0b11111});
-        FONT.put('J', new int[]{0b00111,0b00010,0b00010,0b00010,0b10010,0b10010,0b01100});
-        FONT.put('K', new int[]{0b10001,0b10010,0b10100,0b11000,0b10100,0b10010,0b10001});
-        FONT.put('L', new int[]{0b10000,0b10000,0b10000,0b10000,0b10000,0b10000,0b11111});
-        FONT.put('M', new int[]{0b10001,0b11011,0b10101,0b10101,0b10001,0b10001,0b10001});
-        FONT.put('N', new int[]{0b10001,0b11001,0b10101,0b10011,0b10001,0b10001,0b10001});
-        FONT.put('O', new int[]{0b01110,0b10001,0b10001,0b10001,0b10001,0b10001,0b01110});
-        FONT.put('P', new int[]{0b11110,0b10001,0b10001,0b11110,0b10000,0b10000,0b10000});
-        FONT.put('Q', new int[]{0b01110,0b10001,0b10001,0b10001,0b10101,0b10010,0b01101});
-        FONT.put('R', new int[]{0b11110,0b10001,0b10001,0b11110,0b10100,0b10010,0b10001});
-        FONT.put('S', new int[]{0b01111,0b10000,0b10000,0b01110,0b00001,0b00001,0b11110});
-        FONT.put('T', new int[]{0b11111,0b00100,0b00100,0b00100,0b00100,0b00100,0b00100});
-        FONT.put('U', new int[]{0b10001,0b10001,0b10001,0b10001,0b10001,0b10001,0b01110});
-        FONT.put('V', new int[]{0b10001,0b10001,0b10001,0b10001,0b01010,0b01010,0b00100});
-        FONT.put('W', new int[]{0b10001,0b10001,0b10001,0b10101,0b10101,0b10101,0b01010});
-        FONT.put('X', new int[]{0b10001,0b10001,0b01010,0b00100,0b01010,0b10001,0b10001});
-        FONT.put('Y', new int[]{0b10001,0b10001,0b01010,0b00100,0b00100,0b00100,0b00100});
-        FONT.put('Z', new int[]{0b11111,0b00001,0b00010,0b00100,0b01000,0b10000,0b11111});
-        FONT.put(' ', new int[]{0,0,0,0,0,0,0});
-        FONT.put(':', new int[]{0,0b00100,0,0,0,0b00100,0});
-        FONT.put('-', new int[]{0,0,0,0b11111,0,0,0});
+        put('A', new int[]{0b01110,0b10001,0b10001,0b11111,0b10001,0b10001,0b10001});
+        put('B', new int[]{0b11110,0b10001,0b10001,0b11110,0b10001,0b10001,0b11110});
+        put('C', new int[]{0b01111,0b10000,0b10000,0b10000,0b10000,0b10000,0b01111});
+        put('D', new int[]{0b11110,0b10001,0b10001,0b10001,0b10001,0b10001,0b11110});
+        put('E', new int[]{0b11111,0b10000,0b10000,0b11110,0b10000,0b10000,0b11111});
+        put('F', new int[]{0b11111,0b10000,0b10000,0b11110,0b10000,0b10000,0b10000});
+        put('G', new int[]{0b01110,0b10001,0b10000,0b10011,0b10001,0b10001,0b01110});
+        put('H', new int[]{0b10001,0b10001,0b10001,0b11111,0b10001,0b10001,0b10001});
+        put('I', new int[]{0b11111,0b00100,0b00100,0b00100,0b00100,0b00100,0b11111});
+        put('J', new int[]{0b00111,0b00010,0b00010,0b00010,0b10010,0b10010,0b01100});
+        put('K', new int[]{0b10001,0b10010,0b10100,0b11000,0b10100,0b10010,0b10001});
+        put('L', new int[]{0b10000,0b10000,0b10000,0b10000,0b10000,0b10000,0b11111});
+        put('M', new int[]{0b10001,0b11011,0b10101,0b10101,0b10001,0b10001,0b10001});
+        put('N', new int[]{0b10001,0b11001,0b10101,0b10011,0b10001,0b10001,0b10001});
+        put('O', new int[]{0b01110,0b10001,0b10001,0b10001,0b10001,0b10001,0b01110});
+        put('P', new int[]{0b11110,0b10001,0b10001,0b11110,0b10000,0b10000,0b10000});
+        put('Q', new int[]{0b01110,0b10001,0b10001,0b10001,0b10101,0b10010,0b01101});
+        put('R', new int[]{0b11110,0b10001,0b10001,0b11110,0b10100,0b10010,0b10001});
+        put('S', new int[]{0b01111,0b10000,0b10000,0b01110,0b00001,0b00001,0b11110});
+        put('T', new int[]{0b11111,0b00100,0b00100,0b00100,0b00100,0b00100,0b00100});
+        put('U', new int[]{0b10001,0b10001,0b10001,0b10001,0b10001,0b10001,0b01110});
+        put('V', new int[]{0b10001,0b10001,0b10001,0b10001,0b01010,0b01010,0b00100});
+        put('W', new int[]{0b10001,0b10001,0b10001,0b10101,0b10101,0b10101,0b01010});
+        put('X', new int[]{0b10001,0b10001,0b01010,0b00100,0b01010,0b10001,0b10001});
+        put('Y', new int[]{0b10001,0b10001,0b01010,0b00100,0b00100,0b00100,0b00100});
+        put('Z', new int[]{0b11111,0b00001,0b00010,0b00100,0b01000,0b10000,0b11111});
+        put(' ', new int[]{0,0,0,0,0,0,0});
+        put(':', new int[]{0,0b00100,0,0,0,0b00100,0});
+        put('-', new int[]{0,0,0,0b11111,0,0,0});
+    }
+
+    private static void put(char c, int[] pattern) {
+        FONT[c] = pattern;
     }
 
     /**
      * Dibuja una cadena de texto utilizando la fuente de píxeles.
      */
     public static void drawString(Graficos g, String text, int x, int y, int scale, Color color) {
-        int cursorX = x;
-        text = text.toUpperCase();
-        for (char c : text.toCharArray()) {
-            int[] pattern = FONT.getOrDefault(c, FONT.get(' '));
-            drawCharPattern(g, pattern, cursorX, y, scale, color);
-            cursorX += (5 + 1) * scale;
-        }
+        drawString(g, text, x, y, scale, color.getRGB());
+    }
+
+    /**
+     * Dibuja una cadena de texto con un color ARGB empaquetado.
+     */
+    public static void drawString(Graficos g, String text, int x, int y, int scale, int color) {
+        g.drawText(text, x, y, scale, color);
     }
 
     /**
-     * Dibuja un carácter individual a partir de su patrón de bits.
+     * Devuelve los tramos del carácter a la escala indicada, rasterizando la
+     * escala la primera vez. Ver {@link #atlas}.
      */
-    private static void drawCharPattern(Graficos g, int[] pattern, int x, int y, int scale, Color color) {
-        for (int row = 0; row < 7; row++) {
+    static int[] glyph(char c, int scale) {
+        if (c >= 'a' && c <= 'z') {
+            c -= 'a' - 'A';
+        }
+        if (c >= FONT.length || FONT[c] == null) {
+            c = ' ';
+        }
+        int[][][] table = atlas;
+        if (scale >= table.length || table[scale] == null) {
+            table = addScale(scale);
+        }
+        return table[scale][c];
+    }
+
+    /** Rasteriza todos los glifos de una escala y publica el atlas que la incluye. */
+    private static synchronized int[][][] addScale(int scale) {
+        int[][][] table = atlas;
+        if (scale < table.length && table[scale] != null) {
+            return table;
+        }
+        int[][] glyphs = new int[FONT.length][];
+        for (int c = 0; c < FONT.length; c++) {
+            if (FONT[c] != null) {
+                glyphs[c] = rasterize(FONT[c], scale);
+            }
+        }
+        table = Arrays.copyOf(table, Math.max(table.length, scale + 1));
+        table[scale] = glyphs;
+        atlas = table;
+        return table;
+    }
+
+    /** Convierte un patrón en tramos, uno por racha de bits encendidos y fila. */
+    private static int[] rasterize(int[] pattern, int scale) {
+        int[] spans = new int[GLYPH_HEIGHT * scale * 3 * 3];
+        int n = 0;
+        for (int row = 0; row < GLYPH_HEIGHT; row++) {
             int bits = pattern[row];
-            for (int col = 0; col < 5; col++) {
-                // Comprobamos si el bit correspondiente está activo
-                if ((bits & (1 << (4 - col))) != 0) {
-                    int x0 = x + col * scale;
-                    int y0 = y + row * scale;
-                    g.fillRect(x0, y0, x0 + scale - 1, y0 + scale - 1, color);
+            int col = 0;
+            while (col < GLYPH_WIDTH) {
+                if ((bits & (1 << (GLYPH_WIDTH - 1 - col))) == 0) {
+                    col++;
+                    continue;
+                }
+                int start = col;
+                while (col < GLYPH_WIDTH && (bits & (1 << (GLYPH_WIDTH - 1 - col))) != 0) {
+                    col++;
+                }
+                for (int dy = 0; dy < scale; dy++) {
+                    spans[n++] = row * scale + dy;
+                    spans[n++] = start * scale;
+                    spans[n++] = col * scale;
                 }
             }
         }
+        return Arrays.copyOf(spans, n);
     }
 }
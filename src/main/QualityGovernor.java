@@ -0,0 +1,127 @@
+package main;
+
+/**
+ * Regulador de calidad para las interacciones. Mide cada cuadro y, mientras
+ * el usuario arrastra el cubo, baja la resolución interna de
+ * {@link Graficos} cuando el tiempo medio de cuadro supera el presupuesto,
+ * y la vuelve a subir cuando la estimación a resolución completa cabe de
+ * nuevo en él. Al terminar la interacción siempre se vuelve a la calidad
+ * completa.
+ */
+public class QualityGovernor {
+
+    /** Presupuesto por defecto de un cuadro, en milisegundos. */
+    public static final double DEFAULT_BUDGET_MS = 20;
+    /** Nivel máximo de reducción: el divisor de resolución es 2^nivel. */
+    private static final int MAX_LEVEL = 2;
+    /** Peso de cada cuadro nuevo en la media móvil. */
+    private static final double SMOOTHING = 0.25;
+    /**
+     * Factor con que se estima el coste del nivel anterior: la mitad de
+     * resolución tiene la cuarta parte de píxeles.
+     */
+    private static final double LEVEL_COST = 4;
+
+    private final double budgetNanos;
+    private int level = 0;
+    private boolean interacting = false;
+    /** Media móvil del tiempo de cuadro en el nivel actual; negativa si no hay. */
+    private double averageNanos = -1;
+    private long lastNanos = 0;
+    private int reductions = 0;
+    private int restorations = 0;
+
+    /**
+     * Crea un regulador con el presupuesto de la propiedad del sistema
+     * {@code rubik.frameBudgetMs}, o {@link #DEFAULT_BUDGET_MS} si no está.
+     */
+    public QualityGovernor() {
+        this(Double.parseDouble(System.getProperty("rubik.frameBudgetMs",
+                String.valueOf(DEFAULT_BUDGET_MS))));
+    }
+
+    /**
+     * @param budgetMs tiempo máximo deseado por cuadro, en milisegundos
+     */
+    public QualityGovernor(double budgetMs) {
+        if (!(budgetMs > 0)) {
+            throw new IllegalArgumentException("Presupuesto de cuadro no válido: " + budgetMs);
+        }
+        this.budgetNanos = budgetMs * 1e6;
+    }
+
+    /** Indica que el usuario está arrastrando el cubo. */
+    public void beginInteraction() {
+        interacting = true;
+    }
+
+    /**
+     * Termina la interacción y vuelve a la calidad completa.
+     *
+     * @return {@code true} si la calidad estaba reducida y hay que redibujar
+     */
+    public boolean endInteraction() {
+        interacting = false;
+        if (level == 0) {
+            return false;
+        }
+        setLevel(0);
+        restorations++;
+        return true;
+    }
+
+    /**
+     * Registra lo que tardó un cuadro y decide el nivel del siguiente.
+     *
+     * @param nanos duración del cuadro en nanosegundos
+     */
+    public void frameRendered(long nanos) {
+        lastNanos = nanos;
+        averageNanos = averageNanos < 0 ? nanos : averageNanos + SMOOTHING * (nanos - averageNanos);
+        if (!interacting) {
+            return;
+        }
+        if (averageNanos > budgetNanos && level < MAX_LEVEL) {
+            setLevel(level + 1);
+            reductions++;
+        } else if (level > 0 && averageNanos * LEVEL_COST < budgetNanos) {
+            setLevel(level - 1);
+            restorations++;
+        }
+    }
+
+    private void setLevel(int newLevel) {
+        level = newLevel;
+        averageNanos = -1; // El coste cambia con el nivel: empezar de nuevo
+    }
+
+    /** Divisor de resolución con que debe dibujarse el próximo cuadro. */
+    public int divisor() {
+        return 1 << level;
+    }
+
+    /** Indica si la calidad está reducida: sin aristas ni etiquetas. */
+    public boolean isReduced() {
+        return level > 0;
+    }
+
+    /** Duración del último cuadro registrado, en milisegundos. */
+    public double lastFrameMs() {
+        return lastNanos / 1e6;
+    }
+
+    /** Presupuesto por cuadro, en milisegundos. */
+    public double budgetMs() {
+        return budgetNanos / 1e6;
+    }
+
+    /** Veces que se ha reducido la resolución. */
+    public int reductions() {
+        return reductions;
+    }
+
+    /** Veces que se ha recuperado resolución. */
+    public int restorations() {
+        return restorations;
+    }
+}
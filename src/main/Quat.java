@@ -0,0 +1,129 @@
+package main;
+
+/**
+ * Cuaternión unitario con campos primitivos para guardar la orientación de la
+ * cámara. Los giros se componen multiplicando cuaterniones, sin pasar por
+ * ángulos de Euler, y la matriz de la vista se obtiene una vez por cuadro con
+ * {@link #toMat3(Mat3)}, que no usa funciones trigonométricas.
+ */
+public final class Quat {
+
+    public double w, x, y, z;
+
+    /** Crea el cuaternión identidad. */
+    public Quat() {
+        w = 1;
+    }
+
+    /** Convierte este cuaternión en la identidad y lo devuelve. */
+    public Quat setIdentity() {
+        w = 1;
+        x = y = z = 0;
+        return this;
+    }
+
+    /** Copia otro cuaternión. */
+    public Quat set(Quat o) {
+        w = o.w;
+        x = o.x;
+        y = o.y;
+        z = o.z;
+        return this;
+    }
+
+    /**
+     * Giro de {@code degrees} grados alrededor de un eje cartesiano, con el
+     * mismo sentido que {@link Mat3#setRotationAxis}.
+     *
+     * @param axis 0=X, 1=Y, 2=Z
+     */
+    public Quat setRotationAxis(int axis, double degrees) {
+        double half = Math.toRadians(degrees) / 2;
+        double s = Math.sin(half);
+        w = Math.cos(half);
+        x = axis == 0 ? s : 0;
+        y = axis == 1 ? s : 0;
+        z = axis == 2 ? s : 0;
+        return this;
+    }
+
+    /**
+     * Giro de ángulos de Euler aplicados en orden X, Y y Z, como
+     * {@link Mat3#setRotation}: {@code qz * qy * qx}.
+     */
+    public Quat setRotation(double angX, double angY, double angZ) {
+        double hx = Math.toRadians(angX) / 2, hy = Math.toRadians(angY) / 2, hz = Math.toRadians(angZ) / 2;
+        double cx = Math.cos(hx), sx = Math.sin(hx);
+        double cy = Math.cos(hy), sy = Math.sin(hy);
+        double cz = Math.cos(hz), sz = Math.sin(hz);
+        w = cz * cy * cx + sz * sy * sx;
+        x = cz * cy * sx - sz * sy * cx;
+        y = cz * sy * cx + sz * cy * sx;
+        z = sz * cy * cx - cz * sy * sx;
+        return this;
+    }
+
+    /**
+     * Guarda en este cuaternión el producto {@code a * b}, es decir, el giro
+     * {@code b} seguido de {@code a}. Cualquiera de los dos factores puede
+     * ser este mismo cuaternión.
+     */
+    public Quat mul(Quat a, Quat b) {
+        double rw = a.w * b.w - a.x * b.x - a.y * b.y - a.z * b.z;
+        double rx = a.w * b.x + a.x * b.w + a.y * b.z - a.z * b.y;
+        double ry = a.w * b.y - a.x * b.z + a.y * b.w + a.z * b.x;
+        double rz = a.w * b.z + a.x * b.y - a.y * b.x + a.z * b.w;
+        w = rw;
+        x = rx;
+        y = ry;
+        z = rz;
+        return this;
+    }
+
+    /**
+     * Devuelve el cuaternión a longitud 1. Tras muchos productos el error de
+     * redondeo lo alargaría o acortaría y la vista acabaría escalada.
+     */
+    public Quat normalize() {
+        double len = Math.sqrt(w * w + x * x + y * y + z * z);
+        w /= len;
+        x /= len;
+        y /= len;
+        z /= len;
+        return this;
+    }
+
+    /** Escribe en {@code out} la matriz de rotación equivalente y la devuelve. */
+    public Mat3 toMat3(Mat3 out) {
+        double xx = x * x, yy = y * y, zz = z * z;
+        double xy = x * y, xz = x * z, yz = y * z;
+        double wx = w * x, wy = w * y, wz = w * z;
+        out.m00 = 1 - 2 * (yy + zz);
+        out.m01 = 2 * (xy - wz);
+        out.m02 = 2 * (xz + wy);
+        out.m10 = 2 * (xy + wz);
+        out.m11 = 1 - 2 * (xx + zz);
+        out.m12 = 2 * (yz - wx);
+        out.m20 = 2 * (xz - wy);
+        out.m21 = 2 * (yz + wx);
+        out.m22 = 1 - 2 * (xx + yy);
+        return out;
+    }
+
+    /** Escribe la matriz de rotación equivalente en un {@code double[3][3]}. */
+    public double[][] toMatrix(double[][] out) {
+        double xx = x * x, yy = y * y, zz = z * z;
+        double xy = x * y, xz = x * z, yz = y * z;
+        double wx = w * x, wy = w * y, wz = w * z;
+        out[0][0] = 1 - 2 * (yy + zz);
+        out[0][1] = 2 * (xy - wz);
+        out[0][2] = 2 * (xz + wy);
+        out[1][0] = 2 * (xy + wz);
+        out[1][1] = 1 - 2 * (xx + zz);
+        out[1][2] = 2 * (yz - wx);
+        out[2][0] = 2 * (xz - wy);
+        out[2][1] = 2 * (yz + wx);
+        out[2][2] = 1 - 2 * (xx + yy);
+        return out;
+    }
+}
@@ -0,0 +1,169 @@
+package main;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hilo de render de un {@link Graficos}. Recibe las listas de comandos que
+ * graba el EDT, las rasteriza sobre un búfer trasero y publica cada cuadro
+ * terminado mediante triple búfer: el hilo de render solo escribe en su
+ * búfer trasero, el panel solo lee el delantero y ambos intercambian el
+ * suyo con el intermedio con una operación atómica, sin bloqueos. Así el
+ * panel nunca muestra un cuadro a medio dibujar y el EDT no espera al
+ * rasterizado.
+ */
+final class RenderLoop implements Runnable {
+
+    /** Bit del intermedio que indica que contiene un cuadro sin mostrar. */
+    private static final int FRESH = 4;
+    /** Máscara del índice de búfer dentro del intermedio. */
+    private static final int INDEX = 3;
+
+    /** Contexto que graba los comandos y cuyo panel se repinta. */
+    private final Graficos owner;
+    /** Los tres lienzos del triple búfer. */
+    private final Graficos[] buffers = new Graficos[3];
+    /** Índice del búfer intermedio más el bit {@link #FRESH}. */
+    private final AtomicInteger middle = new AtomicInteger(1);
+    /** Búfer en el que dibuja el hilo de render. */
+    private int back = 2;
+    /** Búfer que muestra el panel. */
+    private int front = 0;
+    /** Último búfer publicado por el hilo de render. */
+    private int published = 0;
+    /** Divisor de resolución del cuadro que contiene cada búfer. */
+    private final int[] divisors = {1, 1, 1};
+    /** Tiempo de rasterizado del último cuadro publicado. */
+    private volatile long lastRasterNanos = 0;
+    /** Píxeles escritos al rasterizar el último cuadro publicado. */
+    private volatile long lastPixels = 0;
+
+    /** Último cuadro enviado y aún no recogido por el hilo de render. */
+    private final AtomicReference<DisplayList> pending = new AtomicReference<>();
+    /** Lista ya reproducida que el EDT puede reutilizar. */
+    private final AtomicReference<DisplayList> free = new AtomicReference<>();
+    /** Número del último cuadro enviado; solo lo escribe el EDT. */
+    private volatile long submitted = 0;
+    /** Número del último cuadro publicado. */
+    private volatile long completed = 0;
+
+    private volatile boolean running = true;
+    private final Thread thread;
+
+    RenderLoop(Graficos owner) {
+        this.owner = owner;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new Graficos(owner.getWidth(), owner.getHeight());
+            buffers[i].clear();
+        }
+        thread = new Thread(this, "render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Entrega los comandos de un cuadro al hilo de render y devuelve una
+     * lista vacía para grabar el siguiente. Si el cuadro anterior aún no se
+     * había empezado a dibujar se descarta: solo importa el más reciente.
+     */
+    DisplayList submit(DisplayList list, boolean parallel, int shift) {
+        list.setFrame(++submitted, parallel, shift);
+        DisplayList next;
+        do {
+            // El cuadro descartado no llega a dibujarse: su región sucia
+            // pasa al que lo sustituye
+            next = pending.get();
+            if (next != null) {
+                list.includeDirty(next);
+            }
+        } while (!pending.compareAndSet(next, list));
+        LockSupport.unpark(thread);
+        if (next == null) {
+            next = free.getAndSet(null);
+        }
+        if (next == null) {
+            next = new DisplayList();
+        }
+        next.reset();
+        return next;
+    }
+
+    /** Último cuadro publicado; lo llama quien pinta el panel. */
+    BufferedImage frontBuffer() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return buffers[front].getBuffer();
+    }
+
+    /** Divisor de resolución del búfer que devolvió {@link #frontBuffer()}. */
+    int frontDivisor() {
+        return divisors[front];
+    }
+
+    long lastRasterNanos() {
+        return lastRasterNanos;
+    }
+
+    long lastPixels() {
+        return lastPixels;
+    }
+
+    /** Espera a que se publique el último cuadro enviado. */
+    void finish() {
+        long target = submitted;
+        while (completed < target && thread.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /** Detiene el hilo de render tras el cuadro en curso. */
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            DisplayList list = pending.getAndSet(null);
+            if (list == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            long start = System.nanoTime();
+            Graficos target = buffers[back];
+            if (list.usesDepth()) {
+                target.setDepthTest(true);
+            }
+            int x0 = list.dirtyX0(), y0 = list.dirtyY0();
+            int x1 = list.dirtyX1(), y1 = list.dirtyY1();
+            int shift = list.shift();
+            if (x0 > 0 || y0 > 0 || x1 < target.getWidth() >> shift || y1 < target.getHeight() >> shift) {
+                // Cuadro parcial: fuera de la región sucia vale el anterior
+                target.copyFrom(buffers[published]);
+            }
+            target.takePixelsWritten();
+            target.replay(list, list.isParallel());
+            long frame = list.frame();
+            list.reset();
+            divisors[back] = 1 << shift;
+            lastRasterNanos = System.nanoTime() - start;
+            lastPixels = target.takePixelsWritten();
+            free.set(list);
+            // Publicar el cuadro y quedarse con el intermedio como trasero.
+            // Nadie escribe en el publicado hasta que vuelva como trasero.
+            published = back;
+            back = middle.getAndSet(back | FRESH) & INDEX;
+            completed = frame;
+            owner.repaintPanel(x0, y0, x1, y1, shift);
+        }
+    }
+}
@@ -6,12 +6,25 @@ package main;
 public class RenderOptions {
     /** Indica si la pieza debe resaltarse. */
     public boolean highlight = false;
-    /** Rotaciones adicionales en cada eje. */
-    public double extraRotX = 0, extraRotY = 0, extraRotZ = 0;
     /** Traslaciones adicionales en el espacio. */
     public double extraTX = 0, extraTY = 0, extraTZ = 0;
     /** Mostrar etiquetas de las caras. */
     public boolean showLabels = false;
+    /**
+     * Usar el buffer de profundidad de {@link Graficos} en lugar de ordenar
+     * las caras. Las etiquetas se dibujan aparte con
+     * {@link Subcubo#dibujarEtiquetas}.
+     */
+    public boolean depthTest = false;
+    /**
+     * Caras interiores: bit {@code d} activo si la pieza tiene pegada una
+     * vecina en la dirección de la normal de la cara {@code d} (0 -Z, 1 +Z,
+     * 2 -Y, 3 +Y, 4 -X, 5 +X) dentro del cubo. Las caras que apuntan hacia
+     * esas vecinas nunca se ven y no se dibujan.
+     */
+    public int hiddenNeighbours = 0;
     /** Índices del subcubo para etiquetado. */
     public int idxX = 0, idxY = 0, idxZ = 0;
+    /** Estadísticas en las que marcar las etapas del dibujo, o null. */
+    public FrameStats stats = null;
 }
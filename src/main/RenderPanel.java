@@ -10,6 +10,8 @@ import javax.swing.JPanel;
 public class RenderPanel extends JPanel {
     /** Referencia al sistema de dibujo del que se obtendrá el buffer. */
     private final Graficos graficos;
+    /** Tiempo que tardó el último {@link #paintComponent}, en nanosegundos. */
+    private volatile long lastPaintNanos = 0;
 
     /**
      * Crea el panel y lo asocia al contexto gráfico.
@@ -17,16 +19,34 @@ public class RenderPanel extends JPanel {
     public RenderPanel(Graficos graficos) {
         this.graficos = graficos;
         graficos.setPanel(this);
+        // La imagen es opaca y cubre todo el panel, no hace falta pintar fondo
+        setOpaque(true);
         setPreferredSize(new java.awt.Dimension(graficos.getWidth(), graficos.getHeight()));
     }
 
     /**
-     * Pinta en pantalla la última imagen generada.
+     * Pinta en pantalla la última imagen generada. Con hilo de render es el
+     * último cuadro terminado, nunca el que se está dibujando. Al ser una
+     * imagen {@code TYPE_INT_RGB} opaca se copia sin conversiones ni mezcla
+     * alfa. Si el cuadro se dibujó a resolución reducida se amplía su
+     * esquina superior izquierda a todo el panel.
      */
     @Override
     protected void paintComponent(java.awt.Graphics g) {
-        super.paintComponent(g);
+        long start = System.nanoTime();
         BufferedImage img = graficos.getBuffer();
-        g.drawImage(img, 0, 0, null);
+        int divisor = graficos.getBufferDivisor();
+        if (divisor == 1) {
+            g.drawImage(img, 0, 0, null);
+        } else {
+            int w = img.getWidth(), h = img.getHeight();
+            g.drawImage(img, 0, 0, w, h, 0, 0, w / divisor, h / divisor, null);
+        }
+        lastPaintNanos = System.nanoTime() - start;
+    }
+
+    /** Nanosegundos que tardó en copiarse a pantalla el último cuadro. */
+    public long getLastPaintNanos() {
+        return lastPaintNanos;
     }
 }
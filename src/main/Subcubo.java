@@ -5,31 +5,12 @@ package main;
  * orientación, colores y de dibujarse aplicando las transformaciones
  * necesarias.
  */
-import java.awt.Color;
-import java.util.Arrays;
-
 public class Subcubo {
 
     /**
      * Índices de esta pieza dentro del cubo completo.
      */
-    public int x, y, z, size;
-    /**
-     * Coordenadas de los 8 vértices en su espacio local.
-     */
-    private final double[][] vertices;
-    /**
-     * Conexiones entre vértices para dibujar aristas.
-     */
-    private final int[][] aristas;
-    /**
-     * Colores de cada una de las seis caras de la pieza.
-     */
-    private final Color[] colores;
-    /**
-     * Índices de los vértices que componen cada cara.
-     */
-    private final int[][] caras;
+    public int x, y, z;
     /**
      * Coordenadas proyectadas en pantalla de cada vértice.
      */
@@ -39,155 +20,70 @@ public class Subcubo {
      * Se usa para determinar la cara visible más cercana al hacer clic.
      */
     private final double[] faceDepths;
-
     /**
-     * Matriz de rotación acumulada que representa la orientación del subcubo.
+     * Vértices en pantalla, sin truncar, de la cara que se está dibujando.
+     * Se reutilizan en cada llamada a {@link #dibujar}.
+     */
+    private final double[] polyX = new double[4];
+    private final double[] polyY = new double[4];
+    private final double[] polyZ = new double[4];
+    private final int[] pointsX = new int[4];
+    private final int[] pointsY = new int[4];
+    /**
+     * Memoria de trabajo de {@link #dibujar}: los vértices en pantalla y el
+     * orden de las caras. Se reutilizan en cada cuadro para que dibujar la
+     * pieza no reserve memoria.
      */
-    private double[][] rotMatrix;
+    private final double[] projX = new double[8];
+    private final double[] projY = new double[8];
+    private final double[] projZ = new double[8];
+    private final int[] order = new int[6];
 
     /**
-     * Ciclos de rotación de las caras para cada eje.
-     * Cada ciclo describe el orden en que las caras se desplazan al rotar 90°
-     * en sentido horario alrededor del eje correspondiente.
+     * Orientación de la pieza, índice de {@link Orientation}. Determina
+     * también qué pegatina muestra cada cara.
      */
-    private static final int[][] FACE_CYCLES = {
-        {0, 2, 1, 3}, // X axis: back -> bottom -> front -> top
-        {0, 4, 1, 5}, // Y axis: back -> left -> front -> right
-        {3, 5, 2, 4}  // Z axis: top -> right -> bottom -> left
-    };
+    private byte orientation = Orientation.IDENTITY;
 
     /**
      * Crea un subcubo identificándolo por sus índices dentro del cubo de Rubik.
+     * La geometría es la de {@link CubieMesh}, común a todas las piezas; el
+     * tamaño se indica al dibujar.
      */
-    public Subcubo(int ix, int iy, int iz, int size) {
+    public Subcubo(int ix, int iy, int iz) {
         this.x = ix;
         this.y = iy;
         this.z = iz;
-        this.size = size;
-
-        vertices = new double[][]{
-            {-size / 2.0, -size / 2.0, -size / 2.0},
-            {size / 2.0, -size / 2.0, -size / 2.0},
-            {size / 2.0, size / 2.0, -size / 2.0},
-            {-size / 2.0, size / 2.0, -size / 2.0},
-            {-size / 2.0, -size / 2.0, size / 2.0},
-            {size / 2.0, -size / 2.0, size / 2.0},
-            {size / 2.0, size / 2.0, size / 2.0},
-            {-size / 2.0, size / 2.0, size / 2.0}
-        };
-
-        aristas = new int[][]{
-            {0, 1}, {1, 2}, {2, 3}, {3, 0},
-            {4, 5}, {5, 6}, {6, 7}, {7, 4},
-            {0, 4}, {1, 5}, {2, 6}, {3, 7}
-        };
-
-        caras = new int[][]{
-            {0, 1, 2, 3}, // back
-            {4, 5, 6, 7}, // front
-            {0, 1, 5, 4}, // bottom
-            {2, 3, 7, 6}, // top
-            {0, 3, 7, 4}, // left
-            {1, 2, 6, 5} // right
-        };
-
-        colores = new Color[]{
-            new Color(114, 176, 29), // verde
-            new Color(8, 127, 140), // azul 
-            new Color(246, 247, 235), // blanco
-            new Color(97, 41, 64), // morado
-            new Color(242, 92, 84), 
-            new Color(222, 26, 26) // rojo
-        };
 
         screenVertices = new int[8][2];
         faceDepths = new double[6];
-        rotMatrix = identity();
-    }
-
-    /**
-     * Devuelve la posición absoluta del centro del subcubo en función de su
-     * índice y una escala dada. La escala representa la separación relativa
-     * entre piezas.
-     *
-     * @param escala factor de escala aplicado al tamaño
-     * @return vector de tres componentes con las coordenadas en el espacio
-     */
-    public double[] getPosition(double escala) {
-        double posX = (x - 1) * size * escala;
-        double posY = (y - 1) * size * escala;
-        double posZ = (z - 1) * size * escala;
-        return new double[]{posX, posY, posZ};
     }
 
     /**
-     * Aplica una rotación global de 90° alrededor del eje indicado a la
-     * orientación del subcubo.
+     * Gira la pieza 90° alrededor del eje indicado. Actualiza a la vez la
+     * orientación y las pegatinas de cada cara con una consulta a las tablas
+     * de {@link Orientation}.
      *
      * @param axis      eje de rotación (0=X, 1=Y, 2=Z)
      * @param clockwise sentido horario si es {@code true}
      */
-    public void applyGlobalRotation(int axis, boolean clockwise) {
-        double ang = clockwise ? 90 : -90;
-        double[][] r = rotationAxis(axis, ang);
-        rotMatrix = multiply(r, rotMatrix);
-        normalizeRotMatrix();
+    public void turn(int axis, boolean clockwise) {
+        orientation = (byte) Orientation.turn(orientation, axis, clockwise);
     }
 
-    /**
-     * Reordena los colores de las caras tras una rotación alrededor de un eje.
-     *
-     * @param axis      eje de rotación (0=X, 1=Y, 2=Z)
-     * @param clockwise sentido horario si es {@code true}
-     */
-    public void rotateColors(int axis, boolean clockwise) {
-        if (axis < 0 || axis >= FACE_CYCLES.length) {
-            return;
-        }
-        rotateCycle(FACE_CYCLES[axis], clockwise);
+    /** Cambia la orientación, por ejemplo para copiarla de un {@link CubeState}. */
+    void setOrientation(int orientation) {
+        this.orientation = (byte) orientation;
     }
 
-    /**
-     * Rota los colores según el ciclo indicado.
-     *
-     * @param cycle     arreglo con los índices de las caras a rotar
-     * @param clockwise {@code true} para rotación horaria, {@code false} para
-     *                  antihoraria
-     */
-    private void rotateCycle(int[] cycle, boolean clockwise) {
-        Color[] orig = colores.clone();
-        for (int i = 0; i < cycle.length; i++) {
-            int from = cycle[i];
-            int to = cycle[(i + 1) % cycle.length];
-            if (clockwise) {
-                colores[to] = orig[from];
-            } else {
-                colores[from] = orig[to];
-            }
-        }
+    /** Orientación actual, índice de {@link Orientation}. */
+    public int getOrientation() {
+        return orientation;
     }
 
-    /**
-     * Ajusta el tamaño del subcubo sin reiniciar su orientación ni colores.
-     *
-     * @param newSize nuevo tamaño del subcubo
-     */
-    public void setSize(int newSize) {
-        this.size = newSize;
-        double half = newSize / 2.0;
-        double[][] newVerts = new double[][]{
-            {-half, -half, -half},
-            {half, -half, -half},
-            {half, half, -half},
-            {-half, half, -half},
-            {-half, -half, half},
-            {half, -half, half},
-            {half, half, half},
-            {-half, half, half}
-        };
-        for (int i = 0; i < vertices.length; i++) {
-            System.arraycopy(newVerts[i], 0, vertices[i], 0, 3);
-        }
+    /** Pegatina de {@link Palette} que muestra la cara local {@code face}. */
+    public byte getColor(int face) {
+        return Orientation.sticker(orientation, face);
     }
 
     /**
@@ -218,7 +114,7 @@ public class Subcubo {
      */
     public double[] getFaceNormalWorld(int face) {
         double[] local = getFaceNormal(face);
-        return rotar(local, rotMatrix);
+        return rotar(local, Orientation.matrix(orientation));
     }
 
     /**
@@ -232,68 +128,92 @@ public class Subcubo {
      * @return vector normal transformado al espacio global
      */
     public double[] getFaceNormalGlobal(int face, double anguloX, double anguloY, double anguloZ) {
-        double[] world = rotar(getFaceNormal(face), rotMatrix);
+        double[] world = getFaceNormalWorld(face);
         double[][] g = rotation(anguloX, anguloY, anguloZ);
         return rotar(world, g);
     }
 
     /**
-     * Dibuja el subcubo aplicando las transformaciones indicadas.
+     * Dirección, con la numeración de las caras, hacia la que apunta la cara
+     * indicada según la orientación actual de la pieza.
      */
-    public void dibujar(Graficos g, double escala, double anguloX, double anguloY, double anguloZ,
-            int trasX, int trasY, int trasZ, boolean lines, RenderOptions opt) {
-        if (opt == null) {
-            opt = new RenderOptions();
+    public int getFaceDirection(int face) {
+        return Orientation.direction(orientation, face);
+    }
+
+    /**
+     * Dibuja la pieza con los vértices ya transformados de la red del cubo,
+     * sin hacer ninguna transformación propia. La posición de la pieza en la
+     * red se toma de {@link RenderOptions#idxX}, {@code idxY} e {@code idxZ};
+     * {@code layer} indica si sus vértices son los de la capa que gira. Solo
+     * se rellenan las caras orientadas hacia el observador (en proyección
+     * ortográfica las demás quedan tapadas por la propia pieza) que no estén
+     * pegadas a una vecina según {@link RenderOptions#hiddenNeighbours}.
+     *
+     * @return número de caras descartadas
+     */
+    public int dibujar(Graficos g, CubeLattice lattice, boolean layer, boolean lines, RenderOptions opt) {
+        double[] lx = layer ? lattice.layerX : lattice.x;
+        double[] ly = layer ? lattice.layerY : lattice.y;
+        double[] lz = layer ? lattice.layerZ : lattice.z;
+        double centerZ = 0;
+        for (int i = 0; i < CubieMesh.VERTICES; i++) {
+            int p = CubeLattice.vertexIndex(opt.idxX, opt.idxY, opt.idxZ, orientation, i);
+            projX[i] = lx[p] + opt.extraTX;
+            projY[i] = ly[p] + opt.extraTY;
+            projZ[i] = lz[p] + opt.extraTZ;
+            screenVertices[i][0] = (int) projX[i];
+            screenVertices[i][1] = (int) projY[i];
+            centerZ += projZ[i];
         }
+        centerZ /= 8;
+        return rasterizar(g, centerZ, lines, opt);
+    }
+
+    /**
+     * Ordena, descarta y pinta las caras a partir de los vértices en
+     * pantalla que {@link #dibujar} dejó en {@link #projX}, {@link #projY} y
+     * {@link #projZ}.
+     *
+     * @param centerZ profundidad del centro de la pieza
+     * @return número de caras descartadas
+     */
+    private int rasterizar(Graficos g, double centerZ, boolean lines, RenderOptions opt) {
         boolean highlight = opt.highlight;
-        double extraRotX = opt.extraRotX;
-        double extraRotY = opt.extraRotY;
-        double extraRotZ = opt.extraRotZ;
-        double extraTX = opt.extraTX;
-        double extraTY = opt.extraTY;
-        double extraTZ = opt.extraTZ;
         boolean showLabels = opt.showLabels;
-        int idxX = opt.idxX;
-        int idxY = opt.idxY;
-        int idxZ = opt.idxZ;
+        boolean depthTest = opt.depthTest;
+        FrameStats stats = opt.stats;
 
-        double[][] orientation = rotMatrix;
-        if (extraRotX != 0) {
-            orientation = multiply(rotationAxis(0, extraRotX), orientation);
-        }
-        if (extraRotY != 0) {
-            orientation = multiply(rotationAxis(1, extraRotY), orientation);
-        }
-        if (extraRotZ != 0) {
-            orientation = multiply(rotationAxis(2, extraRotZ), orientation);
-        }
-        double[][] globalRot = rotation(anguloX, anguloY, anguloZ);
-        double[][] rotadas = new double[8][3];
-        for (int i = 0; i < 8; i++) {
-            double[] local = rotar(vertices[i], orientation);
-            rotadas[i] = rotar(local, globalRot);
+        // Algoritmo del pintor
+        double[] profundidades = faceDepths;
+        for (int i = 0; i < CubieMesh.FACES; i++) {
+            profundidades[i] = (projZ[CubieMesh.faceVertex(i, 0)] + projZ[CubieMesh.faceVertex(i, 1)]
+                    + projZ[CubieMesh.faceVertex(i, 2)] + projZ[CubieMesh.faceVertex(i, 3)]) / 4.0;
         }
 
-        // Aplicar traslación a los vértices rotados
-        double[][] trasladadas = new double[8][3];
-        for (int i = 0; i < 8; i++) {
-            trasladadas[i][0] = rotadas[i][0] * escala + trasX + extraTX;
-            trasladadas[i][1] = rotadas[i][1] * escala + trasY + extraTY;
-            trasladadas[i][2] = rotadas[i][2] * escala + trasZ + extraTZ;
-            screenVertices[i][0] = (int) trasladadas[i][0];
-            screenVertices[i][1] = (int) trasladadas[i][1];
+        if (stats != null) {
+            stats.lap(FrameStats.TRANSFORM);
         }
 
-        // Algoritmo del pintor
-        double[] profundidades = new double[6];
+        // Con buffer de profundidad las caras se pintan en cualquier orden;
+        // sin él, de la más lejana a la más cercana (inserción estable)
+        int[] indices = order;
         for (int i = 0; i < 6; i++) {
-            profundidades[i] = (trasladadas[caras[i][0]][2] + trasladadas[caras[i][1]][2]
-                    + trasladadas[caras[i][2]][2] + trasladadas[caras[i][3]][2]) / 4.0;
-            faceDepths[i] = profundidades[i];
+            int f = i;
+            if (!depthTest) {
+                int j = i;
+                while (j > 0 && profundidades[indices[j - 1]] < profundidades[f]) {
+                    indices[j] = indices[j - 1];
+                    j--;
+                }
+                indices[j] = f;
+            } else {
+                indices[i] = f;
+            }
+        }
+        if (stats != null) {
+            stats.lap(FrameStats.SORT);
         }
-
-        Integer[] indices = {0, 1, 2, 3, 4, 5};
-        Arrays.sort(indices, (a, b) -> Double.compare(profundidades[b], profundidades[a]));
 
         int brightestFace = 0;
         double minDepth = profundidades[0];
@@ -304,52 +224,111 @@ public class Subcubo {
             }
         }
 
+        int culled = 0;
         for (int i : indices) {
-            int[] xPoints = new int[4];
-            int[] yPoints = new int[4];
+            if (profundidades[i] >= centerZ || (opt.hiddenNeighbours != 0
+                    && (opt.hiddenNeighbours & (1 << getFaceDirection(i))) != 0)) {
+                culled++;
+                continue;
+            }
+            int[] xPoints = pointsX;
+            int[] yPoints = pointsY;
             for (int j = 0; j < 4; j++) {
-                xPoints[j] = (int) trasladadas[caras[i][j]][0];
-                yPoints[j] = (int) trasladadas[caras[i][j]][1];
+                int v = CubieMesh.faceVertex(i, j);
+                polyX[j] = projX[v];
+                polyY[j] = projY[v];
+                polyZ[j] = projZ[v];
+                xPoints[j] = (int) polyX[j];
+                yPoints[j] = (int) polyY[j];
             }
-            Color c = colores[i];
-            if (highlight) {
-                c = c.darker();
-                if (i == brightestFace) {
-                    c = c.brighter();
-                }
+            int c = Palette.sticker(Orientation.sticker(orientation, i), highlight, i == brightestFace);
+            if (depthTest) {
+                g.fillPolygon(polyX, polyY, polyZ, 4, c);
+            } else {
+                g.fillPolygon(polyX, polyY, 4, c); // Pintar caras con precisión subpíxel
             }
-            g.fillPolygon(xPoints, yPoints, 4, c); // Pintar caras
             if (lines) {
                 for (int j = 0; j < 4; j++) {
                     int next = (j + 1) % 4;
-                    g.drawLine(xPoints[j], yPoints[j], xPoints[next], yPoints[next], Color.BLACK);
+                    if (depthTest) {
+                        g.drawLine(xPoints[j], yPoints[j], polyZ[j],
+                                xPoints[next], yPoints[next], polyZ[next], Palette.EDGE);
+                    } else {
+                        g.drawLine(xPoints[j], yPoints[j], xPoints[next], yPoints[next], Palette.EDGE);
+                    }
                 }
             }
-            if (showLabels) {
-                String label = getFaceLabel(i, idxX, idxY, idxZ);
+            if (showLabels && !depthTest) {
+                String label = getFaceLabel(i, opt.idxX, opt.idxY, opt.idxZ);
                 if (label != null) {
                     int cx = (xPoints[0] + xPoints[1] + xPoints[2] + xPoints[3]) / 4;
                     int cy = (yPoints[0] + yPoints[1] + yPoints[2] + yPoints[3]) / 4;
-                    PixelFont.drawString(g, label, cx - 4, cy - 4, 1, Color.BLACK);
+                    PixelFont.drawString(g, label, cx - 4, cy - 4, 1, Palette.EDGE);
                 }
             }
         }
+        if (stats != null) {
+            stats.lap(FrameStats.RASTER);
+        }
+        return culled;
+    }
+
+    /**
+     * Dibuja las etiquetas de las caras usando la última proyección
+     * calculada en {@link #dibujar}. Se usa con el buffer de profundidad, una
+     * vez pintado todo el cubo, y solo etiqueta las caras cuyo centro quedó
+     * visible.
+     */
+    public void dibujarEtiquetas(Graficos g, int idxX, int idxY, int idxZ) {
+        for (int i = 0; i < CubieMesh.FACES; i++) {
+            int cx = 0, cy = 0;
+            for (int j = 0; j < 4; j++) {
+                int v = CubieMesh.faceVertex(i, j);
+                cx += screenVertices[v][0];
+                cy += screenVertices[v][1];
+            }
+            cx /= 4;
+            cy /= 4;
+            String label = getFaceLabel(i, idxX, idxY, idxZ);
+            if (label == null) {
+                continue;
+            }
+            if (g.beginVisibleIf(cx, cy, faceDepths[i])) {
+                PixelFont.drawString(g, label, cx - 4, cy - 4, 1, Palette.EDGE);
+            }
+            g.endVisibleIf();
+        }
+    }
+
+    /**
+     * Etiquetas de las caras, {@code LABELS[cara][número - 1]}, creadas una
+     * sola vez para no concatenar cadenas en cada cuadro.
+     */
+    private static final String[][] LABELS = new String[6][9];
+
+    static {
+        String letters = "FAECDB"; // back, front, bottom, top, left, right
+        for (int face = 0; face < 6; face++) {
+            for (int n = 0; n < 9; n++) {
+                LABELS[face][n] = (letters.charAt(face) + String.valueOf(n + 1)).intern();
+            }
+        }
     }
 
     private String getFaceLabel(int face, int ix, int iy, int iz) {
         switch (face) {
             case 1: // front
-                return "A" + (iy * 3 + (2 - ix) + 1);
+                return LABELS[face][iy * 3 + (2 - ix)];
             case 5: // right
-                return "B" + (iy * 3 + iz + 1);
+                return LABELS[face][iy * 3 + iz];
             case 3: // top
-                return "C" + (iz * 3 + ix + 1);
+                return LABELS[face][iz * 3 + ix];
             case 4: // left
-                return "D" + (iy * 3 + (2 - iz) + 1);
+                return LABELS[face][iy * 3 + (2 - iz)];
             case 2: // bottom
-                return "E" + ((2 - iz) * 3 + ix + 1);
+                return LABELS[face][(2 - iz) * 3 + ix];
             case 0: // back
-                return "F" + (iy * 3 + ix + 1);
+                return LABELS[face][iy * 3 + ix];
             default:
                 return null;
         }
@@ -362,17 +341,6 @@ public class Subcubo {
         return multiply(matriz, punto);
     }
 
-    /**
-     * Devuelve la matriz identidad 3x3.
-     */
-    private static double[][] identity() {
-        return new double[][]{
-            {1, 0, 0},
-            {0, 1, 0},
-            {0, 0, 1}
-        };
-    }
-
     /**
      * Crea una matriz de rotación a partir de ángulos de Euler aplicados en
      * orden X, luego Y y finalmente Z.
@@ -437,97 +405,18 @@ public class Subcubo {
         };
     }
 
-    /**
-     * Producto cruz entre dos vectores de 3 componentes.
-     */
-    private static double[] cross(double[] a, double[] b) {
-        return new double[]{
-            a[1] * b[2] - a[2] * b[1],
-            a[2] * b[0] - a[0] * b[2],
-            a[0] * b[1] - a[1] * b[0]
-        };
-    }
-
-    /**
-     * Producto punto entre dos vectores de 3 componentes.
-     */
-    private static double dot(double[] a, double[] b) {
-        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
-    }
-
-    /**
-     * Normaliza un vector a longitud 1.
-     */
-    private static void normalize(double[] v) {
-        double len = Math.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
-        if (len == 0) {
-            return;
-        }
-        v[0] /= len;
-        v[1] /= len;
-        v[2] /= len;
-    }
-
-    /**
-     * Normaliza la matriz de rotación acumulada {@link #rotMatrix} corrigiendo
-     * pequeñas desviaciones numéricas para mantenerla en un estado discreto
-     * (valores -1, 0 o 1). Esto evita la acumulación de errores tras muchas
-     * rotaciones.
-     */
-    private void normalizeRotMatrix() {
-        double eps = 1e-9;
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                double v = rotMatrix[i][j];
-                if (Math.abs(v) < eps) {
-                    rotMatrix[i][j] = 0;
-                } else if (Math.abs(v - 1) < eps) {
-                    rotMatrix[i][j] = 1;
-                } else if (Math.abs(v + 1) < eps) {
-                    rotMatrix[i][j] = -1;
-                } else {
-                    rotMatrix[i][j] = Math.round(v);
-                }
-            }
-        }
-        // Reconstruir a partir de estados discretos garantizando una base
-        // ortonormal y con determinante 1. Seleccionamos el eje dominante de
-        // cada fila y usamos un producto cruz para obtener el tercer eje.
-        double[][] axes = new double[3][3];
-        for (int i = 0; i < 3; i++) {
-            int maxIdx = 0;
-            for (int j = 1; j < 3; j++) {
-                if (Math.abs(rotMatrix[i][j]) > Math.abs(rotMatrix[i][maxIdx])) {
-                    maxIdx = j;
-                }
-            }
-            double sign = Math.signum(rotMatrix[i][maxIdx]);
-            axes[i][maxIdx] = sign == 0 ? 1 : sign;
-        }
-        double[] cross = cross(axes[0], axes[1]);
-        normalize(cross);
-        // Alinear el tercer eje con el signo originalmente detectado para la
-        // tercera fila
-        if (dot(cross, axes[2]) < 0) {
-            for (int i = 0; i < 3; i++) {
-                cross[i] = -cross[i];
-            }
-        }
-        axes[2] = cross;
-        rotMatrix = axes;
-    }
-
     /**
      * Determina si un punto en pantalla se encuentra dentro de la proyección de
      * este subcubo.
      */
     public boolean containsPoint(int px, int py) {
-        for (int[] face : caras) {
+        for (int face = 0; face < CubieMesh.FACES; face++) {
             int[] xs = new int[4];
             int[] ys = new int[4];
             for (int i = 0; i < 4; i++) {
-                xs[i] = screenVertices[face[i]][0];
-                ys[i] = screenVertices[face[i]][1];
+                int v = CubieMesh.faceVertex(face, i);
+                xs[i] = screenVertices[v][0];
+                ys[i] = screenVertices[v][1];
             }
             if (pointInPolygon(px, py, xs, ys)) {
                 return true;
@@ -559,12 +448,13 @@ public class Subcubo {
     public int faceAt(int px, int py) {
         int selected = -1;
         double bestDepth = Double.MAX_VALUE;
-        for (int faceIdx = 0; faceIdx < caras.length; faceIdx++) {
+        for (int faceIdx = 0; faceIdx < CubieMesh.FACES; faceIdx++) {
             int[] xs = new int[4];
             int[] ys = new int[4];
             for (int i = 0; i < 4; i++) {
-                xs[i] = screenVertices[caras[faceIdx][i]][0];
-                ys[i] = screenVertices[caras[faceIdx][i]][1];
+                int v = CubieMesh.faceVertex(faceIdx, i);
+                xs[i] = screenVertices[v][0];
+                ys[i] = screenVertices[v][1];
             }
             if (pointInPolygon(px, py, xs, ys)) {
                 double depth = faceDepths[faceIdx];
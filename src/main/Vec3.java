@@ -0,0 +1,29 @@
+package main;
+
+/**
+ * Vector de tres componentes con campos primitivos. Se usa como destino
+ * reutilizable de las transformaciones de {@link Mat3}, de modo que el
+ * cálculo de cada cuadro no reserva arreglos.
+ */
+public final class Vec3 {
+
+    public double x, y, z;
+
+    /** Crea el vector nulo. */
+    public Vec3() {
+    }
+
+    public Vec3(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /** Cambia las tres componentes y devuelve este vector. */
+    public Vec3 set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+}
@@ -0,0 +1,141 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que un {@link Algorithm} compilado deja el cubo igual que
+ * aplicar sus movimientos uno a uno, también al componerlo, invertirlo o
+ * repetirlo, también un número enorme de veces, y que su orden es el
+ * conocido.
+ */
+public class AlgorithmTest {
+
+    private static int[] randomMoves(Random rnd, int n) {
+        int[] moves = new int[n];
+        for (int i = 0; i < n; i++) {
+            moves[i] = rnd.nextInt(CubeState.MOVES);
+        }
+        return moves;
+    }
+
+    @Test
+    public void compiledSequencesMatchTheirMoves() {
+        Random rnd = new Random(17);
+        for (int t = 0; t < 50; t++) {
+            CubeState start = new CubeState();
+            start.apply(randomMoves(rnd, 30));
+            int[] moves = randomMoves(rnd, 1 + rnd.nextInt(40));
+            CubeState expected = start.copy();
+            expected.apply(moves);
+            CubeState actual = start.copy();
+            actual.apply(Algorithm.of(moves));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void composingPowersAndInversesMatchRepeating() {
+        Random rnd = new Random(23);
+        int[] a = randomMoves(rnd, 12);
+        int[] b = randomMoves(rnd, 7);
+        CubeState expected = new CubeState();
+        expected.apply(a);
+        expected.apply(b);
+        CubeState actual = new CubeState();
+        actual.apply(Algorithm.of(a).then(Algorithm.of(b)));
+        assertEquals(expected, actual);
+
+        Algorithm alg = Algorithm.of(a);
+        for (int k = 0; k < 40; k++) {
+            CubeState repeated = new CubeState();
+            for (int i = 0; i < k; i++) {
+                repeated.apply(a);
+            }
+            CubeState powered = new CubeState();
+            powered.apply(alg.power(k));
+            assertEquals("k=" + k, repeated, powered);
+        }
+        assertEquals(Algorithm.IDENTITY, alg.then(alg.inverse()));
+        assertEquals(alg.inverse().power(5), alg.power(-5));
+    }
+
+    @Test
+    public void ordersAreTheKnownOnes() {
+        assertEquals(1, Algorithm.IDENTITY.order());
+        assertEquals(4, CubeEngine.compile("R").order());
+        assertEquals(2, CubeEngine.compile("R2").order());
+        assertEquals(4, CubeEngine.compile("M").order());
+        assertEquals(6, CubeEngine.compile("R U R' U'").order());
+        assertEquals(6, CubeEngine.compile("R2 U2").order());
+        assertEquals(105, CubeEngine.compile("R U").order());
+        assertEquals(1260, CubeEngine.compile("R U2 D' B D'").order());
+    }
+
+    @Test
+    public void repeatingTheOrderSolvesTheCube() {
+        Random rnd = new Random(29);
+        for (int t = 0; t < 30; t++) {
+            Algorithm alg = Algorithm.of(randomMoves(rnd, 1 + rnd.nextInt(10)));
+            int order = alg.order();
+            CubeEngine e = new CubeEngine();
+            e.apply(alg.power(order));
+            assertTrue(e.isSolved());
+            for (int k = 1; k < order; k++) {
+                if (order % k == 0) {
+                    e.reset();
+                    e.apply(alg.power(k));
+                    assertFalse("k=" + k + " de " + order, e.isSolved());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void wholeCubeRotationsCountPiecesInTheirHomeSlots() {
+        for (String rotation : new String[]{"R M' L'", "U E' D'", "F S B'"}) {
+            Algorithm alg = CubeEngine.compile(rotation);
+            assertEquals(rotation, 4, alg.order());
+            CubeEngine e = new CubeEngine();
+            e.apply(alg);
+            assertTrue(rotation, e.isSolved());
+            CubeState c = new CubeState();
+            for (int k = 1; k <= 4; k++) {
+                c.apply(alg);
+                boolean home = true;
+                for (int s = 0; s < CubeState.SLOTS; s++) {
+                    home &= c.piece(s) == s;
+                }
+                assertEquals(rotation + " k=" + k, k == 4, home);
+            }
+        }
+    }
+
+    @Test
+    public void hugePowersReduceModuloThePeriod() {
+        int[] log = randomMoves(new Random(31), 100_000);
+        Algorithm alg = Algorithm.of(log);
+        // Periodo exacto, contando también el giro de los centros
+        int period = 1;
+        for (Algorithm a = alg; !a.equals(Algorithm.IDENTITY) && period <= 100_000; a = a.then(alg)) {
+            period++;
+        }
+        assertTrue("periodo " + period, period <= 100_000);
+        // Repetir 10^9 veces solo termina si power compone por cuadrados
+        long k = 1_000_000_007L;
+        Algorithm powered = alg.power(k);
+        assertEquals(alg.power(k % period), powered);
+
+        // alg^k = alg^(k mod periodo), aplicado paso a paso
+        CubeState repeated = new CubeState();
+        for (long i = 0; i < k % period; i++) {
+            repeated.apply(alg);
+        }
+        CubeState actual = new CubeState();
+        actual.apply(powered);
+        assertEquals(repeated, actual);
+    }
+}
@@ -53,8 +53,8 @@ public class ArrowKeyLayerSelectionTest {
             selYF.setInt(c, 1);
             selZF.setInt(c, 2);
             selFaceF.setInt(c, 1); // front face
-            Subcubo[][][] cubo = (Subcubo[][][]) cuboField.get(c);
-            Subcubo selected = cubo[1][1][2];
+            Subcubo[] cubo = (Subcubo[]) cuboField.get(c);
+            Subcubo selected = cubo[CubeState.slot(1, 1, 2)];
             double[] arrow;
             switch (key) {
                 case KeyEvent.VK_UP: arrow = new double[]{0, -1, 0}; break;
@@ -68,13 +68,13 @@ public class ArrowKeyLayerSelectionTest {
 
             pressKeyAndWait(c, key);
 
-            cubo = (Subcubo[][][]) cuboField.get(c);
+            cubo = (Subcubo[]) cuboField.get(c);
             int nx = -1, ny = -1, nz = -1;
             outer:
             for (int ix = 0; ix < 3; ix++) {
                 for (int iy = 0; iy < 3; iy++) {
                     for (int iz = 0; iz < 3; iz++) {
-                        if (cubo[ix][iy][iz] == selected) {
+                        if (cubo[CubeState.slot(ix, iy, iz)] == selected) {
                             nx = ix; ny = iy; nz = iz;
                             break outer;
                         }
@@ -76,8 +76,8 @@ public class ArrowKeyOrientationIntegrationTest {
 
             applyRot.invoke(c, rot[0], (double) rot[1]);
 
-            Subcubo[][][] cubo = (Subcubo[][][]) cuboField.get(c);
-            Subcubo selected = cubo[1][1][2];
+            Subcubo[] cubo = (Subcubo[]) cuboField.get(c);
+            Subcubo selected = cubo[CubeState.slot(1, 1, 2)];
 
             for (int i = 0; i < keys.length; i++) {
                 int key = keys[i];
@@ -88,13 +88,13 @@ public class ArrowKeyOrientationIntegrationTest {
 
                 pressKeyAndWait(c, key);
 
-                cubo = (Subcubo[][][]) cuboField.get(c);
+                cubo = (Subcubo[]) cuboField.get(c);
                 int nx = -1, ny = -1, nz = -1;
                 outer:
                 for (int ix = 0; ix < 3; ix++) {
                     for (int iy = 0; iy < 3; iy++) {
                         for (int iz = 0; iz < 3; iz++) {
-                            if (cubo[ix][iy][iz] == selected) {
+                            if (cubo[CubeState.slot(ix, iy, iz)] == selected) {
                                 nx = ix; ny = iy; nz = iz;
                                 break outer;
                             }
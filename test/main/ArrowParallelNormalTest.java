@@ -35,7 +35,7 @@ public class ArrowParallelNormalTest {
     }
 
     private int[] call(double[] arrow, int face) throws Exception {
-        Subcubo sc = new Subcubo(0,0,0,1);
+        Subcubo sc = new Subcubo(0, 0, 0);
         return (int[]) getArrow.invoke(cubo, arrow, sc, face);
     }
 
@@ -0,0 +1,50 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que {@link CubeCli} escribe una línea por secuencia y se
+ * detiene en la primera que no entiende.
+ */
+public class CubeCliTest {
+
+    private static String run(String input, boolean checksum, int expectedError) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(expectedError, CubeCli.run(new BufferedReader(new StringReader(input)), out, checksum));
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    private static String after(String sequence) {
+        CubeEngine e = new CubeEngine();
+        e.apply(sequence);
+        return e.facelets();
+    }
+
+    @Test
+    public void writesOneStatePerLine() throws Exception {
+        String solved = after("");
+        assertEquals(solved + "\n" + after("R U") + "\n" + solved + "\n", run("\nR U\nR U U' R'\n", false, 0));
+    }
+
+    @Test
+    public void checksumsDependOnlyOnTheFacelets() throws Exception {
+        String[] lines = run("R\nR\nU2 D2 U2 D2\n\nU\n", true, 0).split("\n");
+        assertEquals(5, lines.length);
+        assertEquals(16, lines[0].length());
+        assertEquals(lines[0], lines[1]);
+        assertEquals(lines[2], lines[3]);
+        assertNotEquals(lines[0], lines[4]);
+    }
+
+    @Test
+    public void stopsAtTheFirstBadLine() throws Exception {
+        assertEquals(after("R") + "\n", run("R\nR Q\nU\n", false, 2));
+    }
+}
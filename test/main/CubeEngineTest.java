@@ -0,0 +1,70 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Comprueba {@link CubeEngine} contra las pegatinas conocidas de cada giro
+ * en el orden {@code URFDLB} y que las secuencias escritas se analizan bien.
+ */
+public class CubeEngineTest {
+
+    private static final String SOLVED = "UUUUUUUUURRRRRRRRRFFFFFFFFFDDDDDDDDDLLLLLLLLLBBBBBBBBB";
+
+    private static String after(String sequence) {
+        CubeEngine e = new CubeEngine();
+        e.apply(sequence);
+        return e.facelets();
+    }
+
+    @Test
+    public void faceTurnsMatchTheStandardFacelets() {
+        assertEquals(SOLVED, after(""));
+        assertEquals("UUFUUFUUFRRRRRRRRRFFDFFDFFDDDBDDBDDBLLLLLLLLLUBBUBBUBB", after("R"));
+        assertEquals("UUUUUUUUUBBBRRRRRRRRRFFFFFFDDDDDDDDDFFFLLLLLLLLLBBBBBB", after("U"));
+        assertEquals("UUUUUULLLURRURRURRFFFFFFFFFRRRDDDDDDLLDLLDLLDBBBBBBBBB", after("F"));
+        assertEquals("UUUUUUUUURRRRRRFFFFFFFFFLLLDDDDDDDDDLLLLLLBBBBBBBBBRRR", after("D"));
+        assertEquals("BUUBUUBUURRRRRRRRRUFFUFFUFFFDDFDDFDDLLLLLLLLLBBDBBDBBD", after("L"));
+        assertEquals("RRRUUUUUURRDRRDRRDFFFFFFFFFDDDDDDLLLULLULLULLBBBBBBBBB", after("B"));
+    }
+
+    @Test
+    public void slicesFollowTheirFaces() {
+        // M gira como L, E como D y S como F
+        assertEquals(after("R L'"), after("R L' M2 M2"));
+        assertEquals("UBUUBUUBURRRRRRRRRFUFFUFFUFDFDDFDDFDLLLLLLLLLBDBBDBBDB", after("M"));
+        assertEquals("UUUUUUUUURRRFFFRRRFFFLLLFFFDDDDDDDDDLLLBBBLLLBBBRRRBBB", after("E"));
+        assertEquals("UUULLLUUURURRURRURFFFFFFFFFDDDRRRDDDLDLLDLLDLBBBBBBBBB", after("S"));
+        assertEquals(after("L' R"), after("M' L' R M"));
+    }
+
+    @Test
+    public void solvedIgnoresCenterSpin() {
+        CubeEngine e = new CubeEngine();
+        assertTrue(e.isSolved());
+        assertEquals(4, e.apply("R U R' U'"));
+        assertFalse(e.isSolved());
+        for (int i = 0; i < 5; i++) {
+            e.apply("RUR'U'");
+        }
+        assertTrue(e.isSolved());
+        e.apply("U R L U2 R' L' U R L U2 R' L'");
+        // El centro de U ha dado media vuelta, pero no se ve
+        assertTrue(e.isSolved());
+        assertNotEquals(new CubeState(), e.state());
+        e.reset();
+        assertEquals(new CubeState(), e.state());
+    }
+
+    @Test
+    public void unknownMovesAreRejected() {
+        CubeEngine e = new CubeEngine();
+        try {
+            e.apply("R U X");
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals(after("R U"), e.facelets());
+        }
+    }
+}
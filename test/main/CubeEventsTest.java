@@ -0,0 +1,69 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.awt.event.KeyEvent;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que los eventos de JFR del cubo solo se graban cuando la
+ * grabación los activa.
+ */
+public class CubeEventsTest {
+
+    /** Maneja una pulsación con {@code enabled} activados y devuelve lo grabado. */
+    private List<RecordedEvent> record(String... enabled) throws Exception {
+        Path file = Files.createTempFile("rubik", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : enabled) {
+                recording.enable(name);
+            }
+            recording.start();
+            KeyEvent key = new KeyEvent(new javax.swing.JPanel(), KeyEvent.KEY_PRESSED, System.currentTimeMillis(),
+                    0, KeyEvent.VK_R, 'r');
+            CubeEvents.Input input = CubeEvents.beginInput();
+            CubeEvents.endInput(input, "keyPressed", key);
+            CubeEvents.LayerMove move = new CubeEvents.LayerMove();
+            move.begin();
+            if (move.shouldCommit()) {
+                move.axis = 2;
+                move.layer = 1;
+                move.commit();
+            }
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            events.removeIf(e -> !e.getEventType().getName().startsWith("rubik."));
+            return events;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void eventsAreDisabledByDefault() throws Exception {
+        assertTrue(record().isEmpty());
+    }
+
+    @Test
+    public void enabledEventsCarryTheirFields() throws Exception {
+        List<RecordedEvent> events = record("rubik.Input");
+        assertEquals(1, events.size());
+        RecordedEvent input = events.get(0);
+        assertEquals("keyPressed", input.getString("type"));
+        assertEquals(KeyEvent.VK_R, input.getInt("keyCode"));
+
+        events = record("rubik.LayerMove");
+        assertEquals(1, events.size());
+        assertEquals(2, events.get(0).getInt("axis"));
+        assertEquals(1, events.get(0).getInt("layer"));
+    }
+}
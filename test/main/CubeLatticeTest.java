@@ -0,0 +1,90 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que los puntos de {@link CubeLattice} coinciden con los vértices
+ * que cada pieza calcularía por su cuenta, con cualquier orientación y
+ * también en la capa que gira.
+ */
+public class CubeLatticeTest {
+
+    private static final double SIZE = 80;
+
+    /** Vértice local {@code v} de la pieza transformado por separado. */
+    private static Vec3 cubieVertex(Mat3 m, int ix, int iy, int iz, int orientation, int v) {
+        Vec3 p = Orientation.mat3(orientation).transform(CubieMesh.x(v) * SIZE, CubieMesh.y(v) * SIZE,
+                CubieMesh.z(v) * SIZE, new Vec3());
+        p.set(p.x + (ix - 1) * SIZE, p.y + (iy - 1) * SIZE, p.z + (iz - 1) * SIZE);
+        return m.transform(p).set(p.x + 400, p.y + 300, p.z);
+    }
+
+    @Test
+    public void everyCubieVertexIsALatticePoint() {
+        Mat3 view = new Mat3().setRotation(30, 30, 0);
+        CubeLattice lattice = new CubeLattice();
+        lattice.transform(view, SIZE, 400, 300, 0);
+        for (int o = 0; o < Orientation.COUNT; o++) {
+            for (int ix = 0; ix < 3; ix++) {
+                for (int iy = 0; iy < 3; iy++) {
+                    for (int iz = 0; iz < 3; iz++) {
+                        for (int v = 0; v < CubieMesh.VERTICES; v++) {
+                            Vec3 e = cubieVertex(view, ix, iy, iz, o, v);
+                            int p = CubeLattice.vertexIndex(ix, iy, iz, o, v);
+                            assertEquals(e.x, lattice.x[p], 1e-9);
+                            assertEquals(e.y, lattice.y[p], 1e-9);
+                            assertEquals(e.z, lattice.z[p], 1e-9);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void wideTurnsTransformEveryTurningLayer() {
+        Mat3 view = new Mat3().setRotation(15, -60, 0);
+        Mat3 layer = new Mat3().mul(view, new Mat3().setRotationAxis(0, 45));
+        CubeLattice lattice = new CubeLattice();
+        lattice.transform(view, SIZE, 400, 300, 0);
+        lattice.transformLayer(layer, 0, 0, 1, SIZE, 400, 300, 0);
+        for (int ix = 0; ix < 2; ix++) {
+            for (int iy = 0; iy < 3; iy++) {
+                for (int iz = 0; iz < 3; iz++) {
+                    for (int v = 0; v < CubieMesh.VERTICES; v++) {
+                        Vec3 e = cubieVertex(layer, ix, iy, iz, Orientation.IDENTITY, v);
+                        int p = CubeLattice.vertexIndex(ix, iy, iz, Orientation.IDENTITY, v);
+                        assertEquals(e.x, lattice.layerX[p], 1e-9);
+                        assertEquals(e.y, lattice.layerY[p], 1e-9);
+                        assertEquals(e.z, lattice.layerZ[p], 1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rotatingLayerUsesItsOwnPass() {
+        Mat3 view = new Mat3().setRotation(-20, 45, 10);
+        Mat3 layer = new Mat3().mul(view, new Mat3().setRotationAxis(1, -30));
+        CubeLattice lattice = new CubeLattice();
+        lattice.transform(view, SIZE, 400, 300, 0);
+        lattice.transformLayer(layer, 1, 2, 2, SIZE, 400, 300, 0);
+        for (int ix = 0; ix < 3; ix++) {
+            for (int iz = 0; iz < 3; iz++) {
+                for (int v = 0; v < CubieMesh.VERTICES; v++) {
+                    Vec3 e = cubieVertex(layer, ix, 2, iz, Orientation.IDENTITY, v);
+                    int p = CubeLattice.vertexIndex(ix, 2, iz, Orientation.IDENTITY, v);
+                    assertEquals(e.x, lattice.layerX[p], 1e-9);
+                    assertEquals(e.y, lattice.layerY[p], 1e-9);
+                    assertEquals(e.z, lattice.layerZ[p], 1e-9);
+                }
+                // El centro es el punto medio de dos esquinas opuestas
+                Vec3 c = layer.transform((ix - 1) * SIZE, SIZE, (iz - 1) * SIZE, new Vec3());
+                assertEquals(c.z, lattice.centerZ(ix, 2, iz, true), 1e-9);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Comprueba los movimientos de {@link CubeState} sin ventana: que cada giro
+ * se deshace con su inverso, que coinciden con mover y girar cada pieza por
+ * separado y que aplicarlos no reserva memoria.
+ */
+public class CubeStateTest {
+
+    @Test
+    public void everyMoveIsUndoneByItsInverse() {
+        CubeState solved = new CubeState();
+        for (int m = 0; m < CubeState.MOVES; m++) {
+            CubeState c = new CubeState();
+            c.turn(m);
+            assertNotEquals(CubeState.name(m), solved, c);
+            c.turn(CubeState.inverse(m));
+            assertEquals(CubeState.name(m), solved, c);
+            int repeat = m % 3 == CubeState.HALF ? 2 : 4;
+            for (int i = 0; i < repeat; i++) {
+                c.turn(m);
+            }
+            assertEquals(CubeState.name(m), solved, c);
+        }
+    }
+
+    @Test
+    public void namesRoundTrip() {
+        for (int m = 0; m < CubeState.MOVES; m++) {
+            assertEquals(m, CubeState.parse(CubeState.name(m)));
+        }
+        assertEquals("R'", CubeState.name(CubeState.R + CubeState.PRIME));
+        assertEquals(-1, CubeState.parse("Q"));
+    }
+
+    @Test
+    public void knownSequencesHaveTheirOrder() {
+        int[] sexy = {CubeState.R, CubeState.U, CubeState.R + CubeState.PRIME, CubeState.U + CubeState.PRIME};
+        int[] halves = {CubeState.R + CubeState.HALF, CubeState.U + CubeState.HALF};
+        for (int[] seq : new int[][]{sexy, halves}) {
+            CubeState c = new CubeState();
+            for (int i = 0; i < 5; i++) {
+                c.apply(seq);
+                assertNotEquals(new CubeState(), c);
+            }
+            c.apply(seq);
+            assertEquals(new CubeState(), c);
+        }
+    }
+
+    /** Casilla de destino de un cuarto de vuelta, como en {@code Cubo.rotateLayer}. */
+    private static int[] move(int x, int y, int z, int axis, boolean cw) {
+        switch (axis) {
+            case 0:
+                return cw ? new int[]{x, z, 2 - y} : new int[]{x, 2 - z, y};
+            case 1:
+                return cw ? new int[]{z, y, 2 - x} : new int[]{2 - z, y, x};
+            default:
+                return cw ? new int[]{y, 2 - x, z} : new int[]{2 - y, x, z};
+        }
+    }
+
+    @Test
+    public void layerTurnsMatchMovingEachPiece() {
+        Random rnd = new Random(3);
+        CubeState c = new CubeState();
+        int[][] pos = new int[CubeState.SLOTS][];
+        int[] orient = new int[CubeState.SLOTS];
+        for (int p = 0; p < CubeState.SLOTS; p++) {
+            pos[p] = new int[]{p / 9, p / 3 % 3, p % 3};
+        }
+        for (int i = 0; i < 500; i++) {
+            int axis = rnd.nextInt(3);
+            int layer = rnd.nextInt(3);
+            boolean cw = rnd.nextBoolean();
+            c.turn(axis, layer, cw);
+            for (int p = 0; p < CubeState.SLOTS; p++) {
+                if (pos[p][axis] == layer) {
+                    pos[p] = move(pos[p][0], pos[p][1], pos[p][2], axis, cw);
+                    orient[p] = Orientation.turn(orient[p], axis, cw);
+                }
+            }
+        }
+        for (int p = 0; p < CubeState.SLOTS; p++) {
+            int slot = CubeState.slot(pos[p][0], pos[p][1], pos[p][2]);
+            assertEquals(p, c.piece(slot));
+            assertEquals(orient[p], c.orientation(slot));
+        }
+    }
+
+    @Test
+    public void layerMovesCountQuarterTurns() {
+        for (int axis = 0; axis < 3; axis++) {
+            for (int layer = 0; layer < 3; layer++) {
+                CubeState quarters = new CubeState();
+                quarters.turn(axis, layer, true);
+                CubeState move = new CubeState();
+                move.turn(CubeState.layerMove(axis, layer, 1));
+                assertEquals(quarters, move);
+
+                quarters.turn(axis, layer, true);
+                move = new CubeState();
+                move.turn(CubeState.layerMove(axis, layer, 2));
+                assertEquals(quarters, move);
+
+                quarters.turn(axis, layer, true);
+                move = new CubeState();
+                move.turn(CubeState.layerMove(axis, layer, -1));
+                assertEquals(quarters, move);
+                assertEquals(CubeState.layerMove(axis, layer, -1), CubeState.layerMove(axis, layer, 3));
+            }
+        }
+    }
+
+    /** Bit de la máscara de vecinas de cada dirección: -Z, +Z, -Y, +Y, -X, +X. */
+    private static final int MZ = 1, PZ = 2, MY = 4, PY = 8, MX = 16, PX = 32;
+
+    @Test
+    public void restingPiecesHideEveryTouchingFace() {
+        assertEquals(0x3F, CubeState.neighbourMask(1, 1, 1, -1, 0, 0, -1));
+        assertEquals(PZ | PY | PX, CubeState.neighbourMask(0, 0, 0, -1, 0, 0, -1));
+        assertEquals(MZ | PZ | MY | MX | PX, CubeState.neighbourMask(1, 2, 1, -1, 0, 0, -1));
+    }
+
+    @Test
+    public void facesAcrossTheTurningSlabAreDrawn() {
+        // Gira la capa y = 0: dentro de ella todo sigue pegado, hacia y = 1 no
+        assertEquals(MZ | PZ | MX | PX, CubeState.neighbourMask(1, 0, 1, 1, 0, 0, -1));
+        assertEquals(MZ | PZ | PY | MX | PX, CubeState.neighbourMask(1, 1, 1, 1, 0, 0, -1));
+        // Un giro doble de y = 0 y 1 separa la frontera entre y = 1 e y = 2
+        assertEquals(MZ | PZ | PY | MX | PX, CubeState.neighbourMask(1, 0, 1, 1, 0, 1, -1));
+        assertEquals(MZ | PZ | MY | MX | PX, CubeState.neighbourMask(1, 1, 1, 1, 0, 1, -1));
+        assertEquals(MZ | PZ | MX | PX, CubeState.neighbourMask(1, 2, 1, 1, 0, 1, -1));
+        // Girar el cubo entero no separa ninguna pieza
+        assertEquals(0x3F, CubeState.neighbourMask(1, 1, 1, 2, 0, 2, -1));
+    }
+
+    @Test
+    public void displacedPieceSeparatesFromItsNeighbours() {
+        int displaced = CubeState.slot(1, 1, 0);
+        assertEquals(0, CubeState.neighbourMask(1, 1, 0, -1, 0, 0, displaced));
+        assertEquals(0x3F & ~MZ, CubeState.neighbourMask(1, 1, 1, -1, 0, 0, displaced));
+        assertEquals(PZ | MY | PY, CubeState.neighbourMask(2, 1, 0, -1, 0, 0, displaced));
+    }
+
+    @Test
+    public void copiesAreIndependentAndHashLikeTheOriginal() {
+        CubeState a = new CubeState();
+        a.apply(new int[]{CubeState.F, CubeState.L + CubeState.HALF, CubeState.M});
+        CubeState b = a.copy();
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        b.turn(CubeState.U);
+        assertNotEquals(a, b);
+        b.set(a);
+        assertEquals(a, b);
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void movesDoNotAllocate() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        CubeState c = new CubeState();
+        for (int i = 0; i < 100_000; i++) {
+            c.turn(i % CubeState.MOVES);
+        }
+        long empty = -allocated() + allocated();
+        long start = allocated();
+        for (int i = 0; i < 1_000_000; i++) {
+            c.turn(i % CubeState.MOVES);
+        }
+        long used = allocated() - start;
+        assertTrue("reservados " + used + " bytes", used - empty < 1024);
+    }
+}
@@ -25,7 +25,7 @@ public class CuboArrowRotationTest {
     }
 
     private int[] call(double[] arrow, int face) throws Exception {
-        Subcubo sc = new Subcubo(0, 0, 0, 1);
+        Subcubo sc = new Subcubo(0, 0, 0);
         return (int[]) getArrow.invoke(cubo, arrow, sc, face);
     }
 
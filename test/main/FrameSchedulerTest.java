@@ -0,0 +1,70 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que el planificador funde las peticiones en un solo cuadro por
+ * intervalo y cuenta las descartadas. Cada prueba corre entera en el EDT
+ * para que el temporizador no dibuje entre medias.
+ */
+public class FrameSchedulerTest {
+
+    @Test
+    public void requestsBetweenTicksShareOneFrame() throws Exception {
+        SwingUtilities.invokeAndWait(this::shareOneFrame);
+    }
+
+    private void shareOneFrame() {
+        int[] rendered = {0};
+        FrameScheduler s = new FrameScheduler(30, () -> rendered[0]++);
+        for (int i = 0; i < 5; i++) {
+            s.requestFrame();
+        }
+        assertTrue(s.isPending());
+        assertEquals(0, rendered[0]);
+        s.tick();
+        assertEquals(1, rendered[0]);
+        assertFalse(s.isPending());
+        // Sin peticiones nuevas el siguiente intervalo no dibuja nada
+        s.tick();
+        assertEquals(1, rendered[0]);
+
+        s.requestFrame();
+        s.tick();
+        assertEquals(2, rendered[0]);
+        assertEquals(6, s.getRequests());
+        assertEquals(2, s.getFrames());
+        assertEquals(4, s.getDroppedRequests());
+    }
+
+    @Test
+    public void requestsDuringAFrameAreKept() throws Exception {
+        SwingUtilities.invokeAndWait(this::keepRequestsDuringFrame);
+    }
+
+    private void keepRequestsDuringFrame() {
+        FrameScheduler[] ref = new FrameScheduler[1];
+        int[] rendered = {0};
+        ref[0] = new FrameScheduler(60, () -> {
+            // Una animación pide el siguiente cuadro mientras se dibuja este
+            if (rendered[0]++ == 0) {
+                ref[0].requestFrame();
+            }
+        });
+        ref[0].requestFrame();
+        ref[0].tick();
+        assertTrue(ref[0].isPending());
+        ref[0].tick();
+        assertEquals(2, rendered[0]);
+        assertEquals(0, ref[0].getDroppedRequests());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void targetFpsMustBePositive() {
+        new FrameScheduler(0, () -> { });
+    }
+}
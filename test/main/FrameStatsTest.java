@@ -0,0 +1,104 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Comprueba el búfer circular de estadísticas y los contadores de cuadro de
+ * {@link Graficos}.
+ */
+public class FrameStatsTest {
+
+    private static final long MS = 1_000_000;
+
+    /** Guarda un cuadro que empieza en {@code start} con {@code raster} de rasterizado. */
+    private void frame(FrameStats s, long start, long raster) {
+        s.beginFrame(start);
+        s.add(FrameStats.RASTER, raster);
+        s.endFrame(start + raster, 12, 345);
+    }
+
+    @Test
+    public void disabledStatsRecordNothing() {
+        FrameStats s = new FrameStats();
+        s.beginFrame();
+        s.lap(FrameStats.TRANSFORM);
+        s.add(FrameStats.RASTER, 5 * MS);
+        s.endFrame(10, 100);
+        assertEquals(0, s.size());
+        assertEquals(0, s.percentile(FrameStats.RASTER, 0.5));
+    }
+
+    @Test
+    public void percentilesUseTheLatestFrames() {
+        FrameStats s = new FrameStats();
+        s.setEnabled(true);
+        // Cuadros antiguos muy lentos que el búfer circular debe olvidar
+        for (int i = 0; i < 50; i++) {
+            frame(s, i * 20 * MS, 100 * MS);
+        }
+        for (int i = 1; i <= FrameStats.CAPACITY; i++) {
+            frame(s, (1000 + i * 20) * MS, i * MS);
+        }
+        assertEquals(FrameStats.CAPACITY, s.size());
+        assertEquals(64 * MS, s.percentile(FrameStats.RASTER, 0.5));
+        assertEquals(127 * MS, s.percentile(FrameStats.RASTER, 0.99));
+        assertEquals(128 * MS, s.percentile(FrameStats.TOTAL, 1.0));
+        assertEquals(0, s.percentile(FrameStats.SORT, 0.99));
+        assertEquals(12, s.lastPolygons());
+        assertEquals(345, s.lastPixels());
+        // Un cuadro cada 20 ms: 50 en el último segundo
+        assertEquals(50, s.fps());
+    }
+
+    @Test
+    public void movedTimeChangesStage() {
+        FrameStats s = new FrameStats();
+        s.setEnabled(true);
+        s.beginFrame(0);
+        s.add(FrameStats.PRESENT, 5 * MS);
+        s.move(FrameStats.PRESENT, FrameStats.RASTER, 3 * MS);
+        s.endFrame(5 * MS, 0, 0);
+        assertEquals(2 * MS, s.percentile(FrameStats.PRESENT, 0.5));
+        assertEquals(3 * MS, s.percentile(FrameStats.RASTER, 0.5));
+        assertEquals(5 * MS, s.percentile(FrameStats.TOTAL, 0.5));
+    }
+
+    /** Dos rectángulos que se solapan y un triángulo. */
+    private void scene(Graficos g) {
+        g.clear();
+        g.fillRect(10, 10, 19, 19, Palette.HUD_TEXT);
+        g.fillRect(15, 15, 24, 24, Palette.HUD_ACCENT);
+        g.fillPolygon(new int[]{100, 140, 100}, new int[]{100, 100, 140}, 3, Palette.EDGE);
+        g.render();
+    }
+
+    @Test
+    public void graficosCountsTheSameInEveryMode() {
+        Graficos direct = new Graficos(200, 160);
+        scene(direct);
+        assertEquals(1, direct.getFramePolygons());
+        long pixels = direct.getFramePixels();
+        assertTrue(pixels > 200);
+
+        Graficos tiled = new Graficos(200, 160);
+        tiled.setTiledRendering(true);
+        scene(tiled);
+        assertEquals(1, tiled.getFramePolygons());
+        assertEquals(pixels, tiled.getFramePixels());
+
+        Graficos threaded = new Graficos(200, 160);
+        threaded.setRenderThread(true);
+        scene(threaded);
+        threaded.finish();
+        assertEquals(pixels, threaded.getFramePixels());
+        threaded.setRenderThread(false);
+
+        // El siguiente cuadro empieza a contar de cero
+        direct.clear();
+        direct.render();
+        assertEquals(0, direct.getFramePolygons());
+        assertEquals(0, direct.getFramePixels());
+    }
+}
@@ -0,0 +1,70 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+
+import org.junit.Test;
+
+/**
+ * Verifica que con el buffer de profundidad el resultado no depende del orden
+ * en que se envían los polígonos.
+ */
+public class GraficosDepthBufferTest {
+
+    private static final double[] XS = {10, 90, 90, 10};
+    private static final double[] YS = {10, 10, 70, 70};
+
+    private int rgb(Graficos g, int x, int y) {
+        return g.getBuffer().getRGB(x, y) & 0xFFFFFF;
+    }
+
+    @Test
+    public void nearerPolygonWinsRegardlessOfOrder() {
+        double[] near = {5, 5, 5, 5};
+        double[] far = {50, 50, 50, 50};
+        for (boolean nearFirst : new boolean[]{true, false}) {
+            Graficos g = new Graficos(100, 80);
+            g.setDepthTest(true);
+            g.clear();
+            if (nearFirst) {
+                g.fillPolygon(XS, YS, near, 4, Color.RED);
+                g.fillPolygon(XS, YS, far, 4, Color.BLUE);
+            } else {
+                g.fillPolygon(XS, YS, far, 4, Color.BLUE);
+                g.fillPolygon(XS, YS, near, 4, Color.RED);
+            }
+            for (int y = 10; y < 70; y++) {
+                for (int x = 10; x < 90; x++) {
+                    assertEquals("nearFirst=" + nearFirst + " at " + x + "," + y,
+                            Color.RED.getRGB() & 0xFFFFFF, rgb(g, x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void slopedPolygonsIntersectAlongTheirCrossing() {
+        // Dos planos inclinados en sentidos opuestos se cruzan en x = 50
+        double[] rising = {0, 100, 100, 0};
+        double[] falling = {100, 0, 0, 100};
+        Graficos g = new Graficos(100, 80);
+        g.setDepthTest(true);
+        g.clear();
+        g.fillPolygon(new double[]{0, 100, 100, 0}, YS, rising, 4, Color.RED);
+        g.fillPolygon(new double[]{0, 100, 100, 0}, YS, falling, 4, Color.BLUE);
+        assertEquals(Color.RED.getRGB() & 0xFFFFFF, rgb(g, 20, 40));
+        assertEquals(Color.BLUE.getRGB() & 0xFFFFFF, rgb(g, 80, 40));
+    }
+
+    @Test
+    public void clearResetsDepth() {
+        Graficos g = new Graficos(100, 80);
+        g.setDepthTest(true);
+        g.clear();
+        g.fillPolygon(XS, YS, new double[]{1, 1, 1, 1}, 4, Color.RED);
+        g.clear();
+        g.fillPolygon(XS, YS, new double[]{50, 50, 50, 50}, 4, Color.BLUE);
+        assertEquals(Color.BLUE.getRGB() & 0xFFFFFF, rgb(g, 40, 40));
+    }
+}
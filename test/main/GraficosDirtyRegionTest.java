@@ -0,0 +1,117 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que el redibujado parcial solo rasteriza lo que cambió y que el
+ * resultado es el mismo que dibujando el cuadro entero.
+ */
+public class GraficosDirtyRegionTest {
+
+    private static final int W = 240;
+    private static final int H = 180;
+
+    /** Una cara grande, una pieza que se desplaza y un texto opcional. */
+    private void scene(Graficos g, int shift, boolean hud) {
+        scene(g, shift, hud, false);
+    }
+
+    /** La misma escena, con un texto insertado antes de todo lo demás. */
+    private void scene(Graficos g, int shift, boolean hud, boolean marker) {
+        g.setDepthTest(true);
+        g.clear();
+        if (marker) {
+            PixelFont.drawString(g, "NEW", 5, 5, 1, Color.WHITE);
+        }
+        g.fillPolygon(new double[]{20, 200, 200, 20}, new double[]{20, 20, 160, 160},
+                new double[]{50, 50, 50, 50}, 4, Color.BLUE);
+        g.fillPolygon(new double[]{100 + shift, 130 + shift, 130 + shift, 100 + shift},
+                new double[]{70, 70, 100, 100}, new double[]{10, 10, 10, 10}, 4, Color.RED);
+        // Etiqueta sobre la cara azul; la pieza roja la tapa al pasar encima
+        if (g.beginVisibleIf(150, 85, 50)) {
+            PixelFont.drawString(g, "A1", 146, 81, 1, Color.WHITE);
+        }
+        g.endVisibleIf();
+        if (hud) {
+            PixelFont.drawString(g, "HUD", 5, 165, 2, Color.WHITE);
+        }
+        g.render();
+    }
+
+    private int[] pixels(Graficos g) {
+        return g.getBuffer().getRGB(0, 0, W, H, null, 0, W);
+    }
+
+    private int[] direct(int shift, boolean hud) {
+        return direct(shift, hud, false);
+    }
+
+    private int[] direct(int shift, boolean hud, boolean marker) {
+        Graficos g = new Graficos(W, H);
+        scene(g, shift, hud, marker);
+        return pixels(g);
+    }
+
+    @Test
+    public void partialFramesMatchFullRedraw() {
+        for (boolean thread : new boolean[]{false, true}) {
+            Graficos g = new Graficos(W, H);
+            g.setRenderThread(thread);
+            g.setDirtyTracking(true);
+            scene(g, 0, false);
+            for (int shift = 2; shift <= 40; shift += 2) {
+                scene(g, shift, shift % 4 == 0);
+                Rectangle dirty = g.getDirtyBounds();
+                assertTrue("shift " + shift + " dirty " + dirty,
+                        dirty.width * dirty.height < W * H / 2);
+                g.finish();
+                assertArrayEquals("thread=" + thread + " shift=" + shift,
+                        direct(shift, shift % 4 == 0), pixels(g));
+            }
+            g.setRenderThread(false);
+        }
+    }
+
+    @Test
+    public void unchangedFrameDrawsNothing() {
+        Graficos g = new Graficos(W, H);
+        g.setDirtyTracking(true);
+        scene(g, 0, true);
+        assertEquals(new Rectangle(0, 0, W, H), g.getDirtyBounds());
+        scene(g, 0, true);
+        assertTrue(g.getDirtyBounds().isEmpty());
+        assertArrayEquals(direct(0, true), pixels(g));
+    }
+
+    @Test
+    public void hudToggleOnlyRedrawsText() {
+        Graficos g = new Graficos(W, H);
+        g.setDirtyTracking(true);
+        scene(g, 0, false);
+        scene(g, 0, true);
+        Rectangle dirty = g.getDirtyBounds();
+        assertTrue(dirty.toString(), dirty.y >= 160 && dirty.width < 60);
+        assertArrayEquals(direct(0, true), pixels(g));
+    }
+
+    @Test
+    public void insertedOrRemovedCommandOnlyRedrawsItself() {
+        Graficos g = new Graficos(W, H);
+        g.setDirtyTracking(true);
+        scene(g, 0, true, false);
+        // Los comandos que siguen al insertado no cambian, solo se desplazan
+        scene(g, 0, true, true);
+        Rectangle dirty = g.getDirtyBounds();
+        assertTrue(dirty.toString(), dirty.y + dirty.height <= 20 && dirty.width < 40);
+        assertArrayEquals(direct(0, true, true), pixels(g));
+        scene(g, 0, true, false);
+        dirty = g.getDirtyBounds();
+        assertTrue(dirty.toString(), dirty.y + dirty.height <= 20 && dirty.width < 40);
+        assertArrayEquals(direct(0, true, false), pixels(g));
+    }
+}
@@ -0,0 +1,84 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que componer una capa retenida da la misma imagen que dibujar su
+ * contenido directamente, y que cambiar de capa redibuja solo su zona.
+ */
+public class GraficosOverlayTest {
+
+    private static final int W = 160;
+    private static final int H = 100;
+
+    private int[] pixels(Graficos g) {
+        return g.getBuffer().getRGB(0, 0, W, H, null, 0, W);
+    }
+
+    private void hud(Graficos g, String text) {
+        PixelFont.drawString(g, text, 4, 4, 2, Palette.HUD_TEXT);
+        g.fillRect(150, 90, 170, 110, Palette.HUD_ACCENT); // sale del lienzo
+    }
+
+    private Overlay layer(String text) {
+        Graficos layer = new Graficos(W, H);
+        hud(layer, text);
+        return layer.toOverlay();
+    }
+
+    private void scene(Graficos g) {
+        g.clear();
+        g.fillPolygon(new double[]{0, 150, 80}, new double[]{0, 20, 95}, 3, Palette.sticker(Palette.RED, false, false));
+    }
+
+    @Test
+    public void compositedLayerMatchesDirectDrawing() {
+        Graficos direct = new Graficos(W, H);
+        scene(direct);
+        hud(direct, "MODE: PLAY");
+
+        Overlay overlay = layer("MODE: PLAY");
+        Graficos composed = new Graficos(W, H);
+        scene(composed);
+        composed.drawOverlay(overlay);
+        assertArrayEquals(pixels(direct), pixels(composed));
+
+        Graficos threaded = new Graficos(W, H);
+        threaded.setRenderThread(true);
+        threaded.setDirtyTracking(true);
+        scene(threaded);
+        threaded.drawOverlay(overlay);
+        threaded.render();
+        threaded.finish();
+        assertArrayEquals(pixels(direct), pixels(threaded));
+        threaded.setRenderThread(false);
+    }
+
+    @Test
+    public void newLayerRedrawsOnlyItsArea() {
+        Graficos g = new Graficos(W, H);
+        g.setDirtyTracking(true);
+        Overlay play = layer("MODE: PLAY");
+        scene(g);
+        g.drawOverlay(play);
+        g.render();
+        // La misma capa no cambia nada
+        scene(g);
+        g.drawOverlay(play);
+        g.render();
+        assertTrue(g.getDirtyBounds().isEmpty());
+        // Una capa nueva solo ensucia su rectángulo envolvente
+        scene(g);
+        g.drawOverlay(layer("MODE: VIEW"));
+        g.render();
+        assertTrue(g.getDirtyBounds().y >= 4);
+        assertTrue(g.getDirtyBounds().getMaxY() <= H);
+
+        Graficos direct = new Graficos(W, H);
+        scene(direct);
+        hud(direct, "MODE: VIEW");
+        assertArrayEquals(pixels(direct), pixels(g));
+    }
+}
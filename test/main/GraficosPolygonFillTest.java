@@ -0,0 +1,84 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Comprueba la regla de relleno superior-izquierda del rasterizador de
+ * polígonos: dos cuadriláteros que comparten una arista cubren exactamente el
+ * mismo área que el polígono completo, sin huecos ni píxeles repetidos.
+ */
+public class GraficosPolygonFillTest {
+
+    private static final int W = 120;
+    private static final int H = 90;
+
+    private boolean[] coverage(double[] xs, double[] ys) {
+        Graficos g = new Graficos(W, H);
+        g.clear();
+        g.fillPolygon(xs, ys, xs.length, Color.WHITE);
+        boolean[] covered = new boolean[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                covered[y * W + x] = (g.getBuffer().getRGB(x, y) & 0xFFFFFF) == 0xFFFFFF;
+            }
+        }
+        return covered;
+    }
+
+    /** Ajusta una coordenada a la rejilla subpíxel de 1/16 del rasterizador. */
+    private static double snap(double v) {
+        return Math.round(v * 16) / 16.0;
+    }
+
+    @Test
+    public void sharedEdgesAreDrawnExactlyOnce() {
+        Random rnd = new Random(7);
+        for (int it = 0; it < 200; it++) {
+            // Cuadrilátero convexo dividido en dos por el segmento p-q que
+            // une puntos de dos lados opuestos
+            double cx = 20 + rnd.nextDouble() * 80, cy = 20 + rnd.nextDouble() * 50;
+            double a = rnd.nextDouble() * Math.PI / 2, r = 10 + rnd.nextDouble() * 40;
+            double[] vx = new double[4], vy = new double[4];
+            for (int k = 0; k < 4; k++) {
+                double ang = a + k * Math.PI / 2;
+                vx[k] = snap(cx + Math.cos(ang) * r);
+                vy[k] = snap(cy + Math.sin(ang) * r * 0.7);
+            }
+            double t = 0.2 + rnd.nextDouble() * 0.6, u = 0.2 + rnd.nextDouble() * 0.6;
+            double px = snap(vx[0] + (vx[1] - vx[0]) * t), py = snap(vy[0] + (vy[1] - vy[0]) * t);
+            double qx = snap(vx[3] + (vx[2] - vx[3]) * u), qy = snap(vy[3] + (vy[2] - vy[3]) * u);
+
+            // El contorno completo incluye p y q como vértices para que sus
+            // aristas coincidan exactamente con las de las dos mitades
+            boolean[] whole = coverage(new double[]{vx[0], px, vx[1], vx[2], qx, vx[3]},
+                    new double[]{vy[0], py, vy[1], vy[2], qy, vy[3]});
+            boolean[] left = coverage(new double[]{vx[0], px, qx, vx[3]}, new double[]{vy[0], py, qy, vy[3]});
+            boolean[] right = coverage(new double[]{px, vx[1], vx[2], qx}, new double[]{py, vy[1], vy[2], qy});
+            for (int i = 0; i < whole.length; i++) {
+                assertFalse("overlap at " + i + " it=" + it, left[i] && right[i]);
+                assertEquals("gap at " + i + " it=" + it, whole[i], left[i] || right[i]);
+            }
+        }
+    }
+
+    @Test
+    public void pixelCentresDecideCoverage() {
+        // Un cuadrado de 0 a 10 cubre exactamente los píxeles 0..9
+        boolean[] c = coverage(new double[]{0, 10, 10, 0}, new double[]{0, 0, 10, 10});
+        int count = 0;
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                if (c[y * W + x]) {
+                    assertTrue(x < 10 && y < 10);
+                    count++;
+                }
+            }
+        }
+        assertEquals(100, count);
+    }
+}
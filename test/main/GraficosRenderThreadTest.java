@@ -0,0 +1,85 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que con el hilo de render se publica la misma imagen que al
+ * dibujar directamente, incluidas las regiones que dependen de la
+ * profundidad.
+ */
+public class GraficosRenderThreadTest {
+
+    private static final int W = 200;
+    private static final int H = 150;
+
+    /** Dos caras a distinta profundidad y una marca sobre cada una. */
+    private void scene(Graficos g, int offset) {
+        g.setDepthTest(true);
+        g.clear();
+        g.fillPolygon(new double[]{10, 150, 150, 10}, new double[]{10, 10, 120, 120},
+                new double[]{50, 50, 50, 50}, 4, Color.BLUE);
+        g.fillPolygon(new double[]{60 + offset, 190, 190, 60 + offset}, new double[]{30, 30, 140, 140},
+                new double[]{10, 10, 10, 10}, 4, Color.RED);
+        // La marca sobre la cara azul queda tapada por la roja
+        if (g.beginVisibleIf(100, 60, 50)) {
+            g.fillRect(95, 55, 105, 65, Color.WHITE);
+        }
+        g.endVisibleIf();
+        if (g.beginVisibleIf(30, 60, 50)) {
+            g.fillRect(25, 55, 35, 65, Color.WHITE);
+        }
+        g.endVisibleIf();
+        g.drawLine(0, 0, 199, 149, Color.GREEN);
+        g.render();
+    }
+
+    private int[] pixels(Graficos g) {
+        return g.getBuffer().getRGB(0, 0, W, H, null, 0, W);
+    }
+
+    @Test
+    public void publishedFrameMatchesDirectDrawing() {
+        Graficos direct = new Graficos(W, H);
+        scene(direct, 0);
+        for (boolean tiled : new boolean[]{false, true}) {
+            Graficos threaded = new Graficos(W, H);
+            threaded.setRenderThread(true);
+            threaded.setTiledRendering(tiled);
+            scene(threaded, 0);
+            threaded.finish();
+            assertArrayEquals("tiled=" + tiled, pixels(direct), pixels(threaded));
+            threaded.setRenderThread(false);
+        }
+    }
+
+    @Test
+    public void hiddenRegionsAreSkipped() {
+        Graficos g = new Graficos(W, H);
+        g.setRenderThread(true);
+        scene(g, 0);
+        g.finish();
+        assertEquals(Color.RED.getRGB(), g.getBuffer().getRGB(100, 60));
+        assertEquals(Color.WHITE.getRGB(), g.getBuffer().getRGB(30, 60));
+        g.setRenderThread(false);
+    }
+
+    @Test
+    public void onlyTheLatestFrameIsShown() {
+        Graficos g = new Graficos(W, H);
+        g.setRenderThread(true);
+        for (int i = 0; i < 20; i++) {
+            scene(g, i);
+        }
+        g.finish();
+        Graficos direct = new Graficos(W, H);
+        scene(direct, 19);
+        assertArrayEquals(pixels(direct), pixels(g));
+        // Al desactivar el hilo el buffer propio conserva el último cuadro
+        g.setRenderThread(false);
+        assertArrayEquals(pixels(direct), pixels(g));
+    }
+}
@@ -0,0 +1,81 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que con resolución reducida se dibuja lo mismo que a resolución
+ * completa con las coordenadas divididas, también con hilo de render y
+ * regiones sucias.
+ */
+public class GraficosResolutionTest {
+
+    private static final int W = 200;
+    private static final int H = 160;
+
+    /** Escena con coordenadas multiplicadas por {@code k}. */
+    private void scene(Graficos g, int k) {
+        g.setDepthTest(true);
+        g.clear();
+        g.fillPolygon(new double[]{10 * k, 90 * k, 90 * k, 10 * k}, new double[]{10 * k, 10 * k, 70 * k, 70 * k},
+                new double[]{50, 50, 50, 50}, 4, Palette.sticker(Palette.BLUE, false, false));
+        g.fillPolygon(new double[]{30 * k, 95 * k, 60 * k}, new double[]{20 * k, 40 * k, 75 * k},
+                new double[]{10, 10, 10}, 3, Palette.sticker(Palette.RED, false, false));
+        g.drawLine(0, 0, 98 * k, 78 * k, Palette.EDGE);
+        g.fillRect(4 * k, 60 * k, 20 * k, 64 * k, Palette.HUD_TEXT);
+        g.render();
+    }
+
+    private int[] pixels(Graficos g, int w, int h) {
+        return g.getBuffer().getRGB(0, 0, w, h, null, 0, W);
+    }
+
+    @Test
+    public void reducedFrameMatchesScaledCoordinates() {
+        Graficos full = new Graficos(W, H);
+        scene(full, 1);
+
+        Graficos reduced = new Graficos(W, H);
+        reduced.setResolutionDivisor(2);
+        scene(reduced, 2);
+        assertEquals(2, reduced.getBufferDivisor());
+        assertArrayEquals(pixels(full, W / 2, H / 2), pixels(reduced, W / 2, H / 2));
+    }
+
+    @Test
+    public void threadedFramesFollowTheDivisor() {
+        Graficos full = new Graficos(W, H);
+        scene(full, 2);
+        Graficos half = new Graficos(W, H);
+        scene(half, 1);
+
+        Graficos g = new Graficos(W, H);
+        g.setRenderThread(true);
+        g.setDirtyTracking(true);
+        scene(g, 2);
+        g.finish();
+        assertArrayEquals(pixels(full, W, H), pixels(g, W, H));
+        assertEquals(1, g.getBufferDivisor());
+
+        g.setResolutionDivisor(2);
+        scene(g, 2);
+        g.finish();
+        assertArrayEquals(pixels(half, W / 2, H / 2), pixels(g, W / 2, H / 2));
+        // Divisor de la imagen que acaba de devolver getBuffer()
+        assertEquals(2, g.getBufferDivisor());
+
+        // Al volver a resolución completa se redibuja todo el cuadro
+        g.setResolutionDivisor(1);
+        scene(g, 2);
+        g.finish();
+        assertArrayEquals(pixels(full, W, H), pixels(g, W, H));
+        assertEquals(1, g.getBufferDivisor());
+        g.setRenderThread(false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void divisorMustBePowerOfTwo() {
+        new Graficos(W, H).setResolutionDivisor(3);
+    }
+}
@@ -0,0 +1,76 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que el rasterizado por baldosas en paralelo produce exactamente
+ * la misma imagen que el dibujo secuencial.
+ */
+public class GraficosTiledRenderTest {
+
+    private static final int W = 301;
+    private static final int H = 203;
+
+    /** Dibuja una escena aleatoria reproducible con el modo indicado. */
+    private int[] draw(boolean tiled, boolean depth, long seed) {
+        Graficos g = new Graficos(W, H);
+        g.setTiledRendering(tiled);
+        g.setDepthTest(depth);
+        g.translate(7, -5);
+        g.clear();
+        Random rnd = new Random(seed);
+        for (int i = 0; i < 300; i++) {
+            Color c = new Color(rnd.nextInt(0xFFFFFF));
+            double cx = rnd.nextDouble() * (W + 40) - 20, cy = rnd.nextDouble() * (H + 40) - 20;
+            switch (rnd.nextInt(5)) {
+                case 0: {
+                    double[] xs = new double[4], ys = new double[4], zs = new double[4];
+                    double a = rnd.nextDouble() * Math.PI, r = 5 + rnd.nextDouble() * 80;
+                    for (int k = 0; k < 4; k++) {
+                        xs[k] = cx + Math.cos(a + k * Math.PI / 2) * r;
+                        ys[k] = cy + Math.sin(a + k * Math.PI / 2) * r * 0.6;
+                        zs[k] = rnd.nextDouble() * 100;
+                    }
+                    g.fillPolygon(xs, ys, zs, 4, c);
+                    break;
+                }
+                case 1:
+                    g.fillRect((int) cx, (int) cy, (int) cx + rnd.nextInt(90) - 45,
+                            (int) cy + rnd.nextInt(90) - 45, c);
+                    break;
+                case 2:
+                    g.drawLine((int) cx, (int) cy, rnd.nextDouble() * 100,
+                            rnd.nextInt(W), rnd.nextInt(H), rnd.nextDouble() * 100, c);
+                    break;
+                case 3:
+                    g.fillPolygon(new int[]{(int) cx, (int) cx + 60, (int) cx + 10},
+                            new int[]{(int) cy, (int) cy + 15, (int) cy + 70}, 3, c);
+                    break;
+                default:
+                    g.fillCircle((int) cx, (int) cy, rnd.nextInt(20), c);
+                    break;
+            }
+        }
+        g.flush();
+        return g.getBuffer().getRGB(0, 0, W, H, null, 0, W);
+    }
+
+    @Test
+    public void tiledOutputMatchesSerial() {
+        for (long seed = 1; seed <= 5; seed++) {
+            assertArrayEquals("seed " + seed, draw(false, false, seed), draw(true, false, seed));
+        }
+    }
+
+    @Test
+    public void tiledOutputMatchesSerialWithDepthBuffer() {
+        for (long seed = 1; seed <= 5; seed++) {
+            assertArrayEquals("seed " + seed, draw(false, true, seed), draw(true, true, seed));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Comprueba que {@link Mat3} calcula lo mismo que las matrices
+ * {@code double[][]} de {@link Subcubo} y que transformar la red del cubo
+ * con las matrices del cuadro y dibujar una pieza sobre ella no reserva
+ * memoria.
+ */
+public class Mat3Test {
+
+    private static void assertSame(double[][] expected, Mat3 m) {
+        double[][] actual = {
+            {m.m00, m.m01, m.m02},
+            {m.m10, m.m11, m.m12},
+            {m.m20, m.m21, m.m22}
+        };
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(expected[i], actual[i], 1e-12);
+        }
+    }
+
+    @Test
+    public void matchesTheArrayMatrices() {
+        double[][] angles = {{30, 30, 0}, {-47, 112, 9}, {90, -90, 180}};
+        for (double[] a : angles) {
+            assertSame(Subcubo.rotation(a[0], a[1], a[2]), new Mat3().setRotation(a[0], a[1], a[2]));
+            for (int axis = 0; axis < 3; axis++) {
+                assertSame(Subcubo.rotationAxis(axis, a[1]), new Mat3().setRotationAxis(axis, a[1]));
+            }
+        }
+        double[][] a = Subcubo.rotation(10, 20, 30);
+        double[][] b = Subcubo.rotation(-40, 5, 70);
+        Mat3 m = new Mat3().set(a);
+        assertSame(Subcubo.multiply(a, b), new Mat3().mul(m, new Mat3().set(b)));
+        // El producto puede escribirse sobre uno de sus factores
+        assertSame(Subcubo.multiply(a, b), m.mul(m, b));
+
+        double[] p = Subcubo.multiply(a, new double[]{3, -4, 5});
+        Vec3 v = new Mat3().set(a).transform(new Vec3(3, -4, 5));
+        assertArrayEquals(p, new double[]{v.x, v.y, v.z}, 1e-12);
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Un cuadro como el de {@link Cubo}: la red, la capa que gira y la pieza. */
+    private static void drawFrame(Graficos g, CubeLattice lattice, Mat3 view, Mat3 layer,
+            Subcubo sc, RenderOptions opt) {
+        lattice.transform(view, 40, 100, 100, 0);
+        lattice.transformLayer(layer, 1, 1, 1, 40, 100, 100, 0);
+        sc.dibujar(g, lattice, true, true, opt);
+    }
+
+    @Test
+    public void drawingWithFrameMatricesDoesNotAllocate() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        Graficos g = new Graficos(200, 200);
+        Subcubo sc = new Subcubo(1, 1, 1);
+        CubeLattice lattice = new CubeLattice();
+        Mat3 view = new Mat3().setRotation(30, 30, 0);
+        Mat3 layer = new Mat3().mul(view, new Mat3().setRotationAxis(1, 25));
+        RenderOptions opt = new RenderOptions();
+        opt.idxX = 1;
+        opt.idxY = 1;
+        opt.idxZ = 1;
+        for (int i = 0; i < 2000; i++) {
+            drawFrame(g, lattice, view, layer, sc, opt);
+        }
+        long empty = -allocated() + allocated();
+        long start = allocated();
+        for (int i = 0; i < 1000; i++) {
+            drawFrame(g, lattice, view, layer, sc, opt);
+        }
+        long used = allocated() - start;
+        assertTrue("reservados " + used + " bytes", used - empty < 1024);
+    }
+}
@@ -0,0 +1,61 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que las tablas de {@link Orientation} forman el grupo de
+ * rotaciones del cubo y coinciden con los giros de 90° en coma flotante.
+ */
+public class OrientationTest {
+
+    @Test
+    public void thereAreTwentyFourDistinctRotations() {
+        Set<String> seen = new HashSet<>();
+        for (int o = 0; o < Orientation.COUNT; o++) {
+            double[][] m = Orientation.matrix(o);
+            double det = m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+                    - m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0])
+                    + m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+            assertEquals(1.0, det, 0);
+            assertTrue(seen.add(java.util.Arrays.deepToString(m)));
+        }
+        assertArrayEquals(new double[]{1, 0, 0}, Orientation.matrix(Orientation.IDENTITY)[0], 0);
+    }
+
+    @Test
+    public void turnsMatchTheQuarterTurnMatrices() {
+        for (int o = 0; o < Orientation.COUNT; o++) {
+            for (int axis = 0; axis < 3; axis++) {
+                for (boolean cw : new boolean[]{true, false}) {
+                    int next = Orientation.turn(o, axis, cw);
+                    double[][] expected = Subcubo.multiply(
+                            Subcubo.rotationAxis(axis, cw ? 90 : -90), Orientation.matrix(o));
+                    double[][] actual = Orientation.matrix(next);
+                    for (int r = 0; r < 3; r++) {
+                        assertArrayEquals(expected[r], actual[r], 1e-9);
+                    }
+                    assertEquals(o, Orientation.turn(next, axis, !cw));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void everyFaceHasOneStickerAndOneDirection() {
+        for (int o = 0; o < Orientation.COUNT; o++) {
+            int stickers = 0;
+            int directions = 0;
+            for (int face = 0; face < 6; face++) {
+                stickers |= 1 << Orientation.sticker(o, face);
+                directions |= 1 << Orientation.direction(o, face);
+            }
+            assertEquals(6, Integer.bitCount(stickers));
+            assertEquals(0b111111, directions);
+        }
+    }
+}
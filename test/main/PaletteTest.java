@@ -0,0 +1,41 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que la paleta reproduce los tonos que antes se calculaban con
+ * {@link Color} en cada cuadro y que las primitivas enteras pintan lo mismo
+ * que las que reciben un {@link Color}.
+ */
+public class PaletteTest {
+
+    @Test
+    public void highlightShadesMatchColorArithmetic() {
+        for (int id = 0; id < Palette.stickerCount(); id++) {
+            Color c = new Color(Palette.sticker(id, false, false));
+            assertEquals(c.darker().getRGB(), Palette.sticker(id, true, false));
+            assertEquals(c.darker().brighter().getRGB(), Palette.sticker(id, true, true));
+        }
+    }
+
+    @Test
+    public void intPrimitivesMatchColorPrimitives() {
+        Color color = new Color(Palette.sticker(Palette.RED, false, false));
+        Graficos a = new Graficos(80, 60);
+        Graficos b = new Graficos(80, 60);
+        a.clear();
+        b.clear();
+        a.fillPolygon(new double[]{5, 70, 40}, new double[]{5, 10, 55}, 3, color);
+        b.fillPolygon(new double[]{5, 70, 40}, new double[]{5, 10, 55}, 3, color.getRGB());
+        a.drawLine(0, 59, 79, 0, Color.BLACK);
+        b.drawLine(0, 59, 79, 0, Palette.EDGE);
+        PixelFont.drawString(a, "A1", 10, 20, 2, Color.WHITE);
+        PixelFont.drawString(b, "A1", 10, 20, 2, Palette.HUD_TEXT);
+        assertArrayEquals(a.getBuffer().getRGB(0, 0, 80, 60, null, 0, 80),
+                b.getBuffer().getRGB(0, 0, 80, 60, null, 0, 80));
+    }
+}
@@ -0,0 +1,84 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que el texto pintado con los glifos rasterizados coincide con el
+ * patrón de la fuente y que se obtiene lo mismo al grabar el cuadro.
+ */
+public class PixelFontGlyphTest {
+
+    private static final int W = 120;
+    private static final int H = 40;
+
+    private int[] pixels(Graficos g) {
+        return g.getBuffer().getRGB(0, 0, W, H, null, 0, W);
+    }
+
+    @Test
+    public void glyphSpansCoverThePattern() {
+        // 'A' a escala 3: la fila central (0b11111) es un único tramo
+        int[] spans = PixelFont.glyph('A', 3);
+        int lit = 0;
+        for (int k = 0; k < spans.length; k += 3) {
+            lit += spans[k + 2] - spans[k + 1];
+        }
+        // 'A' tiene 18 puntos encendidos, cada uno de 3x3 píxeles
+        assertEquals(18 * 9, lit);
+        assertSame(spans, PixelFont.glyph('A', 3));
+        assertSame(spans, PixelFont.glyph('a', 3));
+    }
+
+    @Test
+    public void scalesAddedFromSeveralThreadsAreComplete() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        boolean[] ok = new boolean[threads.length];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                boolean good = true;
+                for (int i = 0; i < 16; i++) {
+                    // Cada hilo recorre las escalas nuevas en otro orden
+                    int scale = 20 + (i * (id + 1)) % 16;
+                    int[] spans = PixelFont.glyph('A', scale);
+                    int lit = 0;
+                    for (int k = 0; k < spans.length; k += 3) {
+                        lit += spans[k + 2] - spans[k + 1];
+                    }
+                    good &= lit == 18 * scale * scale && PixelFont.glyph('Z', scale) != null;
+                }
+                ok[id] = good;
+            });
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            assertTrue("hilo " + t, ok[t]);
+        }
+        // Todos los hilos acaban viendo los mismos glifos
+        assertSame(PixelFont.glyph('A', 27), PixelFont.glyph('a', 27));
+    }
+
+    @Test
+    public void recordedTextMatchesDirectText() {
+        Graficos direct = new Graficos(W, H);
+        direct.clear();
+        PixelFont.drawString(direct, "Rubik 3D: -x", 3, 5, 2, Palette.HUD_TEXT);
+
+        Graficos recorded = new Graficos(W, H);
+        recorded.setDirtyTracking(true);
+        recorded.clear();
+        PixelFont.drawString(recorded, "Rubik 3D: -x", 3, 5, 2, Palette.HUD_TEXT);
+        recorded.render();
+        assertArrayEquals(pixels(direct), pixels(recorded));
+
+        // La mayúscula y la minúscula comparten glifo; '?' se dibuja en blanco
+        Graficos upper = new Graficos(W, H);
+        upper.clear();
+        PixelFont.drawString(upper, "RUBIK 3D: -X", 3, 5, 2, Palette.HUD_TEXT);
+        PixelFont.drawString(upper, "?", 90, 5, 2, Palette.HUD_TEXT);
+        assertArrayEquals(pixels(direct), pixels(upper));
+    }
+}
@@ -0,0 +1,54 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Comprueba cuándo el regulador de calidad baja y sube la resolución.
+ */
+public class QualityGovernorTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    public void reducesOnlyWhileInteracting() {
+        QualityGovernor q = new QualityGovernor(16);
+        for (int i = 0; i < 10; i++) {
+            q.frameRendered(40 * MS);
+        }
+        assertEquals(1, q.divisor());
+
+        q.beginInteraction();
+        q.frameRendered(40 * MS);
+        assertEquals(2, q.divisor());
+        assertTrue(q.isReduced());
+        q.frameRendered(30 * MS);
+        assertEquals(4, q.divisor());
+        q.frameRendered(30 * MS);
+        assertEquals("no baja de 1/4", 4, q.divisor());
+        assertEquals(2, q.reductions());
+
+        assertTrue(q.endInteraction());
+        assertEquals(1, q.divisor());
+        assertFalse(q.endInteraction());
+        assertEquals(1, q.restorations());
+    }
+
+    @Test
+    public void recoversWhenTheBudgetAllows() {
+        QualityGovernor q = new QualityGovernor(16);
+        q.beginInteraction();
+        q.frameRendered(20 * MS);
+        assertEquals(2, q.divisor());
+        // 5 ms a media resolución se estiman en 20 ms a completa: se mantiene
+        q.frameRendered(5 * MS);
+        assertEquals(2, q.divisor());
+        q = new QualityGovernor(16);
+        q.beginInteraction();
+        q.frameRendered(20 * MS);
+        q.frameRendered(3 * MS);
+        assertEquals(1, q.divisor());
+        assertEquals(1, q.restorations());
+    }
+}
@@ -0,0 +1,66 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que {@link Quat} gira igual que las matrices de {@link Mat3} y
+ * que una cámara compuesta con miles de giros sigue siendo una rotación.
+ */
+public class QuatTest {
+
+    private static void assertSame(Mat3 e, Mat3 a, double eps) {
+        assertArrayEquals(new double[]{e.m00, e.m01, e.m02, e.m10, e.m11, e.m12, e.m20, e.m21, e.m22},
+                new double[]{a.m00, a.m01, a.m02, a.m10, a.m11, a.m12, a.m20, a.m21, a.m22}, eps);
+    }
+
+    @Test
+    public void matchesTheMatrixRotations() {
+        double[][] angles = {{30, 30, 0}, {-47, 112, 9}, {90, -90, 180}, {0, 90, 0}};
+        for (double[] a : angles) {
+            assertSame(new Mat3().setRotation(a[0], a[1], a[2]),
+                    new Quat().setRotation(a[0], a[1], a[2]).toMat3(new Mat3()), 1e-12);
+            for (int axis = 0; axis < 3; axis++) {
+                assertSame(new Mat3().setRotationAxis(axis, a[1]),
+                        new Quat().setRotationAxis(axis, a[1]).toMat3(new Mat3()), 1e-12);
+            }
+        }
+        double[][] m = new Quat().setRotation(10, 20, 30).toMatrix(new double[3][3]);
+        assertSame(new Mat3().set(Subcubo.rotation(10, 20, 30)), new Mat3().set(m), 1e-12);
+    }
+
+    @Test
+    public void composingMatchesTheMatrixProduct() {
+        Random rnd = new Random(7);
+        Quat q = new Quat().setRotation(30, 30, 0);
+        Mat3 expected = new Mat3().setRotation(30, 30, 0);
+        Quat step = new Quat();
+        Mat3 stepM = new Mat3();
+        for (int i = 0; i < 200; i++) {
+            int axis = rnd.nextInt(3);
+            double deg = rnd.nextDouble() * 20 - 10;
+            q.mul(step.setRotationAxis(axis, deg), q).normalize();
+            expected.mul(stepM.setRotationAxis(axis, deg), expected);
+        }
+        assertSame(expected, q.toMat3(new Mat3()), 1e-9);
+    }
+
+    @Test
+    public void longDragsStayUnitLength() {
+        Random rnd = new Random(11);
+        Quat q = new Quat();
+        Quat step = new Quat();
+        for (int i = 0; i < 100_000; i++) {
+            q.mul(step.setRotationAxis(rnd.nextInt(3), rnd.nextDouble() * 3), q).normalize();
+        }
+        assertEquals(1.0, q.w * q.w + q.x * q.x + q.y * q.y + q.z * q.z, 1e-12);
+        Mat3 m = q.toMat3(new Mat3());
+        double det = m.m00 * (m.m11 * m.m22 - m.m12 * m.m21)
+                - m.m01 * (m.m10 * m.m22 - m.m12 * m.m20)
+                + m.m02 * (m.m10 * m.m21 - m.m11 * m.m20);
+        assertEquals(1.0, det, 1e-12);
+    }
+}
@@ -20,13 +20,13 @@ public class RotateLayerCoordinateTest {
         for (int axis = 0; axis < 3; axis++) {
             for (int layer = 0; layer < 3; layer++) {
                 Cubo c = new Cubo();
-                Subcubo[][][] cubo = (Subcubo[][][]) cuboField.get(c);
+                Subcubo[] cubo = (Subcubo[]) cuboField.get(c);
 
                 // Verificar índices iniciales
                 for (int x = 0; x < 3; x++) {
                     for (int y = 0; y < 3; y++) {
                         for (int z = 0; z < 3; z++) {
-                            Subcubo sc = cubo[x][y][z];
+                            Subcubo sc = cubo[CubeState.slot(x, y, z)];
                             assertEquals(x, sc.x);
                             assertEquals(y, sc.y);
                             assertEquals(z, sc.z);
@@ -35,12 +35,12 @@ public class RotateLayerCoordinateTest {
                 }
 
                 rotateLayer.invoke(c, axis, layer, true);
-                cubo = (Subcubo[][][]) cuboField.get(c);
+                cubo = (Subcubo[]) cuboField.get(c);
 
                 for (int x = 0; x < 3; x++) {
                     for (int y = 0; y < 3; y++) {
                         for (int z = 0; z < 3; z++) {
-                            Subcubo sc = cubo[x][y][z];
+                            Subcubo sc = cubo[CubeState.slot(x, y, z)];
                             assertEquals(x, sc.x);
                             assertEquals(y, sc.y);
                             assertEquals(z, sc.z);
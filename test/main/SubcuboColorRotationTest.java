@@ -1,31 +1,34 @@
 package main;
 
 import static org.junit.Assert.*;
-import java.awt.Color;
-import java.lang.reflect.Field;
 import org.junit.Test;
 
 public class SubcuboColorRotationTest {
 
+    static byte[] colors(Subcubo sc) {
+        byte[] c = new byte[6];
+        for (int face = 0; face < 6; face++) {
+            c[face] = sc.getColor(face);
+        }
+        return c;
+    }
+
     @Test
     public void testRotateColorsRepositionsFaces() throws Exception {
-        Field field = Subcubo.class.getDeclaredField("colores");
-        field.setAccessible(true);
-
         for (int axis = 0; axis < 3; axis++) {
             for (boolean cw : new boolean[]{true, false}) {
-                Subcubo sc = new Subcubo(0, 0, 0, 1);
-                Color[] orig = ((Color[]) field.get(sc)).clone();
-                sc.rotateColors(axis, cw);
-                Color[] expected = expected(orig, axis, cw);
-                Color[] actual = (Color[]) field.get(sc);
+                Subcubo sc = new Subcubo(0, 0, 0);
+                byte[] orig = colors(sc);
+                sc.turn(axis, cw);
+                byte[] expected = expected(orig, axis, cw);
+                byte[] actual = colors(sc);
                 assertArrayEquals("axis=" + axis + " cw=" + cw, expected, actual);
             }
         }
     }
 
-    private Color[] expected(Color[] c, int axis, boolean cw) {
-        Color[] r = c.clone();
+    private byte[] expected(byte[] c, int axis, boolean cw) {
+        byte[] r = c.clone();
         switch (axis) {
             case 0:
                 if (cw) {
@@ -72,25 +75,20 @@ public class SubcuboColorRotationTest {
 
     @Test
     public void testFourRotationsReturnOriginal() throws Exception {
-        Field colorField = Subcubo.class.getDeclaredField("colores");
-        colorField.setAccessible(true);
-        Field matrixField = Subcubo.class.getDeclaredField("rotMatrix");
-        matrixField.setAccessible(true);
-
         double[][] identity = new double[][]{{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
 
         for (int axis = 0; axis < 3; axis++) {
             for (boolean cw : new boolean[]{true, false}) {
-                Subcubo sc = new Subcubo(0, 0, 0, 1);
-                Color[] origColors = ((Color[]) colorField.get(sc)).clone();
+                Subcubo sc = new Subcubo(0, 0, 0);
+                byte[] origColors = colors(sc);
                 for (int i = 0; i < 4; i++) {
-                    sc.applyGlobalRotation(axis, cw);
-                    sc.rotateColors(axis, cw);
+                    sc.turn(axis, cw);
                 }
-                Color[] actualColors = (Color[]) colorField.get(sc);
+                byte[] actualColors = colors(sc);
                 assertArrayEquals("axis=" + axis + " cw=" + cw + " colors", origColors, actualColors);
 
-                double[][] actualMatrix = (double[][]) matrixField.get(sc);
+                assertEquals(Orientation.IDENTITY, sc.getOrientation());
+                double[][] actualMatrix = Orientation.matrix(sc.getOrientation());
                 for (int r = 0; r < 3; r++) {
                     assertArrayEquals("axis=" + axis + " cw=" + cw + " matrix row " + r,
                             identity[r], actualMatrix[r], 1e-9);
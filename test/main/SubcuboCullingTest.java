@@ -0,0 +1,51 @@
+package main;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Comprueba que un subcubo descarta las caras de espaldas al observador y
+ * las que están pegadas a una vecina.
+ */
+public class SubcuboCullingTest {
+
+    private int draw(Subcubo sc, double ax, double ay, int hidden) {
+        Graficos g = new Graficos(200, 200);
+        CubeLattice lattice = new CubeLattice();
+        lattice.transform(new Mat3().setRotation(ax, ay, 0), 60, 100, 100, 0);
+        RenderOptions opt = new RenderOptions();
+        opt.hiddenNeighbours = hidden;
+        opt.idxX = 1;
+        opt.idxY = 1;
+        opt.idxZ = 1;
+        return sc.dibujar(g, lattice, false, false, opt);
+    }
+
+    @Test
+    public void atMostThreeFacesAreDrawn() {
+        Subcubo sc = new Subcubo(1, 1, 1);
+        double[][] angles = {{0.3, 0.4}, {-0.7, 2.1}, {1.2, -0.5}, {2.8, 3.9}};
+        for (double[] a : angles) {
+            assertTrue(draw(sc, a[0], a[1], 0) >= 3);
+        }
+    }
+
+    @Test
+    public void facesTouchingNeighboursAreSkipped() {
+        Subcubo sc = new Subcubo(1, 1, 1);
+        int visible = 6 - draw(sc, 0.3, 0.4, 0);
+        assertTrue(visible > 0);
+        // Con vecinas en todas las direcciones no se dibuja ninguna cara
+        assertEquals(6, draw(sc, 0.3, 0.4, 0x3F));
+        // Ocultar una cara que ya estaba de espaldas no cambia nada
+        int drawnAll = 6 - draw(sc, 0.3, 0.4, 0);
+        int hiddenOne = 0;
+        for (int d = 0; d < 6; d++) {
+            int drawn = 6 - draw(sc, 0.3, 0.4, 1 << d);
+            assertTrue(drawn == drawnAll || drawn == drawnAll - 1);
+            hiddenOne += drawnAll - drawn;
+        }
+        assertEquals(drawnAll, hiddenOne);
+    }
+}